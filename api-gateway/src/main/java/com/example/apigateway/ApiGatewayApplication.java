@@ -1,10 +1,15 @@
 package com.example.apigateway;
 
 
+import com.example.shared.proxy.GatewayRouteProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@EnableConfigurationProperties(GatewayRouteProperties.class)
 public class ApiGatewayApplication {
 
   public static void main(String[] args) {
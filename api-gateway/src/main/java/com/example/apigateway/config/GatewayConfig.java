@@ -0,0 +1,36 @@
+package com.example.apigateway.config;
+
+import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The route table and token handling shared with the other gateway, bound to this gateway's principal.
+ */
+@Configuration
+public class GatewayConfig {
+
+    @Bean
+    public GatewayRoutes gatewayRoutes(GatewayRouteProperties properties) {
+        return new GatewayRoutes(properties);
+    }
+
+    @Bean
+    public JwtUtil<UserPrincipal> jwtUtil(@Value("${jwt.secret}") String secret,
+                                          @Value("${jwt.expiration-ms:3600000}") long expirationMs) {
+        return new JwtUtil<>(secret, expirationMs, UserPrincipal::new);
+    }
+
+    @Bean
+    public TokenCache<UserPrincipal> tokenCache(@Value("${jwt.token-cache.max-size:100000}") long maxSize,
+                                                @Value("${jwt.token-cache.max-ttl-ms:300000}") long maxTtlMs,
+                                                MeterRegistry meterRegistry) {
+        return new TokenCache<>(maxSize, maxTtlMs, meterRegistry);
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.apigateway.config;
 
 
-import com.example.apigateway.common.ApiResponse;
+import com.example.shared.common.ApiResponse;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
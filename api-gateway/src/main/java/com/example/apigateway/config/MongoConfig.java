@@ -24,5 +24,10 @@ public class MongoConfig {
                 .on("expiresAt", Sort.Direction.ASC)
                 .expire(0);
         indexOps.createIndex(ttlIndex);
+
+        Index revokedIndex = new Index()
+                .on("revokedAt", Sort.Direction.ASC)
+                .sparse();
+        indexOps.createIndex(revokedIndex);
     }
 }
\ No newline at end of file
@@ -1,31 +1,114 @@
 package com.example.apigateway.config;
 
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
 import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.media.Content;
+import io.swagger.v3.oas.models.media.MediaType;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.parameters.RequestBody;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
+import org.springdoc.core.customizers.OpenApiCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.StringUtils;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Configuration
 public class OpenApiConfig {
 
+    private static final String SECURITY_SCHEME_NAME = "Bearer Authentication";
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{([^}/]+)}");
+
     @Bean
     public OpenAPI customOpenAPI() {
-        final String securitySchemeName = "Bearer Authentication";
-
         return new OpenAPI()
                 .info(new Info()
                         .title("API Gateway")
                         .version("1.0")
                         .description("API Gateway for Mini E-commerce Application"))
                 .components(new Components()
-                        .addSecuritySchemes(securitySchemeName,
+                        .addSecuritySchemes(SECURITY_SCHEME_NAME,
                                 new SecurityScheme()
-                                        .name(securitySchemeName)
+                                        .name(SECURITY_SCHEME_NAME)
                                         .type(SecurityScheme.Type.HTTP)
                                         .scheme("bearer")
                                         .bearerFormat("JWT")
                                         .description("Enter JWT token")));
     }
-}
\ No newline at end of file
+
+    /**
+     * Documents every entry in {@code gateway.routes} in place of the operation springdoc derives from the
+     * shared proxy handler, which knows nothing about the route.
+     */
+    @Bean
+    public OpenApiCustomizer gatewayRoutesOpenApiCustomizer(GatewayRoutes gatewayRoutes) {
+        return openApi -> {
+            if (openApi.getPaths() == null) {
+                openApi.setPaths(new Paths());
+            }
+            for (GatewayRouteProperties.Route route : gatewayRoutes.all()) {
+                PathItem pathItem = openApi.getPaths().computeIfAbsent(route.getPath(), path -> new PathItem());
+                pathItem.operation(PathItem.HttpMethod.valueOf(route.getMethod().name()), operation(route));
+            }
+        };
+    }
+
+    private static Operation operation(GatewayRouteProperties.Route route) {
+        Operation operation = new Operation()
+                .operationId(route.getId())
+                .summary(StringUtils.hasText(route.getSummary()) ? route.getSummary() : route.getId())
+                .addTagsItem(tag(route))
+                .responses(new ApiResponses().addApiResponse("200", new ApiResponse().description("OK")));
+
+        Matcher variables = PATH_VARIABLE.matcher(route.getPath());
+        while (variables.find()) {
+            operation.addParametersItem(new Parameter()
+                    .in("path")
+                    .name(variables.group(1))
+                    .required(true)
+                    .schema(new StringSchema()));
+        }
+        route.getQueryParams().forEach((name, defaultValue) -> operation.addParametersItem(new Parameter()
+                .in("query")
+                .name(name)
+                .required(false)
+                .schema(StringUtils.hasText(defaultValue) ? new StringSchema()._default(defaultValue)
+                        : new StringSchema())));
+
+        if (route.getMethod() == HttpMethod.POST || route.getMethod() == HttpMethod.PUT
+                || route.getMethod() == HttpMethod.PATCH) {
+            operation.requestBody(new RequestBody()
+                    .required(true)
+                    .content(new Content().addMediaType(org.springframework.http.MediaType.APPLICATION_JSON_VALUE,
+                            new MediaType().schema(new ObjectSchema()))));
+        }
+        if (route.isAuth()) {
+            operation.addSecurityItem(new SecurityRequirement().addList(SECURITY_SCHEME_NAME));
+            operation.getResponses().addApiResponse("401", new ApiResponse().description("Unauthorized"));
+        }
+        return operation;
+    }
+
+    private static String tag(GatewayRouteProperties.Route route) {
+        if (StringUtils.hasText(route.getTag())) {
+            return route.getTag();
+        }
+        String path = route.getPath().startsWith("/") ? route.getPath().substring(1) : route.getPath();
+        int end = path.indexOf('/');
+        return StringUtils.capitalize(end < 0 ? path : path.substring(0, end));
+    }
+}
@@ -1,24 +1,137 @@
 package com.example.apigateway.config;
 
+import com.example.apigateway.webclient.SingleFlightInterceptor;
 import com.example.apigateway.webclient.UserIdForwardingInterceptor;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class RestClientConfig {
 
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager connectionManager(
+          MeterRegistry meterRegistry,
+          @Value("${member.service.base-url}") String memberServiceUrl,
+          @Value("${product.service.base-url}") String productServiceUrl,
+          @Value("${cart.service.base-url}") String cartServiceUrl,
+          @Value("${http.client.max-total:200}") int maxTotal,
+          @Value("${http.client.max-per-route.member:50}") int memberMaxPerRoute,
+          @Value("${http.client.max-per-route.product:100}") int productMaxPerRoute,
+          @Value("${http.client.max-per-route.cart:100}") int cartMaxPerRoute,
+          @Value("${http.client.connect-timeout-ms:1000}") long connectTimeoutMs,
+          @Value("${http.client.read-timeout-ms:5000}") long readTimeoutMs,
+          @Value("${http.client.validate-after-inactivity-ms:2000}") long validateAfterInactivityMs,
+          @Value("${http.client.time-to-live-ms:300000}") long timeToLiveMs) throws URISyntaxException {
+
+    PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxTotal)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                    .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                    .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                    .setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMs))
+                    .build())
+            .build();
+
+    Map<String, HttpRoute> routes = Map.of(
+            "member", routeTo(memberServiceUrl),
+            "product", routeTo(productServiceUrl),
+            "cart", routeTo(cartServiceUrl)
+    );
+    connectionManager.setMaxPerRoute(routes.get("member"), memberMaxPerRoute);
+    connectionManager.setMaxPerRoute(routes.get("product"), productMaxPerRoute);
+    connectionManager.setMaxPerRoute(routes.get("cart"), cartMaxPerRoute);
+
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "downstream").bindTo(meterRegistry);
+    routes.forEach((downstream, route) -> Gauge
+            .builder("http.client.pool.saturation", connectionManager,
+                    cm -> (double) cm.getStats(route).getLeased() / cm.getMaxPerRoute(route))
+            .tag("downstream", downstream)
+            .register(meterRegistry));
+
+    return connectionManager;
+  }
+
+  /**
+   * The route the client plans for requests to the URL. The client fills in the scheme's default port when the
+   * URL has none, so a route built from the URL as written would never match its connections.
+   */
+  private static HttpRoute routeTo(String url) throws URISyntaxException {
+    HttpHost target = RoutingSupport.normalize(HttpHost.create(url), DefaultSchemePortResolver.INSTANCE);
+    return new HttpRoute(target, null, URIScheme.HTTPS.same(target.getSchemeName()));
+  }
+
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient httpClient(
+          PoolingHttpClientConnectionManager connectionManager,
+          @Value("${http.client.connection-request-timeout-ms:1000}") long connectionRequestTimeoutMs,
+          @Value("${http.client.read-timeout-ms:5000}") long readTimeoutMs,
+          @Value("${http.client.keep-alive-ms:30000}") long keepAliveMs,
+          @Value("${http.client.idle-evict-ms:30000}") long idleEvictMs) {
+
+    return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                    .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                    .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAliveMs))
+                    .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictMs))
+            .build();
+  }
+
+  @Bean
+  public SingleFlightInterceptor singleFlightInterceptor(
+          GatewayRoutes gatewayRoutes,
+          MeterRegistry meterRegistry,
+          @Value("${http.client.single-flight.key-headers:Accept,X-User-Id}") List<String> keyHeaders) {
+
+    List<String> paths = gatewayRoutes.all().stream()
+            .filter(route -> route.isCoalesce() && route.getMethod() == HttpMethod.GET)
+            .map(GatewayRouteProperties.Route::getDownstreamPath)
+            .toList();
+    return new SingleFlightInterceptor(paths, keyHeaders, meterRegistry);
+  }
+
   @Bean
-  public RestTemplate restTemplate(UserIdForwardingInterceptor interceptor) {
-    RestTemplate restTemplate = new RestTemplate();
-    restTemplate.setInterceptors(Collections.singletonList(interceptor));
+  public RestTemplate restTemplate(UserIdForwardingInterceptor interceptor,
+                                   SingleFlightInterceptor singleFlightInterceptor,
+                                   CloseableHttpClient httpClient) {
+    RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    // X-User-Id is added first so it is part of the single-flight key
+    restTemplate.setInterceptors(List.of(interceptor, singleFlightInterceptor));
     restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
       @Override
       public void handleError(ClientHttpResponse response) throws IOException {
@@ -36,4 +149,4 @@ public class RestClientConfig {
     });
     return restTemplate;
   }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.example.apigateway.config;
 
 import com.example.apigateway.util.JwtAuthenticationFilter;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -21,9 +23,11 @@ import java.util.List;
 public class SecurityConfig {
 
   private final JwtAuthenticationFilter jwtFilter;
+  private final GatewayRoutes gatewayRoutes;
 
-  public SecurityConfig(JwtAuthenticationFilter jwtFilter) {
+  public SecurityConfig(JwtAuthenticationFilter jwtFilter, GatewayRoutes gatewayRoutes) {
     this.jwtFilter = jwtFilter;
+    this.gatewayRoutes = gatewayRoutes;
   }
 
   @Bean
@@ -32,14 +36,17 @@ public class SecurityConfig {
         .csrf(AbstractHttpConfigurer::disable)
         .cors(cors -> cors.configurationSource(corsConfigurationSource()))
         .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-        .authorizeHttpRequests(auth -> auth
-            .requestMatchers("/auth/**",
-                "/product/**",
-                "/swagger-ui.html",
-                "/swagger-ui/**",
-                "/v3/api-docs/**")
-            .permitAll()
-            .anyRequest().authenticated())
+        .authorizeHttpRequests(auth -> {
+          auth.requestMatchers("/auth/**",
+                  "/swagger-ui.html",
+                  "/swagger-ui/**",
+                  "/v3/api-docs/**")
+              .permitAll();
+          for (GatewayRouteProperties.Route route : gatewayRoutes.publicRoutes()) {
+            auth.requestMatchers(route.getMethod(), route.getPath()).permitAll();
+          }
+          auth.anyRequest().authenticated();
+        })
         .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
         .httpBasic(AbstractHttpConfigurer::disable)
         .formLogin(AbstractHttpConfigurer::disable);
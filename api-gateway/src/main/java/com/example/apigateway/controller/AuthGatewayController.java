@@ -1,20 +1,25 @@
 package com.example.apigateway.controller;
 
-import com.example.apigateway.common.ApiResponse;
 import com.example.apigateway.dto.LoginRequest;
 import com.example.apigateway.dto.RegisterRequest;
 import com.example.apigateway.model.Token;
-import com.example.apigateway.repository.TokenRepository;
-import com.example.apigateway.util.JwtUtil;
+import com.example.apigateway.security.TokenRevocationRegistry;
+import com.example.apigateway.security.TokenStore;
+import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.common.ApiResponse;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
@@ -22,6 +27,8 @@ import org.springframework.web.client.RestTemplate;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 
 @Slf4j
 @RestController
@@ -31,16 +38,25 @@ public class AuthGatewayController {
 
     private final RestTemplate restTemplate;
     private final String memberServiceBaseUrl;
-    private final JwtUtil jwtUtil;
-    private final TokenRepository tokenRepository;
+    private final JwtUtil<UserPrincipal> jwtUtil;
+    private final TokenCache<UserPrincipal> tokenCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final TokenStore tokenStore;
+    private final Duration tokenTtl;
 
     public AuthGatewayController(RestTemplate restTemplate,
                                  @Value("${member.service.base-url}") String memberServiceBaseUrl,
-                                 JwtUtil jwtUtil, TokenRepository tokenRepository) {
+                                 JwtUtil<UserPrincipal> jwtUtil, TokenCache<UserPrincipal> tokenCache,
+                                 TokenRevocationRegistry revocationRegistry,
+                                 TokenStore tokenStore,
+                                 @Value("${jwt.token-ttl-ms:300000}") long tokenTtlMs) {
         this.restTemplate = restTemplate;
         this.memberServiceBaseUrl = memberServiceBaseUrl;
         this.jwtUtil = jwtUtil;
-        this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.revocationRegistry = revocationRegistry;
+        this.tokenStore = tokenStore;
+        this.tokenTtl = Duration.ofMillis(tokenTtlMs);
     }
 
     @PostMapping("/register")
@@ -74,18 +90,21 @@ public class AuthGatewayController {
 
         Map<String, Object> data = response.getBody();
         String userId = (String) data.get("id");
-        String token = jwtUtil.generateToken(userId, Map.of("claims", data));
 
         Instant now = Instant.now();
-        Instant expiresAt = now.plus(Duration.ofMinutes(5));
+        Instant expiresAt = now.plus(tokenTtl);
+        String tokenId = UUID.randomUUID().toString();
+        String token = jwtUtil.generateToken(tokenId, userId, Map.of("claims", data), now, expiresAt);
 
         Token userToken = new Token();
+        userToken.setId(tokenId);
         userToken.setToken(token);
         userToken.setMemberId(userId);
         userToken.setCreatedAt(now);
         userToken.setExpiresAt(expiresAt);
 
-        tokenRepository.save(userToken);
+        UserPrincipal principal = new UserPrincipal(userId, (String) data.get("email"), (String) data.get("role"));
+        tokenStore.save(userToken, principal);
 
         ApiResponse<?> result = ApiResponse.builder()
                 .code(response.getStatusCode().value())
@@ -99,4 +118,42 @@ public class AuthGatewayController {
 
         return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/logout")
+    @Operation(summary = "Revoke the bearer token")
+    public ResponseEntity<ApiResponse<?>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        String token = authHeader.substring(7);
+        Optional<JwtUtil.VerifiedToken<UserPrincipal>> verified = jwtUtil.verify(token);
+
+        if (verified.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        JwtUtil.VerifiedToken<UserPrincipal> claims = verified.get();
+        boolean revoked = tokenStore.revoke(Token.builder()
+                .id(claims.tokenId())
+                .token(token)
+                .memberId(claims.principal().getUserId())
+                .createdAt(claims.issuedAt())
+                .expiresAt(claims.expiresAt())
+                .build());
+
+        tokenCache.invalidate(token);
+        revocationRegistry.revoke(claims.tokenId(), claims.expiresAt());
+
+        ApiResponse<?> result = ApiResponse.builder()
+                .code(200)
+                .status("OK")
+                .data(Map.of("revoked", revoked))
+                .errors(null)
+                .build();
+
+        return ResponseEntity.ok(result);
+    }
+}
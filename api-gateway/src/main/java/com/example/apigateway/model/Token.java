@@ -28,4 +28,6 @@ public class Token {
     private Instant createdAt;
 
     private Instant expiresAt;
+
+    private Instant revokedAt;
 }
\ No newline at end of file
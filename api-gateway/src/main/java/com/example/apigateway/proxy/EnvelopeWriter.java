@@ -0,0 +1,57 @@
+package com.example.apigateway.proxy;
+
+import com.example.shared.proxy.Envelopes;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Splices the {@code ApiResponse} envelope around a downstream body without materialising it as an object tree.
+ * BODY and WRAP copy the downstream bytes verbatim; EXTRACT streams a single top-level field through
+ * a token-level parser/generator pair so memory stays constant regardless of page size.
+ */
+@Component
+public class EnvelopeWriter {
+
+    private final JsonFactory jsonFactory;
+
+    public EnvelopeWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public void write(GatewayRouteProperties.Envelope envelope,
+                      String field,
+                      int code,
+                      InputStream body,
+                      OutputStream out) throws IOException {
+
+        if (envelope == GatewayRouteProperties.Envelope.NONE) {
+            body.transferTo(out);
+            return;
+        }
+
+        out.write(Envelopes.head(code));
+        switch (envelope) {
+            case BODY -> copyOrNull(body, out);
+            case WRAP -> {
+                out.write(Envelopes.wrapHead(field));
+                copyOrNull(body, out);
+                out.write(Envelopes.CLOSE);
+            }
+            case EXTRACT -> Envelopes.extract(jsonFactory, body, field, out);
+            default -> throw new IllegalStateException("Unsupported envelope " + envelope);
+        }
+        out.write(Envelopes.TAIL);
+    }
+
+    private static void copyOrNull(InputStream body, OutputStream out) throws IOException {
+        if (body.transferTo(out) == 0) {
+            out.write(Envelopes.NULL);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.apigateway.proxy;
+
+import com.example.shared.proxy.GatewayRouteProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handles a single configured route: forwards the request to the downstream service and streams the
+ * response back through {@link EnvelopeWriter}. Downstream 4xx/5xx are raised by the RestTemplate
+ * error handler before any bytes are written, so they still go through {@code GlobalExceptionHandler}.
+ * GET routes with a {@code cache-ttl} are buffered and answered from {@link ResponseCache} instead.
+ */
+public class ProxyRouteHandler {
+
+    private final GatewayRouteProperties.Route route;
+    private final RestTemplate restTemplate;
+    private final EnvelopeWriter envelopeWriter;
+    private final ResponseCache responseCache;
+
+    public ProxyRouteHandler(GatewayRouteProperties.Route route,
+                             RestTemplate restTemplate,
+                             EnvelopeWriter envelopeWriter,
+                             ResponseCache responseCache) {
+        this.route = route;
+        this.restTemplate = restTemplate;
+        this.envelopeWriter = envelopeWriter;
+        this.responseCache = responseCache;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void handle(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Map<String, String> pathVariables = (Map<String, String>) request
+                .getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+
+        String target = UriComponentsBuilder
+                .fromUriString(route.getDownstream())
+                .path(route.getDownstreamPath())
+                .buildAndExpand(pathVariables == null ? Map.of() : pathVariables)
+                .encode()
+                .toUriString();
+
+        String query = request.getQueryString();
+        URI uri = URI.create(query == null ? target : target + "?" + query);
+
+        if (route.getCacheTtl() != null && route.getMethod() == HttpMethod.GET) {
+            handleCached(request, response, uri);
+            return;
+        }
+
+        restTemplate.execute(uri, route.getMethod(), clientRequest -> {
+            clientRequest.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+            if (request.getContentType() != null) {
+                clientRequest.getHeaders().set(HttpHeaders.CONTENT_TYPE, request.getContentType());
+                StreamUtils.copy(request.getInputStream(), clientRequest.getBody());
+            }
+        }, clientResponse -> {
+            int code = clientResponse.getStatusCode().value();
+            response.setStatus(code);
+            response.setContentType(contentType(clientResponse.getHeaders().getContentType()));
+            envelopeWriter.write(route.getEnvelope(), route.getEnvelopeField(), code,
+                    clientResponse.getBody(), response.getOutputStream());
+            return null;
+        });
+    }
+
+    private void handleCached(HttpServletRequest request, HttpServletResponse response, URI uri) throws IOException {
+        String key = ResponseCache.key(route.getId(), request.getRequestURI(), request.getQueryString());
+        long now = System.currentTimeMillis();
+        ResponseCache.Entry entry = responseCache.get(key);
+
+        if (entry != null && entry.isFresh(now)) {
+            serve(request, response, entry, ResponseCache.Result.HIT);
+            return;
+        }
+
+        if (entry != null && entry.isServableWhileRevalidating(now)) {
+            responseCache.revalidate(key, () -> {
+                Fetched fetched = fetch(uri);
+                if (fetched.code() == 200) {
+                    responseCache.put(key, fetched.contentType(), fetched.body(), route.getCacheTtl());
+                }
+            });
+            serve(request, response, entry, ResponseCache.Result.STALE);
+            return;
+        }
+
+        Fetched fetched;
+        try {
+            fetched = fetch(uri);
+        } catch (RestClientException ex) {
+            if (entry != null && isDownstreamFailure(ex)) {
+                serve(request, response, entry, ResponseCache.Result.STALE);
+                return;
+            }
+            throw ex;
+        }
+
+        if (fetched.code() != 200) {
+            response.setStatus(fetched.code());
+            response.setContentType(fetched.contentType());
+            response.getOutputStream().write(fetched.body());
+            return;
+        }
+
+        entry = responseCache.put(key, fetched.contentType(), fetched.body(), route.getCacheTtl());
+        serve(request, response, entry, ResponseCache.Result.MISS);
+    }
+
+    private Fetched fetch(URI uri) {
+        return restTemplate.execute(uri, HttpMethod.GET,
+                clientRequest -> clientRequest.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                clientResponse -> {
+                    int code = clientResponse.getStatusCode().value();
+                    ByteArrayOutputStream body = new ByteArrayOutputStream();
+                    envelopeWriter.write(route.getEnvelope(), route.getEnvelopeField(), code,
+                            clientResponse.getBody(), body);
+                    return new Fetched(code, contentType(clientResponse.getHeaders().getContentType()),
+                            body.toByteArray());
+                });
+    }
+
+    private void serve(HttpServletRequest request,
+                       HttpServletResponse response,
+                       ResponseCache.Entry entry,
+                       ResponseCache.Result result) throws IOException {
+
+        response.setHeader(HttpHeaders.ETAG, entry.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, responseCache.cacheControl(route.getCacheTtl()));
+        if (result != ResponseCache.Result.MISS) {
+            response.setHeader(HttpHeaders.AGE, Long.toString(entry.ageSeconds(System.currentTimeMillis())));
+        }
+
+        if (entry.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            responseCache.record(route.getId(),
+                    result == ResponseCache.Result.MISS ? result : ResponseCache.Result.NOT_MODIFIED, entry);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        responseCache.record(route.getId(), result, entry);
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entry.contentType());
+        response.setContentLength(entry.body().length);
+        response.getOutputStream().write(entry.body());
+    }
+
+    private String contentType(MediaType downstream) {
+        if (route.getEnvelope() == GatewayRouteProperties.Envelope.NONE && downstream != null) {
+            return downstream.toString();
+        }
+        return MediaType.APPLICATION_JSON_VALUE;
+    }
+
+    /**
+     * Connection failures, timeouts and downstream 5xx; a 4xx is an authoritative answer and is not masked.
+     */
+    private static boolean isDownstreamFailure(RestClientException ex) {
+        return ex instanceof ResourceAccessException
+                || ex instanceof HttpClientErrorException http && http.getStatusCode().is5xxServerError();
+    }
+
+    private record Fetched(int code, String contentType, byte[] body) {
+    }
+}
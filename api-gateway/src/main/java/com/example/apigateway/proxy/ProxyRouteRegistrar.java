@@ -0,0 +1,64 @@
+package com.example.apigateway.proxy;
+
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * Registers one MVC mapping per entry in {@code gateway.routes}, so proxied routes share the
+ * dispatcher, security filter chain and exception handling of the hand-written controllers.
+ */
+@Slf4j
+@Component
+public class ProxyRouteRegistrar implements SmartInitializingSingleton {
+
+    private final GatewayRoutes gatewayRoutes;
+    private final RestTemplate restTemplate;
+    private final EnvelopeWriter envelopeWriter;
+    private final ResponseCache responseCache;
+    private final RequestMappingHandlerMapping handlerMapping;
+
+    public ProxyRouteRegistrar(GatewayRoutes gatewayRoutes,
+                               RestTemplate restTemplate,
+                               EnvelopeWriter envelopeWriter,
+                               ResponseCache responseCache,
+                               @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping) {
+        this.gatewayRoutes = gatewayRoutes;
+        this.restTemplate = restTemplate;
+        this.envelopeWriter = envelopeWriter;
+        this.responseCache = responseCache;
+        this.handlerMapping = handlerMapping;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Method handle;
+        try {
+            handle = ProxyRouteHandler.class.getMethod("handle", HttpServletRequest.class, HttpServletResponse.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+
+        for (GatewayRouteProperties.Route route : gatewayRoutes.all()) {
+            RequestMappingInfo info = RequestMappingInfo
+                    .paths(route.getPath())
+                    .methods(RequestMethod.valueOf(route.getMethod().name()))
+                    .options(handlerMapping.getBuilderConfiguration())
+                    .build();
+            handlerMapping.registerMapping(info, new ProxyRouteHandler(route, restTemplate, envelopeWriter, responseCache), handle);
+            log.info("Registered gateway route {} {} {} -> {}{}", route.getId(), route.getMethod(), route.getPath(),
+                    route.getDownstream(), route.getDownstreamPath());
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.apigateway.proxy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Byte-bounded cache of enveloped 200 responses for routes with a {@code cache-ttl}.
+ * An entry is fresh for the route's TTL, may then be served while it is refetched in the background
+ * (stale-while-revalidate) and, past that, only when the downstream call fails (stale-if-error).
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    public enum Result {
+        HIT,
+        STALE,
+        MISS,
+        NOT_MODIFIED
+    }
+
+    private final Cache<String, Entry> cache;
+    private final Duration staleWhileRevalidate;
+    private final Duration staleIfError;
+    private final ExecutorService revalidator;
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter downstreamBytesSaved;
+    private final Counter notModifiedBytesSaved;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder servedFromCache = new LongAdder();
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${gateway.response-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${gateway.response-cache.stale-while-revalidate-ms:30000}") long staleWhileRevalidateMs,
+                         @Value("${gateway.response-cache.stale-if-error-ms:300000}") long staleIfErrorMs,
+                         @Value("${gateway.response-cache.revalidation-threads:4}") int revalidationThreads) {
+        this.staleWhileRevalidate = Duration.ofMillis(staleWhileRevalidateMs);
+        this.staleIfError = Duration.ofMillis(Math.max(staleIfErrorMs, staleWhileRevalidateMs));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> key.length() + entry.body().length)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+
+        AtomicInteger threads = new AtomicInteger();
+        this.revalidator = Executors.newFixedThreadPool(revalidationThreads, runnable -> {
+            Thread thread = new Thread(runnable, "response-cache-revalidate-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.meterRegistry = meterRegistry;
+        this.downstreamBytesSaved = meterRegistry.counter("gateway.response-cache.bytes-saved", "kind", "downstream");
+        this.notModifiedBytesSaved = meterRegistry.counter("gateway.response-cache.bytes-saved", "kind", "not-modified");
+        meterRegistry.gauge("gateway.response-cache.hit-ratio", this, ResponseCache::hitRatio);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response");
+    }
+
+    /**
+     * Route id, path and query string with parameters sorted by name, so {@code ?size=2&page=0}
+     * and {@code ?page=0&size=2} share an entry. Values keep their order within a parameter.
+     */
+    public static String key(String routeId, String path, String query) {
+        if (query == null || query.isEmpty()) {
+            return routeId + " " + path;
+        }
+
+        Map<String, List<String>> params = new TreeMap<>();
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String name = decode(eq < 0 ? pair : pair.substring(0, eq));
+            String value = eq < 0 ? "" : decode(pair.substring(eq + 1));
+            params.computeIfAbsent(name, ignored -> new ArrayList<>()).add(value);
+        }
+
+        StringBuilder key = new StringBuilder(routeId).append(' ').append(path).append('?');
+        params.forEach((name, values) -> values.forEach(value ->
+                key.append(name).append('=').append(value).append('&')));
+        key.setLength(key.length() - 1);
+        return key.toString();
+    }
+
+    public Entry get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.isPastStaleIfError(System.currentTimeMillis())) {
+            return null;
+        }
+        return entry;
+    }
+
+    public Entry put(String key, String contentType, byte[] body, Duration ttl) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(
+                contentType,
+                body,
+                etag(body),
+                now,
+                now + ttl.toMillis(),
+                now + ttl.toMillis() + staleWhileRevalidate.toMillis(),
+                now + ttl.toMillis() + staleIfError.toMillis()
+        );
+        cache.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Runs {@code refresh} in the background unless a refresh for the key is already in flight.
+     */
+    public void revalidate(String key, Runnable refresh) {
+        if (!revalidating.add(key)) {
+            return;
+        }
+        try {
+            revalidator.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (RuntimeException ex) {
+                    log.warn("Background revalidation of {} failed, keeping stale entry", key, ex);
+                } finally {
+                    revalidating.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            revalidating.remove(key);
+        }
+    }
+
+    public void record(String routeId, Result result, Entry entry) {
+        meterRegistry.counter("gateway.response-cache.requests", "route", routeId, "result", result.name().toLowerCase())
+                .increment();
+        requests.increment();
+        if (result == Result.MISS) {
+            return;
+        }
+        servedFromCache.increment();
+        if (result == Result.NOT_MODIFIED) {
+            notModifiedBytesSaved.increment(entry.body().length);
+        }
+        downstreamBytesSaved.increment(entry.body().length);
+    }
+
+    /**
+     * Share of cacheable requests answered without waiting on the downstream (fresh, stale or 304).
+     */
+    public double hitRatio() {
+        long total = requests.sum();
+        return total == 0 ? 0 : (double) servedFromCache.sum() / total;
+    }
+
+    public String cacheControl(Duration ttl) {
+        return "public, max-age=" + ttl.toSeconds()
+                + ", stale-while-revalidate=" + staleWhileRevalidate.toSeconds()
+                + ", stale-if-error=" + staleIfError.toSeconds();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        revalidator.shutdownNow();
+    }
+
+    public record Entry(String contentType,
+                        byte[] body,
+                        String etag,
+                        long storedAt,
+                        long freshUntil,
+                        long staleWhileRevalidateUntil,
+                        long staleIfErrorUntil) {
+
+        public boolean isFresh(long now) {
+            return now < freshUntil;
+        }
+
+        public boolean isServableWhileRevalidating(long now) {
+            return now < staleWhileRevalidateUntil;
+        }
+
+        public boolean isPastStaleIfError(long now) {
+            return now >= staleIfErrorUntil;
+        }
+
+        public long ageSeconds(long now) {
+            return Math.max(0, (now - storedAt) / 1000);
+        }
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            long remaining = entry.staleIfErrorUntil() - System.currentTimeMillis();
+            return Duration.ofMillis(Math.max(0, remaining)).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
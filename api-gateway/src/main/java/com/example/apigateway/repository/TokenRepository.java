@@ -3,8 +3,12 @@ package com.example.apigateway.repository;
 import com.example.apigateway.model.Token;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface TokenRepository extends MongoRepository<Token, String> {
     Optional<Token> findByToken(String token);
+
+    List<Token> findByRevokedAtGreaterThanEqualAndExpiresAtAfter(Instant revokedSince, Instant expiresAfter);
 }
\ No newline at end of file
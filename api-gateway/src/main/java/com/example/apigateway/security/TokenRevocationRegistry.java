@@ -0,0 +1,104 @@
+package com.example.apigateway.security;
+
+import com.example.apigateway.model.Token;
+import com.example.apigateway.repository.TokenRepository;
+import com.example.shared.security.TokenCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked token ids (the JWT jti, which is also the user_tokens _id), fed by polling
+ * user_tokens on a revokedAt watermark. In REVOCATION mode this is the only check after the signature, so
+ * authenticated requests need no Mongo round trip. In ALLOWLIST mode it carries logouts on other instances
+ * to the {@link TokenCache}, whose entries would otherwise be served for up to its max-ttl: tokens seen
+ * revoked here are refused and evicted from the cache. Either way a logout takes effect everywhere within
+ * one poll interval.
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    public enum Mode {
+        ALLOWLIST,
+        REVOCATION
+    }
+
+    private final TokenRepository tokenRepository;
+    private final TokenCache<UserPrincipal> tokenCache;
+    private final Mode mode;
+    private final Duration pollOverlap;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile Instant watermark = Instant.EPOCH;
+
+    public TokenRevocationRegistry(TokenRepository tokenRepository,
+                                   TokenCache<UserPrincipal> tokenCache,
+                                   @Value("${jwt.validation-mode:ALLOWLIST}") Mode mode,
+                                   @Value("${jwt.revocation.poll-overlap-ms:5000}") long pollOverlapMs) {
+        this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.mode = mode;
+        this.pollOverlap = Duration.ofMillis(pollOverlapMs);
+    }
+
+    public boolean isRevocationMode() {
+        return mode == Mode.REVOCATION;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        Instant expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    /**
+     * Returns whether the token id was not already known to be revoked.
+     */
+    public boolean revoke(String tokenId, Instant expiresAt) {
+        return tokenId != null && revoked.put(tokenId, expiresAt) == null;
+    }
+
+    @PostConstruct
+    public void load() {
+        poll();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval-ms:1000}")
+    public void poll() {
+        Instant now = Instant.now();
+        Instant since = watermark.equals(Instant.EPOCH) ? Instant.EPOCH : watermark.minus(pollOverlap);
+
+        try {
+            List<Token> tokens = tokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(since, now);
+            Instant latest = watermark;
+            Set<String> newlyRevoked = new HashSet<>();
+            for (Token token : tokens) {
+                if (revoke(token.getId(), token.getExpiresAt())) {
+                    newlyRevoked.add(token.getId());
+                }
+                if (token.getRevokedAt().isAfter(latest)) {
+                    latest = token.getRevokedAt();
+                }
+            }
+            tokenCache.invalidateTokenIds(newlyRevoked);
+            watermark = latest;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to poll revoked tokens since {}", since, ex);
+        }
+
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    }
+}
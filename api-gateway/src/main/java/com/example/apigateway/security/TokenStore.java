@@ -0,0 +1,337 @@
+package com.example.apigateway.security;
+
+import com.example.apigateway.model.Token;
+import com.example.apigateway.repository.TokenRepository;
+import com.example.shared.security.TokenCache;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists issued tokens to user_tokens and makes them visible to the local {@link TokenCache} immediately.
+ * In WRITE_BEHIND mode inserts are queued and flushed as unordered bulk writes once a batch fills up
+ * or the flush interval elapses; a full queue falls back to a synchronous save. A batch whose bulk insert
+ * fails is upserted again by id, which is idempotent for the tokens that did get in and keeps a revokedAt
+ * written meanwhile, with a doubling backoff for up to {@code retry-attempts} tries. Tokens stay pending, see
+ * {@link #isPending}, until they are in user_tokens or given up on.
+ */
+@Slf4j
+@Component
+public class TokenStore {
+
+    public enum Mode {
+        SYNC,
+        WRITE_BEHIND
+    }
+
+    private final TokenRepository tokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TokenCache<UserPrincipal> tokenCache;
+    private final Mode mode;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int retryAttempts;
+    private final Duration maxVisibilityLag;
+
+    private final BlockingQueue<Token> queue;
+    private final Map<String, Token> pending = new ConcurrentHashMap<>();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final Counter flushedTokens;
+    private final Counter bulkWrites;
+    private final Counter failedTokens;
+    private final Counter overflowSaves;
+    private final Counter retriedTokens;
+    private final Timer flushLag;
+
+    public TokenStore(TokenRepository tokenRepository,
+                      MongoTemplate mongoTemplate,
+                      TokenCache<UserPrincipal> tokenCache,
+                      MeterRegistry meterRegistry,
+                      @Value("${jwt.token-persistence:SYNC}") Mode mode,
+                      @Value("${jwt.token-write-behind.batch-size:500}") int batchSize,
+                      @Value("${jwt.token-write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                      @Value("${jwt.token-write-behind.queue-capacity:20000}") int queueCapacity,
+                      @Value("${jwt.token-write-behind.retry-attempts:5}") int retryAttempts,
+                      @Value("${jwt.token-write-behind.max-visibility-lag-ms:30000}") long maxVisibilityLagMs) {
+        this.tokenRepository = tokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.tokenCache = tokenCache;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.retryAttempts = retryAttempts;
+        this.maxVisibilityLag = Duration.ofMillis(maxVisibilityLagMs);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.flushedTokens = meterRegistry.counter("jwt.token.write-behind.flushed");
+        this.bulkWrites = meterRegistry.counter("jwt.token.write-behind.bulk-writes");
+        this.failedTokens = meterRegistry.counter("jwt.token.write-behind.failed");
+        this.overflowSaves = meterRegistry.counter("jwt.token.write-behind.overflow");
+        this.retriedTokens = meterRegistry.counter("jwt.token.write-behind.retried");
+        this.flushLag = meterRegistry.timer("jwt.token.write-behind.lag");
+        meterRegistry.gauge("jwt.token.write-behind.pending", queue, BlockingQueue::size);
+
+        if (mode == Mode.WRITE_BEHIND) {
+            this.flusher = new Thread(this::run, "token-write-behind");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    public void save(Token token, UserPrincipal principal) {
+        tokenCache.putVerified(token.getToken(), token.getId(), principal, token.getExpiresAt());
+
+        if (mode == Mode.SYNC) {
+            tokenRepository.save(token);
+            return;
+        }
+
+        pending.put(token.getToken(), token);
+        if (!running || !queue.offer(token)) {
+            overflowSaves.increment();
+            try {
+                tokenRepository.save(token);
+            } finally {
+                pending.remove(token.getToken());
+            }
+        }
+    }
+
+    /**
+     * Marks the token revoked in user_tokens and returns whether it was not revoked already. A token still
+     * queued here is revoked in the queue and flushed that way. Any other token is upserted by its id with
+     * the earliest revokedAt, so a token another instance has yet to flush is stored revoked either way.
+     */
+    public boolean revoke(Token token) {
+        Instant now = Instant.now();
+        Token queued = pending.get(token.getToken());
+        if (queued != null) {
+            synchronized (queued) {
+                if (pending.get(token.getToken()) == queued) {
+                    boolean revoked = queued.getRevokedAt() == null;
+                    if (revoked) {
+                        queued.setRevokedAt(now);
+                    }
+                    return revoked;
+                }
+            }
+        }
+
+        Update update = insertOnly(token).min("revokedAt", now);
+        UpdateResult result = mongoTemplate.upsert(byId(token), update, Token.class);
+        return result.getModifiedCount() > 0 || result.getUpsertedId() != null;
+    }
+
+    /**
+     * Whether the token was issued here and is still waiting to be written to user_tokens.
+     */
+    public boolean isPending(String token) {
+        return pending.containsKey(token);
+    }
+
+    /**
+     * How long a token another instance issued may be missing from user_tokens: the configured bound on
+     * queueing, flushing and retrying, plus a second for the whole-second iat it is measured from. Zero
+     * unless writes are deferred. Flushes that take longer are logged.
+     */
+    public Duration visibilityLag() {
+        return mode == Mode.WRITE_BEHIND ? maxVisibilityLag.plusSeconds(1) : Duration.ZERO;
+    }
+
+    private void run() {
+        List<Token> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Token first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Token next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+                Thread.currentThread().interrupt();
+            }
+
+            flush(batch);
+            batch.clear();
+
+            if (Thread.currentThread().isInterrupted()) {
+                running = false;
+            }
+        }
+    }
+
+    private void flush(List<Token> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        boolean written = false;
+        try {
+            written = write(batch);
+            if (!written) {
+                failedTokens.increment(batch.size());
+                log.error("Gave up writing {} tokens to user_tokens after {} retries; they are only valid on "
+                        + "this instance until they expire", batch.size(), retryAttempts);
+                return;
+            }
+            flushedTokens.increment(batch.size());
+            Instant now = Instant.now();
+            Duration oldest = Duration.ZERO;
+            for (Token token : batch) {
+                Duration lag = Duration.between(token.getCreatedAt(), now);
+                flushLag.record(lag);
+                oldest = lag.compareTo(oldest) > 0 ? lag : oldest;
+            }
+            if (oldest.compareTo(maxVisibilityLag) > 0) {
+                log.warn("Tokens reached user_tokens {} ms after they were issued, over the {} ms other "
+                        + "instances wait for them", oldest.toMillis(), maxVisibilityLag.toMillis());
+            }
+        } finally {
+            settle(batch, written);
+        }
+    }
+
+    /**
+     * Ends the tokens' pending state. A token revoked while it was being written may have gone out without its
+     * revokedAt, so those are revoked again now that they are in user_tokens.
+     */
+    private void settle(List<Token> tokens, boolean written) {
+        List<Pair<Query, UpdateDefinition>> revoked = new ArrayList<>();
+        for (Token token : tokens) {
+            synchronized (token) {
+                pending.remove(token.getToken(), token);
+                if (written && token.getRevokedAt() != null) {
+                    revoked.add(Pair.of(byId(token), new Update().min("revokedAt", token.getRevokedAt())));
+                }
+            }
+        }
+        if (revoked.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Token.class)
+                    .updateOne(revoked)
+                    .execute();
+        } catch (RuntimeException ex) {
+            log.error("Failed to store the revocation of {} tokens logged out while they were being written",
+                    revoked.size(), ex);
+        }
+    }
+
+    /**
+     * One bulk insert, then upserts by id until one succeeds or the retries run out.
+     */
+    private boolean write(List<Token> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Token.class)
+                    .insert(batch)
+                    .execute();
+            bulkWrites.increment();
+            return true;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush {} tokens to user_tokens, retrying", batch.size(), ex);
+        }
+
+        long backoffNanos = flushIntervalNanos;
+        for (int attempt = 1; attempt <= retryAttempts && pause(backoffNanos); attempt++) {
+            retriedTokens.increment(batch.size());
+            try {
+                List<Pair<Query, Update>> upserts = new ArrayList<>(batch.size());
+                for (Token token : batch) {
+                    Update update = insertOnly(token);
+                    if (token.getRevokedAt() != null) {
+                        update.min("revokedAt", token.getRevokedAt());
+                    }
+                    upserts.add(Pair.of(byId(token), update));
+                }
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Token.class)
+                        .upsert(upserts)
+                        .execute();
+                return true;
+            } catch (RuntimeException ex) {
+                log.warn("Retry {} of {} for {} tokens failed", attempt, retryAttempts, batch.size(), ex);
+            }
+            backoffNanos *= 2;
+        }
+        return false;
+    }
+
+    private static Query byId(Token token) {
+        return token.getId() != null
+                ? Query.query(Criteria.where("_id").is(token.getId()))
+                : Query.query(Criteria.where("token").is(token.getToken()));
+    }
+
+    /**
+     * Writes the token's fields only when the upsert creates it, leaving a stored revokedAt alone.
+     */
+    private static Update insertOnly(Token token) {
+        return new Update()
+                .setOnInsert("token", token.getToken())
+                .setOnInsert("memberId", token.getMemberId())
+                .setOnInsert("createdAt", token.getCreatedAt())
+                .setOnInsert("expiresAt", token.getExpiresAt());
+    }
+
+    private static boolean pause(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 5000);
+        }
+        List<Token> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        flush(remaining);
+    }
+}
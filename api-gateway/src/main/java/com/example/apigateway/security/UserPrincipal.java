@@ -1,21 +1,39 @@
 package com.example.apigateway.security;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 public class UserPrincipal implements UserDetails {
   private final String userId;
+  private final String email;
+  private final String role;
 
   public UserPrincipal(String userId) {
+    this(userId, null, null);
+  }
+
+  public UserPrincipal(String userId, String email, String role) {
     this.userId = userId;
+    this.email = email;
+    this.role = role;
   }
 
   public String getUserId() {
     return userId;
   }
 
+  public String getEmail() {
+    return email;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
   @Override
   public String getUsername() {
     return userId;
@@ -23,7 +41,10 @@ public class UserPrincipal implements UserDetails {
 
   @Override
   public Collection<? extends GrantedAuthority> getAuthorities() {
-    return Collections.emptyList();
+    if (role == null) {
+      return Collections.emptyList();
+    }
+    return List.of(new SimpleGrantedAuthority("ROLE_" + role));
   }
 
   @Override
@@ -50,4 +71,4 @@ public class UserPrincipal implements UserDetails {
   public boolean isEnabled() {
     return true;
   }
-}
\ No newline at end of file
+}
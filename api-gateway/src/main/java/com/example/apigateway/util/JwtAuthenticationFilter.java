@@ -1,11 +1,18 @@
 package com.example.apigateway.util;
 
+import com.example.apigateway.model.Token;
 import com.example.apigateway.repository.TokenRepository;
+import com.example.apigateway.security.TokenRevocationRegistry;
+import com.example.apigateway.security.TokenStore;
 import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.proxy.GatewayRoutes;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -14,16 +21,35 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final JwtUtil<UserPrincipal> jwtUtil;
     private final TokenRepository tokenRepository;
-
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenRepository tokenRepository) {
+    private final TokenCache<UserPrincipal> tokenCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final TokenStore tokenStore;
+    private final GatewayRoutes gatewayRoutes;
+    private final Duration revokedTtl;
+
+    public JwtAuthenticationFilter(JwtUtil<UserPrincipal> jwtUtil,
+                                   TokenRepository tokenRepository,
+                                   TokenCache<UserPrincipal> tokenCache,
+                                   TokenRevocationRegistry revocationRegistry,
+                                   TokenStore tokenStore,
+                                   GatewayRoutes gatewayRoutes,
+                                   @Value("${jwt.token-cache.revoked-ttl-ms:60000}") long revokedTtlMs) {
         this.jwtUtil = jwtUtil;
         this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.revocationRegistry = revocationRegistry;
+        this.tokenStore = tokenStore;
+        this.gatewayRoutes = gatewayRoutes;
+        this.revokedTtl = Duration.ofMillis(revokedTtlMs);
     }
 
     @Override
@@ -32,7 +58,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         return path.startsWith("/auth/")
                 || path.startsWith("/api/auth")
-                || path.startsWith("/product/")
+                || gatewayRoutes.isPublic(request.getMethod(), path)
                 || path.startsWith("/swagger-ui")
                 || path.startsWith("/v3/api-docs")
                 || path.equals("/swagger-ui.html");
@@ -53,19 +79,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
-        if (!jwtUtil.validate(token)) {
-            response.setStatus(HttpStatus.UNAUTHORIZED.value());
-            return;
+        TokenCache.Entry<UserPrincipal> entry = tokenCache.get(token);
+
+        if (entry == null) {
+            Optional<JwtUtil.VerifiedToken<UserPrincipal>> verified = jwtUtil.verify(token);
+            if (verified.isEmpty()) {
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                return;
+            }
+            entry = resolve(token, verified.get());
         }
 
-        if (tokenRepository.findByToken(token).isEmpty()) {
+        if (entry.revoked() || revocationRegistry.isRevoked(entry.tokenId())) {
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token revoked or expired");
             return;
         }
 
-        String userId = jwtUtil.extractUserId(token);
-
-        UserPrincipal principal = new UserPrincipal(userId);
+        UserPrincipal principal = entry.principal();
 
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                 principal,
@@ -76,4 +106,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private TokenCache.Entry<UserPrincipal> resolve(String token, JwtUtil.VerifiedToken<UserPrincipal> verified) {
+        String tokenId = verified.tokenId();
+
+        if (revocationRegistry.isRevocationMode() && tokenId != null) {
+            return tokenCache.putVerified(token, tokenId, verified.principal(), verified.expiresAt());
+        }
+
+        if (tokenStore.isPending(token)) {
+            return tokenCache.putVerified(token, tokenId, verified.principal(), verified.expiresAt());
+        }
+
+        Optional<Token> stored = tokenRepository.findByToken(token);
+
+        // another instance may not have written it yet: refuse it for now, but without caching the refusal
+        if (stored.isEmpty() && verified.issuedAt().isAfter(Instant.now().minus(tokenStore.visibilityLag()))) {
+            return new TokenCache.Entry<>(tokenId, null, true, verified.expiresAt());
+        }
+
+        if (stored.isEmpty()
+                || stored.get().getRevokedAt() != null
+                || !stored.get().getExpiresAt().isAfter(Instant.now())) {
+            Instant revokedUntil = Instant.now().plus(revokedTtl);
+            return tokenCache.putRevoked(token, tokenId, min(revokedUntil, verified.expiresAt()));
+        }
+
+        Instant expiresAt = min(stored.get().getExpiresAt(), verified.expiresAt());
+        return tokenCache.putVerified(token, tokenId, verified.principal(), expiresAt);
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
 }
@@ -0,0 +1,157 @@
+package com.example.apigateway.webclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Collapses identical in-flight GETs into one downstream call. The first caller for a key executes the
+ * request and buffers the response; callers arriving before it completes wait and each get their own
+ * view of the same bytes, or the same failure. Only bodiless GETs whose path matches one of the
+ * configured patterns are coalesced; the key is method, URI and the configured header values.
+ */
+public class SingleFlightInterceptor implements ClientHttpRequestInterceptor {
+
+    private final List<PathPattern> patterns;
+    private final List<String> keyHeaders;
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter coalesced;
+
+    public SingleFlightInterceptor(List<String> pathPatterns, List<String> keyHeaders, MeterRegistry meterRegistry) {
+        this.patterns = pathPatterns.stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList();
+        this.keyHeaders = List.copyOf(keyHeaders);
+        this.leaders = meterRegistry.counter("http.client.single-flight", "result", "leader");
+        this.coalesced = meterRegistry.counter("http.client.single-flight", "result", "coalesced");
+        meterRegistry.gauge("http.client.single-flight.in-flight", inFlight, ConcurrentHashMap::size);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request,
+                                        byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+
+        if (request.getMethod() != HttpMethod.GET || body.length > 0 || !matches(request)) {
+            return execution.execute(request, body);
+        }
+
+        String key = key(request);
+        CompletableFuture<BufferedResponse> call = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> existing = inFlight.putIfAbsent(key, call);
+
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        leaders.increment();
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            BufferedResponse buffered = BufferedResponse.of(response);
+            call.complete(buffered);
+            return buffered;
+        } catch (IOException | RuntimeException ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private boolean matches(HttpRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getURI().getRawPath());
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String key(HttpRequest request) {
+        StringBuilder key = new StringBuilder("GET ").append(request.getURI());
+        HttpHeaders headers = request.getHeaders();
+        for (String name : keyHeaders) {
+            key.append('\n').append(name).append(':').append(headers.getOrEmpty(name));
+        }
+        return key.toString();
+    }
+
+    private static ClientHttpResponse await(CompletableFuture<BufferedResponse> call) throws IOException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a coalesced request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private record BufferedResponse(HttpStatusCode statusCode,
+                                    String statusText,
+                                    HttpHeaders headers,
+                                    byte[] body) implements ClientHttpResponse {
+
+        static BufferedResponse of(ClientHttpResponse response) throws IOException {
+            return new BufferedResponse(
+                    response.getStatusCode(),
+                    response.getStatusText(),
+                    HttpHeaders.readOnlyHttpHeaders(response.getHeaders()),
+                    StreamUtils.copyToByteArray(response.getBody())
+            );
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getStatusText() {
+            return statusText;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
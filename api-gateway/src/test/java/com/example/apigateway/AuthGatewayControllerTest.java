@@ -0,0 +1,122 @@
+package com.example.apigateway;
+
+import com.example.apigateway.controller.AuthGatewayController;
+import com.example.apigateway.dto.LoginRequest;
+import com.example.apigateway.model.Token;
+import com.example.apigateway.repository.TokenRepository;
+import com.example.apigateway.security.TokenRevocationRegistry;
+import com.example.apigateway.security.TokenStore;
+import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.common.ApiResponse;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Logs in and out against a write-behind token store whose flush is held back.
+ */
+class AuthGatewayControllerTest {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private TokenStore tokenStore;
+    private TokenCache<UserPrincipal> tokenCache;
+    private AuthGatewayController controller;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Token.class)))
+                .thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.updateOne(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        when(restTemplate.postForEntity(any(String.class), any(), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("id", "member-1", "email", "a@b.c", "role", "USER")));
+
+        tokenCache = new TokenCache<>(1000, 300_000, meterRegistry);
+        tokenStore = new TokenStore(tokenRepository, mongoTemplate, tokenCache, meterRegistry,
+                TokenStore.Mode.WRITE_BEHIND, 100, 10, 1000, 3, 30_000);
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(tokenRepository, tokenCache,
+                TokenRevocationRegistry.Mode.ALLOWLIST, 5000);
+        controller = new AuthGatewayController(restTemplate, "http://member",
+                new JwtUtil<>("0123456789abcdef0123456789abcdef", 3_600_000, UserPrincipal::new), tokenCache,
+                registry, tokenStore, 300_000);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        tokenStore.shutdown();
+    }
+
+    private String login() {
+        ApiResponse<?> response = controller.login(new LoginRequest("a@b.c", "password1")).getBody();
+        return (String) ((Map<?, ?>) response.getData()).get("token");
+    }
+
+    private static Object revoked(ResponseEntity<ApiResponse<?>> response) {
+        return ((Map<?, ?>) response.getBody().getData()).get("revoked");
+    }
+
+    @Test
+    void testLogoutWhileTheTokenIsQueuedFlushesItRevoked() throws InterruptedException {
+        String token = login();
+        assertTrue(tokenStore.isPending(token));
+
+        assertEquals(true, revoked(controller.logout("Bearer " + token)));
+        assertEquals(false, revoked(controller.logout("Bearer " + token)));
+        assertNull(tokenCache.get(token));
+
+        release.countDown();
+        for (int wait = 0; wait < 200 && tokenStore.isPending(token); wait++) {
+            Thread.sleep(10);
+        }
+
+        ArgumentCaptor<List<Token>> inserted = ArgumentCaptor.captor();
+        verify(bulkOperations).insert(inserted.capture());
+        assertEquals(token, inserted.getValue().get(0).getToken());
+        assertNotNull(inserted.getValue().get(0).getRevokedAt());
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(Token.class));
+        verify(tokenRepository, never()).findByToken(any());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.apigateway;
+
+import com.example.apigateway.model.Token;
+import com.example.apigateway.repository.TokenRepository;
+import com.example.apigateway.security.TokenRevocationRegistry;
+import com.example.apigateway.security.TokenStore;
+import com.example.apigateway.security.UserPrincipal;
+import com.example.apigateway.util.JwtAuthenticationFilter;
+import com.example.shared.proxy.GatewayRoutes;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    @Mock
+    private TokenRevocationRegistry revocationRegistry;
+
+    @Mock
+    private TokenStore tokenStore;
+
+    @Mock
+    private GatewayRoutes gatewayRoutes;
+
+    private final JwtUtil<UserPrincipal> jwtUtil =
+            new JwtUtil<>("0123456789abcdef0123456789abcdef", 3_600_000, UserPrincipal::new);
+    private TokenCache<UserPrincipal> tokenCache;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        tokenCache = new TokenCache<>(1000, 300_000, new SimpleMeterRegistry());
+        when(tokenStore.visibilityLag()).thenReturn(Duration.ofSeconds(31));
+        filter = new JwtAuthenticationFilter(jwtUtil, tokenRepository, tokenCache, revocationRegistry, tokenStore,
+                gatewayRoutes, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String issue(String tokenId, Instant issuedAt) {
+        return jwtUtil.generateToken(tokenId, "member-1", Map.of("claims",
+                        Map.of("id", "member-1", "email", "a@b.c", "role", "USER")),
+                issuedAt, issuedAt.plus(Duration.ofHours(1)));
+    }
+
+    private int call(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cart/list");
+        request.setServletPath("/cart/list");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    @Test
+    void testTokenStillQueuedHereIsAccepted() throws Exception {
+        String token = issue("t1", Instant.now());
+        when(tokenStore.isPending(token)).thenReturn(true);
+
+        assertEquals(200, call(token));
+        verify(tokenRepository, never()).findByToken(token);
+    }
+
+    @Test
+    void testYoungTokenMissingFromStoreIsRefusedWithoutCachingTheRefusal() throws Exception {
+        String token = issue("t1", Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        when(tokenRepository.findByToken(token)).thenReturn(Optional.empty());
+
+        assertEquals(401, call(token));
+        assertNull(tokenCache.get(token));
+
+        // the issuing instance has flushed it since
+        Token stored = Token.builder().id("t1").token(token).expiresAt(Instant.now().plus(Duration.ofHours(1)))
+                .build();
+        when(tokenRepository.findByToken(token)).thenReturn(Optional.of(stored));
+        assertEquals(200, call(token));
+    }
+
+    @Test
+    void testOldTokenMissingFromStoreIsCachedAsRevoked() throws Exception {
+        String token = issue("t1", Instant.now().minus(Duration.ofMinutes(5)));
+        when(tokenRepository.findByToken(token)).thenReturn(Optional.empty());
+
+        assertEquals(401, call(token));
+        assertTrue(tokenCache.get(token).revoked());
+    }
+}
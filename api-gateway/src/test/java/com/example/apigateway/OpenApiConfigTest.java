@@ -0,0 +1,63 @@
+package com.example.apigateway;
+
+import com.example.apigateway.config.OpenApiConfig;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenApiConfigTest {
+
+    private static GatewayRouteProperties.Route route(String id, HttpMethod method, String path, boolean auth) {
+        GatewayRouteProperties.Route route = new GatewayRouteProperties.Route();
+        route.setId(id);
+        route.setMethod(method);
+        route.setPath(path);
+        route.setAuth(auth);
+        return route;
+    }
+
+    @Test
+    void testEveryRouteIsDocumentedFromItsProperties() {
+        GatewayRouteProperties.Route lists = route("product-lists", HttpMethod.GET, "/product/lists", false);
+        lists.setSummary("Get all products");
+        lists.getQueryParams().put("page", "0");
+        GatewayRouteProperties.Route delete = route("cart-delete", HttpMethod.DELETE, "/cart/deleteFromCart/{id}",
+                true);
+        GatewayRouteProperties.Route add = route("cart-add", HttpMethod.POST, "/cart/addToCart", true);
+        add.setTag("Basket");
+        GatewayRouteProperties properties = new GatewayRouteProperties();
+        properties.setRoutes(List.of(lists, delete, add));
+
+        OpenAPI openApi = new OpenApiConfig().customOpenAPI();
+        new OpenApiConfig().gatewayRoutesOpenApiCustomizer(new GatewayRoutes(properties)).customise(openApi);
+
+        Operation listsOperation = openApi.getPaths().get("/product/lists").getGet();
+        assertEquals("Get all products", listsOperation.getSummary());
+        assertEquals(List.of("Product"), listsOperation.getTags());
+        Parameter page = listsOperation.getParameters().get(0);
+        assertEquals("query", page.getIn());
+        assertEquals("0", page.getSchema().getDefault());
+        assertNull(listsOperation.getSecurity());
+        assertNull(listsOperation.getRequestBody());
+
+        Operation deleteOperation = openApi.getPaths().get("/cart/deleteFromCart/{id}").getDelete();
+        assertEquals("cart-delete", deleteOperation.getSummary());
+        assertEquals("id", deleteOperation.getParameters().get(0).getName());
+        assertTrue(deleteOperation.getParameters().get(0).getRequired());
+        assertEquals(List.of("Bearer Authentication"),
+                List.copyOf(deleteOperation.getSecurity().get(0).keySet()));
+        assertNotNull(deleteOperation.getResponses().get("401"));
+
+        Operation addOperation = openApi.getPaths().get("/cart/addToCart").getPost();
+        assertEquals(List.of("Basket"), addOperation.getTags());
+        assertNotNull(addOperation.getRequestBody().getContent().get("application/json"));
+    }
+}
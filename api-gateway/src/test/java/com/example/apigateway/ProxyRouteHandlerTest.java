@@ -0,0 +1,220 @@
+package com.example.apigateway;
+
+import com.example.apigateway.config.RestClientConfig;
+import com.example.apigateway.proxy.EnvelopeWriter;
+import com.example.apigateway.proxy.ProxyRouteHandler;
+import com.example.apigateway.proxy.ResponseCache;
+import com.example.apigateway.webclient.SingleFlightInterceptor;
+import com.example.apigateway.webclient.UserIdForwardingInterceptor;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Drives a cached GET route through the gateway's own RestTemplate set-up against a mocked downstream.
+ */
+class ProxyRouteHandlerTest {
+
+    private static final String DOWNSTREAM = "http://product/api/product/lists?page=0";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EnvelopeWriter envelopeWriter = new EnvelopeWriter(new ObjectMapper());
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer downstream;
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setup() {
+        restTemplate = new RestClientConfig().restTemplate(new UserIdForwardingInterceptor(),
+                new SingleFlightInterceptor(List.of(), List.of(), meterRegistry), HttpClients.createDefault());
+        downstream = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (responseCache != null) {
+            responseCache.shutdown();
+        }
+    }
+
+    private ProxyRouteHandler handler(Duration cacheTtl, long staleWhileRevalidateMs, long staleIfErrorMs) {
+        responseCache = new ResponseCache(meterRegistry, 1024 * 1024, staleWhileRevalidateMs, staleIfErrorMs, 1);
+        GatewayRouteProperties.Route route = new GatewayRouteProperties.Route();
+        route.setId("product-lists");
+        route.setMethod(HttpMethod.GET);
+        route.setPath("/product/lists");
+        route.setDownstream("http://product");
+        route.setDownstreamPath("/api/product/lists");
+        route.setAuth(false);
+        route.setEnvelope(GatewayRouteProperties.Envelope.BODY);
+        route.setCacheTtl(cacheTtl);
+        return new ProxyRouteHandler(route, restTemplate, envelopeWriter, responseCache);
+    }
+
+    private static MockHttpServletResponse call(ProxyRouteHandler handler, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/product/lists");
+        request.setQueryString("page=0");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handle(request, response);
+        return response;
+    }
+
+    private static String envelope(String data) {
+        return "{\"code\":200,\"status\":\"OK\",\"data\":" + data + ",\"errors\":null}";
+    }
+
+    private double requests(ResponseCache.Result result) {
+        return meterRegistry.counter("gateway.response-cache.requests", "route", "product-lists",
+                "result", result.name().toLowerCase()).count();
+    }
+
+    @Test
+    void testMatchingIfNoneMatchIsAnsweredWithNotModified() throws Exception {
+        ProxyRouteHandler handler = handler(Duration.ofMinutes(1), 30_000, 300_000);
+        downstream.expect(ExpectedCount.once(), requestTo(DOWNSTREAM))
+                .andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON));
+
+        MockHttpServletResponse miss = call(handler, null);
+        String etag = miss.getHeader(HttpHeaders.ETAG);
+        MockHttpServletResponse notModified = call(handler, "W/\"other\", " + etag);
+        MockHttpServletResponse otherTag = call(handler, "\"other\"");
+
+        assertEquals(200, miss.getStatus());
+        assertEquals(envelope("[1]"), miss.getContentAsString());
+        assertNotNull(etag);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentLength());
+        assertEquals(etag, notModified.getHeader(HttpHeaders.ETAG));
+        assertEquals(200, otherTag.getStatus());
+        assertEquals(envelope("[1]"), otherTag.getContentAsString());
+        assertEquals(1, requests(ResponseCache.Result.NOT_MODIFIED));
+        downstream.verify();
+    }
+
+    @Test
+    void testStaleEntryIsServedWhileOneRefreshIsInFlight() throws Exception {
+        ProxyRouteHandler handler = handler(Duration.ofMillis(50), 60_000, 300_000);
+        CountDownLatch refreshing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        downstream.expect(ExpectedCount.once(), requestTo(DOWNSTREAM))
+                .andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON));
+        downstream.expect(ExpectedCount.once(), requestTo(DOWNSTREAM))
+                .andRespond(request -> {
+                    refreshing.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return withSuccess("[2]", MediaType.APPLICATION_JSON).createResponse(request);
+                });
+
+        call(handler, null);
+        Thread.sleep(60);
+
+        MockHttpServletResponse stale = call(handler, null);
+        assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+        MockHttpServletResponse staleAgain = call(handler, null);
+
+        assertEquals(envelope("[1]"), stale.getContentAsString());
+        assertEquals(envelope("[1]"), staleAgain.getContentAsString());
+        assertNotNull(stale.getHeader(HttpHeaders.AGE));
+        assertEquals(2, requests(ResponseCache.Result.STALE));
+
+        release.countDown();
+        String refreshed = null;
+        for (int wait = 0; wait < 100 && !envelope("[2]").equals(refreshed); wait++) {
+            Thread.sleep(20);
+            refreshed = call(handler, null).getContentAsString();
+        }
+        assertEquals(envelope("[2]"), refreshed);
+        downstream.verify();
+    }
+
+    @Test
+    void testStaleEntryIsServedWhenDownstreamFailsWith5xx() throws Exception {
+        ProxyRouteHandler handler = handler(Duration.ofMillis(50), 0, 300_000);
+        downstream.expect(ExpectedCount.once(), requestTo(DOWNSTREAM))
+                .andRespond(withSuccess("[1]", MediaType.APPLICATION_JSON));
+        downstream.expect(ExpectedCount.once(), requestTo(DOWNSTREAM))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        downstream.expect(ExpectedCount.once(), requestTo(DOWNSTREAM))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        call(handler, null);
+        Thread.sleep(60);
+        MockHttpServletResponse staleIfError = call(handler, null);
+
+        assertEquals(200, staleIfError.getStatus());
+        assertEquals(envelope("[1]"), staleIfError.getContentAsString());
+        // a 4xx is the downstream's answer, not a failure to mask
+        HttpClientErrorException notFound = assertThrows(HttpClientErrorException.class, () -> call(handler, null));
+        assertEquals(HttpStatus.NOT_FOUND, notFound.getStatusCode());
+        downstream.verify();
+    }
+
+    @Test
+    void testCacheIsBoundedByBytes() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(meterRegistry, 16 * 1024, 0, 0, 1);
+        try {
+            byte[] body = new byte[1024];
+            for (int i = 0; i < 100; i++) {
+                cache.put(ResponseCache.key("product-lists", "/product/lists", "page=" + i),
+                        MediaType.APPLICATION_JSON_VALUE, body, Duration.ofMinutes(1));
+            }
+
+            long held = 0;
+            for (int wait = 0; wait < 50; wait++) {
+                held = 0;
+                for (int i = 0; i < 100; i++) {
+                    ResponseCache.Entry entry = cache.get(ResponseCache.key("product-lists", "/product/lists",
+                            "page=" + i));
+                    held += entry != null ? entry.body().length : 0;
+                }
+                if (held <= 16 * 1024) {
+                    break;
+                }
+                Thread.sleep(100);
+            }
+            assertTrue(held > 0);
+            assertTrue(held <= 16 * 1024, "held " + held + " bytes");
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void testKeyIgnoresQueryParameterOrder() {
+        assertEquals(ResponseCache.key("r", "/p", "size=2&page=0"), ResponseCache.key("r", "/p", "page=0&size=2"));
+        assertNotEquals(ResponseCache.key("r", "/p", "tag=a&tag=b"), ResponseCache.key("r", "/p", "tag=b&tag=a"));
+        assertEquals("r /p", ResponseCache.key("r", "/p", null));
+    }
+}
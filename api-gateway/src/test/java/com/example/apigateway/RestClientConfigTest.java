@@ -0,0 +1,37 @@
+package com.example.apigateway;
+
+import com.example.apigateway.config.RestClientConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.routing.DefaultRoutePlanner;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestClientConfigTest {
+
+    /** the route the client's planner picks for a request to the URL */
+    private static HttpRoute planned(String url) throws Exception {
+        return new DefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE)
+                .determineRoute(HttpHost.create(url), HttpClientContext.create());
+    }
+
+    @Test
+    void testPerRouteLimitsApplyToUrlsWithoutAPort() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (PoolingHttpClientConnectionManager connectionManager = new RestClientConfig().connectionManager(
+                meterRegistry, "http://member", "https://product", "http://cart:8083",
+                200, 50, 100, 60, 1000, 5000, 2000, 300000)) {
+
+            assertEquals(50, connectionManager.getMaxPerRoute(planned("http://member")));
+            assertEquals(100, connectionManager.getMaxPerRoute(planned("https://product")));
+            assertEquals(60, connectionManager.getMaxPerRoute(planned("http://cart:8083")));
+            assertEquals(0, meterRegistry.get("http.client.pool.saturation").tag("downstream", "member")
+                    .gauge().value());
+        }
+    }
+}
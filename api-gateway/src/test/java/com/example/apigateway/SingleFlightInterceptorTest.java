@@ -0,0 +1,182 @@
+package com.example.apigateway;
+
+import com.example.apigateway.webclient.SingleFlightInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightInterceptorTest {
+
+    private static final byte[] NO_BODY = new byte[0];
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private SingleFlightInterceptor interceptor;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setup() {
+        interceptor = new SingleFlightInterceptor(List.of("/api/product/{id}"), List.of("X-User-Id"), meterRegistry);
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    private static MockClientHttpRequest get(String path, String userId) {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("http://product" + path));
+        request.getHeaders().add("X-User-Id", userId);
+        return request;
+    }
+
+    /** answers with the body once released */
+    private ClientHttpRequestExecution respond(String body) {
+        return (request, ignored) -> {
+            calls.incrementAndGet();
+            await(release);
+            return new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+        };
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String body(ClientHttpResponse response) throws IOException {
+        return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private double coalesced() {
+        return meterRegistry.counter("http.client.single-flight", "result", "coalesced").count();
+    }
+
+    private void awaitWaiters(int waiters) throws InterruptedException {
+        for (int wait = 0; wait < 500 && coalesced() < waiters; wait++) {
+            Thread.sleep(10);
+        }
+        assertEquals(waiters, coalesced());
+    }
+
+    @Test
+    void testLeaderResponseIsBufferedAndReturned() throws IOException {
+        release.countDown();
+
+        ClientHttpResponse response = interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, respond("{}"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{}", body(response));
+        // each caller reads its own stream over the same bytes
+        assertEquals("{}", body(response));
+        assertEquals(1, meterRegistry.counter("http.client.single-flight", "result", "leader").count());
+        assertEquals(0, meterRegistry.get("http.client.single-flight.in-flight").gauge().value());
+    }
+
+    @Test
+    void testWaitersShareTheLeadersResponse() throws Exception {
+        ClientHttpRequestExecution execution = respond("{\"id\":\"1\"}");
+        Future<ClientHttpResponse> leader = pool.submit(
+                () -> interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, execution));
+        while (calls.get() == 0) {
+            Thread.sleep(1);
+        }
+        Future<ClientHttpResponse> waiter1 = pool.submit(
+                () -> interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, execution));
+        Future<ClientHttpResponse> waiter2 = pool.submit(
+                () -> interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, execution));
+        awaitWaiters(2);
+
+        release.countDown();
+
+        assertEquals("{\"id\":\"1\"}", body(leader.get()));
+        assertEquals("{\"id\":\"1\"}", body(waiter1.get()));
+        assertEquals("{\"id\":\"1\"}", body(waiter2.get()));
+        assertEquals(1, calls.get());
+
+        // a call after the leader finished goes downstream again
+        interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, execution);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testWaitersGetTheLeadersFailure() throws Exception {
+        IOException failure = new IOException("connection reset");
+        ClientHttpRequestExecution execution = (request, ignored) -> {
+            calls.incrementAndGet();
+            await(release);
+            throw failure;
+        };
+        Future<ClientHttpResponse> leader = pool.submit(
+                () -> interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, execution));
+        while (calls.get() == 0) {
+            Thread.sleep(1);
+        }
+        Future<ClientHttpResponse> waiter = pool.submit(
+                () -> interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, execution));
+        awaitWaiters(1);
+
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, leader::get).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, waiter::get).getCause());
+        assertEquals(1, calls.get());
+        assertEquals(0, meterRegistry.get("http.client.single-flight.in-flight").gauge().value());
+    }
+
+    @Test
+    void testOnlyIdenticalMatchingGetsAreCoalesced() throws Exception {
+        ClientHttpRequestExecution execution = respond("{}");
+        Future<ClientHttpResponse> leader = pool.submit(
+                () -> interceptor.intercept(get("/api/product/1", "u1"), NO_BODY, execution));
+        while (calls.get() == 0) {
+            Thread.sleep(1);
+        }
+        // another user, another path, a path outside the patterns
+        List<Future<ClientHttpResponse>> others = List.of(
+                pool.submit(() -> interceptor.intercept(get("/api/product/1", "u2"), NO_BODY, execution)),
+                pool.submit(() -> interceptor.intercept(get("/api/product/2", "u1"), NO_BODY, execution)),
+                pool.submit(() -> interceptor.intercept(get("/api/cart/list", "u1"), NO_BODY, execution)));
+        while (calls.get() < 4) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+
+        leader.get();
+        for (Future<ClientHttpResponse> other : others) {
+            other.get();
+        }
+        assertEquals(4, calls.get());
+        assertEquals(0, coalesced());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.apigateway;
+
+import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.security.TokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserPrincipal principal = new UserPrincipal("member-1", "a@b.c", "USER");
+
+    @Test
+    void testVerifiedAndRevokedTokensAreServedUntilInvalidated() {
+        TokenCache<UserPrincipal> cache = new TokenCache<>(100, 300_000, meterRegistry);
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+
+        cache.putVerified("jwt-1", "t1", principal, expiresAt);
+        cache.putRevoked("jwt-2", "t2", expiresAt);
+
+        assertEquals("member-1", cache.get("jwt-1").principal().getUserId());
+        assertFalse(cache.get("jwt-1").revoked());
+        assertTrue(cache.get("jwt-2").revoked());
+        assertNull(cache.get("jwt-3"));
+
+        cache.invalidate("jwt-1");
+        assertNull(cache.get("jwt-1"));
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "jwt.token").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testEntriesNeverOutliveTheToken() throws InterruptedException {
+        TokenCache<UserPrincipal> cache = new TokenCache<>(100, 300_000, meterRegistry);
+
+        TokenCache.Entry<UserPrincipal> expired =
+                cache.putVerified("jwt-1", "t1", principal, Instant.now().minusSeconds(1));
+        cache.putVerified("jwt-2", "t2", principal, Instant.now().plusMillis(50));
+
+        // the caller still gets the entry back, but it is not kept
+        assertEquals("t1", expired.tokenId());
+        assertNull(cache.get("jwt-1"));
+        assertNotNull(cache.get("jwt-2"));
+        Thread.sleep(60);
+        assertNull(cache.get("jwt-2"));
+    }
+
+    @Test
+    void testEntriesAreDroppedAfterTheMaxTtl() throws InterruptedException {
+        TokenCache<UserPrincipal> cache = new TokenCache<>(100, 50, meterRegistry);
+        cache.putVerified("jwt-1", "t1", principal, Instant.now().plus(Duration.ofHours(1)));
+
+        assertNotNull(cache.get("jwt-1"));
+        Thread.sleep(60);
+        assertNull(cache.get("jwt-1"));
+    }
+
+    @Test
+    void testEntriesAreDroppedByTokenId() {
+        TokenCache<UserPrincipal> cache = new TokenCache<>(100, 300_000, meterRegistry);
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+        cache.putVerified("jwt-1", "t1", principal, expiresAt);
+        cache.putVerified("jwt-1b", "t1", principal, expiresAt);
+        cache.putVerified("jwt-2", "t2", principal, expiresAt);
+
+        cache.invalidateTokenIds(Set.of("t1"));
+
+        assertNull(cache.get("jwt-1"));
+        assertNull(cache.get("jwt-1b"));
+        assertNotNull(cache.get("jwt-2"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.apigateway;
+
+import com.example.apigateway.model.Token;
+import com.example.apigateway.repository.TokenRepository;
+import com.example.apigateway.security.TokenRevocationRegistry;
+import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.security.TokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationRegistryTest {
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    private TokenCache<UserPrincipal> tokenCache;
+    private final UserPrincipal principal = new UserPrincipal("member-1", "a@b.c", "USER");
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        tokenCache = new TokenCache<>(1000, 300_000, new SimpleMeterRegistry());
+    }
+
+    private static Token revokedToken(String id, Instant revokedAt, Instant expiresAt) {
+        return Token.builder().id(id).token("jwt-" + id).revokedAt(revokedAt).expiresAt(expiresAt).build();
+    }
+
+    @Test
+    void testLogoutOnAnotherInstanceEvictsTheCachedTokenInAllowlistMode() {
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(tokenRepository, tokenCache,
+                TokenRevocationRegistry.Mode.ALLOWLIST, 5000);
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+        tokenCache.putVerified("jwt-t1", "t1", principal, expiresAt);
+        tokenCache.putVerified("jwt-t2", "t2", principal, expiresAt);
+
+        when(tokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(any(), any()))
+                .thenReturn(List.of(revokedToken("t1", Instant.now(), expiresAt)));
+        registry.poll();
+
+        assertTrue(registry.isRevoked("t1"));
+        assertFalse(registry.isRevoked("t2"));
+        assertNull(tokenCache.get("jwt-t1"));
+        assertNotNull(tokenCache.get("jwt-t2"));
+    }
+
+    @Test
+    void testPollsResumeFromTheWatermarkLessTheOverlap() {
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(tokenRepository, tokenCache,
+                TokenRevocationRegistry.Mode.REVOCATION, 5000);
+        Instant revokedAt = Instant.now().minus(Duration.ofMinutes(1));
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+        when(tokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(any(), any()))
+                .thenReturn(List.of(revokedToken("t1", revokedAt, expiresAt)));
+
+        registry.poll();
+        // seen again through the overlap: already known, so the cache is not walked for it
+        tokenCache.putVerified("jwt-t1", "t1", principal, expiresAt);
+        registry.poll();
+
+        verify(tokenRepository).findByRevokedAtGreaterThanEqualAndExpiresAtAfter(eq(Instant.EPOCH), any());
+        verify(tokenRepository).findByRevokedAtGreaterThanEqualAndExpiresAtAfter(
+                eq(revokedAt.minusMillis(5000)), any());
+        assertTrue(registry.isRevoked("t1"));
+        assertNotNull(tokenCache.get("jwt-t1"));
+    }
+
+    @Test
+    void testExpiredRevocationsAreForgotten() {
+        TokenRevocationRegistry registry = new TokenRevocationRegistry(tokenRepository, tokenCache,
+                TokenRevocationRegistry.Mode.REVOCATION, 5000);
+
+        assertTrue(registry.revoke("t1", Instant.now().minusSeconds(1)));
+        assertFalse(registry.isRevoked("t1"));
+        registry.poll();
+
+        assertTrue(registry.revoke("t1", Instant.now().plusSeconds(60)));
+        assertFalse(registry.revoke("t1", Instant.now().plusSeconds(60)));
+        assertFalse(registry.isRevoked(null));
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.apigateway;
+
+import com.example.apigateway.model.Token;
+import com.example.apigateway.repository.TokenRepository;
+import com.example.apigateway.security.TokenStore;
+import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.security.TokenCache;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.util.Pair;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenStoreTest {
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserPrincipal principal = new UserPrincipal("member-1", "a@b.c", "USER");
+
+    private TokenCache<UserPrincipal> tokenCache;
+    private TokenStore tokenStore;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        tokenCache = new TokenCache<>(1000, 300_000, meterRegistry);
+        when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), eq(Token.class)))
+                .thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.upsert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.updateOne(anyList())).thenReturn(bulkOperations);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (tokenStore != null) {
+            tokenStore.shutdown();
+        }
+    }
+
+    private TokenStore writeBehind(int retryAttempts) {
+        return new TokenStore(tokenRepository, mongoTemplate, tokenCache, meterRegistry,
+                TokenStore.Mode.WRITE_BEHIND, 100, 10, 1000, retryAttempts, 30_000);
+    }
+
+    private Token token(String value) {
+        Instant now = Instant.now();
+        return Token.builder()
+                .id("id-" + value)
+                .token(value)
+                .memberId("member-1")
+                .createdAt(now)
+                .expiresAt(now.plus(Duration.ofHours(1)))
+                .build();
+    }
+
+    private void awaitFlushed(String token) throws InterruptedException {
+        for (int wait = 0; wait < 200 && tokenStore.isPending(token); wait++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void testTokenIsPendingUntilItsBatchIsWritten() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        tokenStore = writeBehind(3);
+
+        tokenStore.save(token("t1"), principal);
+
+        assertTrue(tokenStore.isPending("t1"));
+        assertNotNull(tokenCache.get("t1"));
+        release.countDown();
+        awaitFlushed("t1");
+        assertFalse(tokenStore.isPending("t1"));
+        assertEquals(1, meterRegistry.counter("jwt.token.write-behind.flushed").count());
+        assertEquals(1, meterRegistry.timer("jwt.token.write-behind.lag").count());
+    }
+
+    @Test
+    void testFailedBulkInsertIsRetriedById() throws InterruptedException {
+        when(bulkOperations.execute())
+                .thenThrow(new IllegalStateException("primary stepped down"))
+                .thenThrow(new IllegalStateException("no primary"))
+                .thenReturn(null);
+        tokenStore = writeBehind(3);
+
+        tokenStore.save(token("t1"), principal);
+        awaitFlushed("t1");
+
+        assertFalse(tokenStore.isPending("t1"));
+        verify(bulkOperations, times(2)).upsert(anyList());
+        assertEquals(2, meterRegistry.counter("jwt.token.write-behind.retried").count());
+        assertEquals(1, meterRegistry.counter("jwt.token.write-behind.flushed").count());
+        assertEquals(0, meterRegistry.counter("jwt.token.write-behind.failed").count());
+    }
+
+    @Test
+    void testBatchIsGivenUpOnAfterItsRetries() throws InterruptedException {
+        when(bulkOperations.execute()).thenThrow(new IllegalStateException("primary stepped down"));
+        tokenStore = writeBehind(2);
+
+        tokenStore.save(token("t1"), principal);
+        awaitFlushed("t1");
+
+        assertFalse(tokenStore.isPending("t1"));
+        verify(bulkOperations, times(2)).upsert(anyList());
+        assertEquals(1, meterRegistry.counter("jwt.token.write-behind.failed").count());
+        assertEquals(0, meterRegistry.counter("jwt.token.write-behind.flushed").count());
+    }
+
+    @Test
+    void testSyncModeSavesBeforeReturning() {
+        tokenStore = new TokenStore(tokenRepository, mongoTemplate, tokenCache, meterRegistry,
+                TokenStore.Mode.SYNC, 100, 10, 1000, 3, 30_000);
+
+        tokenStore.save(token("t1"), principal);
+
+        verify(tokenRepository).save(any(Token.class));
+        assertFalse(tokenStore.isPending("t1"));
+        assertEquals(Duration.ZERO, tokenStore.visibilityLag());
+    }
+
+    @Test
+    void testRetriesKeepARevocationStoredMeanwhile() throws InterruptedException {
+        when(bulkOperations.execute())
+                .thenThrow(new IllegalStateException("duplicate key"))
+                .thenReturn(null);
+        tokenStore = writeBehind(3);
+
+        tokenStore.save(token("t1"), principal);
+        awaitFlushed("t1");
+
+        ArgumentCaptor<List<Pair<Query, Update>>> upserts = ArgumentCaptor.captor();
+        verify(bulkOperations).upsert(upserts.capture());
+        Update update = upserts.getValue().get(0).getSecond();
+        assertEquals(Query.query(Criteria.where("_id").is("id-t1")), upserts.getValue().get(0).getFirst());
+        assertNull(update.getUpdateObject().get("$set"));
+        assertEquals("t1", update.getUpdateObject().get("$setOnInsert", Document.class).get("token"));
+    }
+
+    @Test
+    void testPendingTokenIsFlushedRevoked() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        tokenStore = writeBehind(3);
+        Token token = token("t1");
+        tokenStore.save(token, principal);
+
+        assertTrue(tokenStore.revoke(token("t1")));
+        assertFalse(tokenStore.revoke(token("t1")));
+        release.countDown();
+        awaitFlushed("t1");
+
+        assertNotNull(token.getRevokedAt());
+        // it may have been on its way to Mongo already, so the revocation is written again after the flush
+        ArgumentCaptor<List<Pair<Query, UpdateDefinition>>> revoked = ArgumentCaptor.captor();
+        verify(bulkOperations).updateOne(revoked.capture());
+        assertEquals(Query.query(Criteria.where("_id").is("id-t1")), revoked.getValue().get(0).getFirst());
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(Token.class));
+    }
+
+    @Test
+    void testTokenNotPendingHereIsRevokedByUpsert() {
+        tokenStore = writeBehind(3);
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(Token.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("id-t1")))
+                .thenReturn(UpdateResult.acknowledged(1, 0L, null));
+
+        assertTrue(tokenStore.revoke(token("t1")));
+        assertFalse(tokenStore.revoke(token("t1")));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).upsert(eq(Query.query(Criteria.where("_id").is("id-t1"))), update.capture(),
+                eq(Token.class));
+        Document fields = update.getValue().getUpdateObject();
+        assertNotNull(fields.get("$min", Document.class).get("revokedAt"));
+        assertNotNull(fields.get("$setOnInsert", Document.class).get("expiresAt"));
+        verifyNoInteractions(tokenRepository);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.apigateway.util;
+
+import com.example.apigateway.security.UserPrincipal;
+import com.example.shared.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy validate + extractUserId path (fresh parser, two full parses)
+ * against the single-parse {@link JwtUtil#verify(String)} path.
+ *
+ * Run with:
+ * mvn -pl api-gateway test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-cp %classpath com.example.apigateway.util.JwtUtilBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "a-string-secret-at-least-256-bits-long";
+
+    private JwtUtil<UserPrincipal> jwtUtil;
+    private Key signingKey;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil<>(SECRET, 3_600_000, UserPrincipal::new);
+        signingKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        token = jwtUtil.generateToken("member-1", Map.of("claims", Map.of(
+                "id", "member-1",
+                "email", "user@example.com",
+                "role", "CUSTOMER"
+        )));
+    }
+
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        if (!legacyValidate(token)) {
+            return null;
+        }
+        return legacyExtractUserId(token);
+    }
+
+    @Benchmark
+    public String singleParseVerify() {
+        return jwtUtil.verify(token)
+                .map(verified -> verified.principal().getUserId())
+                .orElse(null);
+    }
+
+    private boolean legacyValidate(String token) {
+        try {
+            legacyClaims(token);
+            return true;
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String legacyExtractUserId(String token) {
+        Map<String, String> userClaims = (Map<String, String>) legacyClaims(token).get("claims", Map.class);
+        return userClaims.get("id");
+    }
+
+    private Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.cartservice.config;
+
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.model.MemberCart;
+import com.example.cartservice.repository.CartStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Configuration
+public class MongoConfig {
+
+    private final MongoTemplate mongoTemplate;
+    private final CartStore.Mode storageMode;
+
+    public MongoConfig(MongoTemplate mongoTemplate,
+                       @Value("${cart.storage-mode:LINES}") CartStore.Mode storageMode) {
+        this.mongoTemplate = mongoTemplate;
+        this.storageMode = storageMode;
+    }
+
+    @PostConstruct
+    public void initIndexes() {
+        if (storageMode == CartStore.Mode.AGGREGATE) {
+            // carts are read by _id; these only serve the snapshot reconciler
+            IndexOperations indexOps = mongoTemplate.indexOps(MemberCart.class);
+            indexOps.createIndex(new Index()
+                    .on("items.priceAsOf", Sort.Direction.ASC));
+            indexOps.createIndex(new Index()
+                    .on("items.productId", Sort.Direction.ASC));
+            return;
+        }
+
+        IndexOperations indexOps = mongoTemplate.indexOps(Cart.class);
+        Index memberProduct = new Index()
+                .on("memberId", Sort.Direction.ASC)
+                .on("productId", Sort.Direction.ASC)
+                .unique()
+                .named("memberId_productId");
+        try {
+            indexOps.createIndex(memberProduct);
+        } catch (DuplicateKeyException ex) {
+            // lines duplicated by racing adds before the index existed; keep the newest and retry once
+            log.warn("Removed {} duplicate cart lines before creating the unique index", removeDuplicateLines());
+            indexOps.createIndex(memberProduct);
+        }
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> index.getName().equals("memberId_1"))) {
+            // superseded by the compound index, which serves memberId page reads as its prefix
+            indexOps.dropIndex("memberId_1");
+        }
+
+        // snapshot reconciler: stale lines of one product
+        indexOps.createIndex(new Index()
+                .on("productId", Sort.Direction.ASC)
+                .on("priceAsOf", Sort.Direction.ASC));
+    }
+
+    private long removeDuplicateLines() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.sort(Sort.Direction.DESC, "updatedAt"),
+                Aggregation.group("memberId", "productId").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        List<Object> stale = new ArrayList<>();
+        for (Document group : mongoTemplate.aggregate(duplicates, Cart.class, Document.class)) {
+            List<?> ids = group.getList("ids", Object.class);
+            stale.addAll(ids.subList(1, ids.size()));
+        }
+        if (stale.isEmpty()) return 0;
+
+        return mongoTemplate.remove(Query.query(Criteria.where("_id").in(stale)), Cart.class).getDeletedCount();
+    }
+}
@@ -1,14 +1,96 @@
 package com.example.cartservice.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URISyntaxException;
+
 @Configuration
 public class RestClientConfig {
 
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager connectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${product.service.base-url}") String productServiceUrl,
+            @Value("${http.client.max-total:200}") int maxTotal,
+            @Value("${http.client.max-per-route.product:200}") int productMaxPerRoute,
+            @Value("${http.client.connect-timeout-ms:1000}") long connectTimeoutMs,
+            @Value("${http.client.read-timeout-ms:3000}") long readTimeoutMs,
+            @Value("${http.client.validate-after-inactivity-ms:2000}") long validateAfterInactivityMs,
+            @Value("${http.client.time-to-live-ms:300000}") long timeToLiveMs) throws URISyntaxException {
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMs))
+                        .build())
+                .build();
+
+        HttpRoute productRoute = routeTo(productServiceUrl);
+        connectionManager.setMaxPerRoute(productRoute, productMaxPerRoute);
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "downstream").bindTo(meterRegistry);
+        Gauge.builder("http.client.pool.saturation", connectionManager,
+                        cm -> (double) cm.getStats(productRoute).getLeased() / cm.getMaxPerRoute(productRoute))
+                .tag("downstream", "product")
+                .register(meterRegistry);
+
+        return connectionManager;
+    }
+
+    /**
+     * The route the client plans for requests to the URL. The client fills in the scheme's default port when the
+     * URL has none, so a route built from the URL as written would never match its connections.
+     */
+    private static HttpRoute routeTo(String url) throws URISyntaxException {
+        HttpHost target = RoutingSupport.normalize(HttpHost.create(url), DefaultSchemePortResolver.INSTANCE);
+        return new HttpRoute(target, null, URIScheme.HTTPS.same(target.getSchemeName()));
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            PoolingHttpClientConnectionManager connectionManager,
+            @Value("${http.client.connection-request-timeout-ms:1000}") long connectionRequestTimeoutMs,
+            @Value("${http.client.read-timeout-ms:3000}") long readTimeoutMs,
+            @Value("${http.client.keep-alive-ms:30000}") long keepAliveMs,
+            @Value("${http.client.idle-evict-ms:30000}") long idleEvictMs) {
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAliveMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictMs))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,12 @@ package com.example.cartservice.controller;
 
 import com.example.cartservice.dto.AddToCartRequest;
 import com.example.cartservice.dto.AddToCartResponse;
+import com.example.cartservice.dto.AddToCartResult;
+import com.example.cartservice.dto.BulkAddToCartRequest;
+import com.example.cartservice.dto.CartSummaryResponse;
+import com.example.cartservice.dto.ChangeQtyRequest;
 import com.example.cartservice.dto.GetCartResponse;
+import com.example.cartservice.dto.RemoveFromCartRequest;
 import com.example.cartservice.service.CartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +17,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/cart")
@@ -28,6 +35,22 @@ public class CartController {
         return ResponseEntity.ok(cartService.addToCart(userId, request));
     }
 
+    @PostMapping("/bulkAddToCart")
+    public ResponseEntity<List<AddToCartResult>> bulkAddToCart(
+            @RequestHeader("X-User-Id") String userId,
+            @Valid @RequestBody BulkAddToCartRequest request) {
+
+        return ResponseEntity.ok(cartService.bulkAddToCart(userId, request.items()));
+    }
+
+    @PostMapping("/changeQty")
+    public ResponseEntity<AddToCartResponse> changeQty(
+            @RequestHeader("X-User-Id") String userId,
+            @Valid @RequestBody ChangeQtyRequest request) {
+
+        return ResponseEntity.ok(cartService.changeQty(userId, request));
+    }
+
     @GetMapping("/getCart")
     public ResponseEntity<Page<GetCartResponse>> getCart(
             @RequestHeader("X-User-Id") String userId,
@@ -40,8 +63,33 @@ public class CartController {
         ));
     }
 
+    @GetMapping("/summary")
+    public ResponseEntity<CartSummaryResponse> getSummary(
+            @RequestHeader("X-User-Id") String userId) {
+
+        return ResponseEntity.ok(cartService.getSummary(userId));
+    }
+
     @DeleteMapping("/deleteFromCart/{id}")
-    public ResponseEntity<Boolean> deleteFromCart(@PathVariable String id) {
-        return ResponseEntity.ok(cartService.deleteFromCart(id));
+    public ResponseEntity<Boolean> deleteFromCart(
+            @RequestHeader("X-User-Id") String userId,
+            @PathVariable String id) {
+
+        return ResponseEntity.ok(cartService.deleteFromCart(userId, id));
+    }
+
+    @PostMapping("/removeFromCart")
+    public ResponseEntity<Long> removeFromCart(
+            @RequestHeader("X-User-Id") String userId,
+            @Valid @RequestBody RemoveFromCartRequest request) {
+
+        return ResponseEntity.ok(cartService.removeFromCart(userId, request.ids()));
+    }
+
+    @DeleteMapping("/clearCart")
+    public ResponseEntity<Long> clearCart(
+            @RequestHeader("X-User-Id") String userId) {
+
+        return ResponseEntity.ok(cartService.clearCart(userId));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.example.cartservice.dto;
+
+/**
+ * Outcome of one item of a bulk add, in request order. {@code id} is the cart line the item ended up in and
+ * is null when the product was not found.
+ */
+public record AddToCartResult(
+        String id,
+        String productId,
+        Integer qty,
+        Status status
+) {
+
+    public enum Status {
+        SAVED,
+        /** a later item of the same request set the qty of this product's line */
+        SUPERSEDED,
+        PRODUCT_NOT_FOUND
+    }
+}
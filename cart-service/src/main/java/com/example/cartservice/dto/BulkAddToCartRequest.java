@@ -0,0 +1,16 @@
+package com.example.cartservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkAddToCartRequest(
+
+        @NotEmpty(message = "Items are required")
+        @Size(max = 100, message = "At most 100 items can be added at once")
+        List<@NotNull @Valid AddToCartRequest> items
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.cartservice.dto;
+
+import java.math.BigDecimal;
+
+public record CartSummaryResponse(
+        String memberId,
+        BigDecimal subtotal,
+        long itemCount,
+        int lineCount
+) {}
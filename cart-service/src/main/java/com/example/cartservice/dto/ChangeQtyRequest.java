@@ -0,0 +1,14 @@
+package com.example.cartservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record ChangeQtyRequest(
+
+        @NotBlank(message = "Product id is required")
+        String productId,
+
+        @NotNull(message = "Delta is required")
+        Integer delta
+) {
+}
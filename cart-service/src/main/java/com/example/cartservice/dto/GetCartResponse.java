@@ -1,6 +1,7 @@
 package com.example.cartservice.dto;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public record GetCartResponse(
         String id,
@@ -8,5 +9,7 @@ public record GetCartResponse(
         String productId,
         String productName,
         Integer qty,
-        BigDecimal totalPrice
+        BigDecimal totalPrice,
+        Instant priceAsOf,
+        boolean degraded
 ) {}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.example.cartservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record RemoveFromCartRequest(
+
+        @NotEmpty(message = "Line ids are required")
+        @Size(max = 100, message = "At most 100 lines can be removed at once")
+        List<String> ids
+) {
+}
@@ -28,6 +28,9 @@ public class Cart {
 
     private BigDecimal price;
 
+    /** when productName and price were last confirmed against product-service; null on lines written before snapshots */
+    private Instant priceAsOf;
+
     private Instant createdAt;
 
     private Instant updatedAt;
@@ -0,0 +1,31 @@
+package com.example.cartservice.model;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartItem {
+
+    /** exposed as the cart line id; not named id so it is not mapped to an embedded _id */
+    private String lineId;
+
+    private String productId;
+
+    private String productName;
+
+    private Integer qty;
+
+    private BigDecimal price;
+
+    private Instant priceAsOf;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,42 @@
+package com.example.cartservice.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Running totals of a member's cart, kept in step with every add and delete so they can be read without
+ * touching the lines. Amounts are in {@link Money} minor units. Every write bumps {@code version}; a rebuild
+ * from the lines also starts a new {@code generation}, so a change read against an older one is not applied on
+ * top of totals that may already include it.
+ */
+@Document(collection = "cart_summaries")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartSummary {
+
+    @Id
+    private String memberId;
+
+    private long subtotalMinor;
+
+    private long itemCount;
+
+    private int lineCount;
+
+    private Instant updatedAt;
+
+    private long version;
+
+    private String generation;
+
+    /** set when the lines changed without the totals following; the next read rebuilds it */
+    private boolean stale;
+
+    private Instant rebuiltAt;
+}
@@ -0,0 +1,31 @@
+package com.example.cartservice.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One document per member with the cart lines embedded, used when {@code cart.storage-mode=AGGREGATE}.
+ */
+@Document(collection = "member_carts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MemberCart {
+
+    @Id
+    private String memberId;
+
+    @Builder.Default
+    private List<CartItem> items = new ArrayList<>();
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+}
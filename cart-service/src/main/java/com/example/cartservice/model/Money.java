@@ -0,0 +1,32 @@
+package com.example.cartservice.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts as a {@code long} count of minor units (cents), so cart totals are summed and multiplied without
+ * allocating. Prices arrive and leave as {@link BigDecimal} and are converted at those edges only; every
+ * product is priced in the one currency the shop uses, with two decimals.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    public static long toMinor(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * Total of a line in minor units; a line without a price counts as zero.
+     */
+    public static long lineTotal(BigDecimal price, int qty) {
+        return price == null ? 0 : Math.multiplyExact(toMinor(price), (long) qty);
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.cartservice.repository;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.model.CartItem;
+import com.example.cartservice.model.MemberCart;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Cart lines embedded in one member_carts document per member, keyed by memberId. A cart is read with a
+ * single point read by _id; adding a product is a positional update of the existing line or, when the
+ * member has none for it yet, a guarded $push that upserts the document.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cart.storage-mode", havingValue = "AGGREGATE")
+public class AggregateCartStore implements CartStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public SavedLine saveLine(Cart line) {
+        String memberId = line.getMemberId();
+        String productId = line.getProductId();
+        Instant now = line.getUpdatedAt();
+
+        Query existingLine = Query.query(Criteria.where("_id").is(memberId).and("items.productId").is(productId));
+        Update overwrite = new Update()
+                .set("items.$.qty", line.getQty())
+                .set("items.$.productName", line.getProductName())
+                .set("items.$.price", line.getPrice())
+                .set("items.$.priceAsOf", line.getPriceAsOf())
+                .set("items.$.updatedAt", now)
+                .set("updatedAt", now);
+        MemberCart before = mongoTemplate.findAndModify(existingLine, overwrite,
+                FindAndModifyOptions.options().returnNew(false), MemberCart.class);
+
+        if (before != null) {
+            CartItem previous = findItem(before, productId).orElseThrow();
+            Cart saved = toLine(memberId, previous);
+            saved.setQty(line.getQty());
+            saved.setProductName(line.getProductName());
+            saved.setPrice(line.getPrice());
+            saved.setPriceAsOf(line.getPriceAsOf());
+            saved.setUpdatedAt(now);
+            return new SavedLine(saved, toLine(memberId, previous));
+        }
+
+        CartItem item = newItem(line, line.getQty());
+        if (!pushItem(memberId, item, now)) {
+            return saveLine(line);
+        }
+        return new SavedLine(toLine(memberId, item), null);
+    }
+
+    /**
+     * Positional $inc on the member's line, or the guarded $push of a new one. A decrement only matches the
+     * line while it leaves at least 1, and otherwise pulls the line under the opposite condition, so no
+     * concurrent change is lost; should the qty move between the two, both are tried again.
+     */
+    @Override
+    public SavedLine changeQty(Cart line, int delta) {
+        String memberId = line.getMemberId();
+        String productId = line.getProductId();
+        Instant now = line.getUpdatedAt();
+        if (delta == 0) {
+            Cart current = findAllByMemberId(memberId).stream()
+                    .filter(l -> l.getProductId().equals(productId))
+                    .findFirst()
+                    .orElse(null);
+            return new SavedLine(current, current);
+        }
+
+        if (delta > 0) {
+            Query existingLine = Query.query(Criteria.where("_id").is(memberId).and("items.productId").is(productId));
+            Update increment = new Update()
+                    .inc("items.$.qty", delta)
+                    .set("items.$.productName", line.getProductName())
+                    .set("items.$.price", line.getPrice())
+                    .set("items.$.priceAsOf", line.getPriceAsOf())
+                    .set("items.$.updatedAt", now)
+                    .set("updatedAt", now);
+            MemberCart before = mongoTemplate.findAndModify(existingLine, increment,
+                    FindAndModifyOptions.options().returnNew(false), MemberCart.class);
+            if (before != null) {
+                CartItem item = findItem(before, productId).orElseThrow();
+                Cart previous = toLine(memberId, item);
+                Cart changed = toLine(memberId, item);
+                changed.setQty(previous.getQty() + delta);
+                changed.setProductName(line.getProductName());
+                changed.setPrice(line.getPrice());
+                changed.setPriceAsOf(line.getPriceAsOf());
+                changed.setUpdatedAt(now);
+                return new SavedLine(changed, previous);
+            }
+
+            CartItem item = newItem(line, delta);
+            if (!pushItem(memberId, item, now)) {
+                return changeQty(line, delta);
+            }
+            return new SavedLine(toLine(memberId, item), null);
+        }
+
+        int keepAtLeast = 1 - delta;
+        while (true) {
+            MemberCart before = mongoTemplate.findAndModify(
+                    byLine(memberId, Criteria.where("productId").is(productId).and("qty").gte(keepAtLeast)),
+                    new Update()
+                            .inc("items.$[line].qty", delta)
+                            .set("items.$[line].updatedAt", now)
+                            .set("updatedAt", now)
+                            .filterArray(Criteria.where("line.productId").is(productId)),
+                    FindAndModifyOptions.options().returnNew(false), MemberCart.class);
+            if (before != null) {
+                CartItem item = findItem(before, productId).orElseThrow();
+                Cart previous = toLine(memberId, item);
+                Cart changed = toLine(memberId, item);
+                changed.setQty(previous.getQty() + delta);
+                changed.setUpdatedAt(now);
+                return new SavedLine(changed, previous);
+            }
+
+            before = mongoTemplate.findAndModify(
+                    byLine(memberId, Criteria.where("productId").is(productId).and("qty").lt(keepAtLeast)),
+                    new Update().pull("items", new Document("productId", productId)).set("updatedAt", now),
+                    FindAndModifyOptions.options().returnNew(false), MemberCart.class);
+            if (before != null) {
+                return new SavedLine(null, toLine(memberId, findItem(before, productId).orElseThrow()));
+            }
+            if (!mongoTemplate.exists(byLine(memberId, Criteria.where("productId").is(productId)), MemberCart.class)) {
+                return new SavedLine(null, null);
+            }
+        }
+    }
+
+    /**
+     * All lines land in the member's one document, so the bulk write is ordered: the document is created if
+     * missing, then each product gets a $push guarded on it having no line yet followed by a positional
+     * overwrite, which matches whether the line was just pushed or already there. One point read returns
+     * the lines as stored.
+     */
+    @Override
+    public List<Cart> saveLines(String memberId, List<Cart> lines) {
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, MemberCart.class);
+        bulk.upsert(Query.query(Criteria.where("_id").is(memberId)), new Update()
+                .setOnInsert("items", List.of())
+                .setOnInsert("createdAt", now));
+        for (Cart line : lines) {
+            String productId = line.getProductId();
+            CartItem item = CartItem.builder()
+                    .lineId(new ObjectId().toHexString())
+                    .productId(productId)
+                    .createdAt(line.getCreatedAt())
+                    .build();
+            bulk.updateOne(Query.query(Criteria.where("_id").is(memberId).and("items.productId").ne(productId)),
+                    new Update().push("items", item));
+            bulk.updateOne(Query.query(Criteria.where("_id").is(memberId).and("items.productId").is(productId)),
+                    new Update()
+                            .set("items.$.qty", line.getQty())
+                            .set("items.$.productName", line.getProductName())
+                            .set("items.$.price", line.getPrice())
+                            .set("items.$.priceAsOf", line.getPriceAsOf())
+                            .set("items.$.updatedAt", line.getUpdatedAt())
+                            .set("updatedAt", line.getUpdatedAt()));
+        }
+        bulk.execute();
+
+        Set<String> productIds = lines.stream().map(Cart::getProductId).collect(Collectors.toSet());
+        return findAllByMemberId(memberId).stream()
+                .filter(line -> productIds.contains(line.getProductId()))
+                .toList();
+    }
+
+    /**
+     * Pages in the pageable's order or, when unsorted, by productId like LINES mode, so a cart pages the same
+     * way in either mode and before and after migration.
+     */
+    @Override
+    public Page<Cart> findByMemberId(String memberId, Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("productId");
+        List<Cart> lines = new ArrayList<>(findAllByMemberId(memberId));
+        Comparator<Cart> order = null;
+        for (Sort.Order by : sort) {
+            Comparator<Cart> next = new PropertyComparator<>(by.getProperty(), by.isIgnoreCase(), by.isAscending());
+            order = order == null ? next : order.thenComparing(next);
+        }
+        lines.sort(order);
+
+        int from = (int) Math.min(pageable.getOffset(), lines.size());
+        int to = Math.min(from + pageable.getPageSize(), lines.size());
+        return new PageImpl<>(lines.subList(from, to), pageable, lines.size());
+    }
+
+    @Override
+    public List<Cart> findAllByMemberId(String memberId) {
+        MemberCart cart = mongoTemplate.findById(memberId, MemberCart.class);
+        return cart == null
+                ? List.of()
+                : cart.getItems().stream().map(item -> toLine(memberId, item)).toList();
+    }
+
+    @Override
+    public Optional<Cart> deleteLine(String memberId, String lineId) {
+        Query query = Query.query(Criteria.where("_id").is(memberId).and("items.lineId").is(lineId));
+        Update update = new Update()
+                .pull("items", new Document("lineId", lineId))
+                .set("updatedAt", Instant.now());
+        MemberCart before = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), MemberCart.class);
+        return before == null
+                ? Optional.empty()
+                : findItem(before, item -> item.getLineId().equals(lineId)).map(item -> toLine(memberId, item));
+    }
+
+    /**
+     * One $pull of all matching lines; the count is taken from the document as it was before the update.
+     */
+    @Override
+    public long deleteLines(String memberId, Collection<String> lineIds) {
+        Query query = Query.query(Criteria.where("_id").is(memberId).and("items.lineId").in(lineIds));
+        Update update = new Update()
+                .pull("items", new Document("lineId", new Document("$in", lineIds)))
+                .set("updatedAt", Instant.now());
+        MemberCart before = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(false), MemberCart.class);
+        if (before == null) return 0;
+
+        Set<String> removed = Set.copyOf(lineIds);
+        return before.getItems().stream().filter(item -> removed.contains(item.getLineId())).count();
+    }
+
+    @Override
+    public long deleteAllLines(String memberId) {
+        Query query = Query.query(Criteria.where("_id").is(memberId));
+        MemberCart before = mongoTemplate.findAndRemove(query, MemberCart.class);
+        return before == null ? 0 : before.getItems().size();
+    }
+
+    @Override
+    public List<String> findStaleProductIds(Instant cutoff) {
+        return mongoTemplate.findDistinct(
+                Query.query(Criteria.where("items").elemMatch(stale("", cutoff))),
+                "items.productId", MemberCart.class, String.class);
+    }
+
+    @Override
+    public long updateSnapshots(List<String> productIds, Map<String, GetProductResponse> products,
+                                Instant cutoff, Instant now) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MemberCart.class);
+        for (String productId : productIds) {
+            GetProductResponse product = products.get(productId);
+            Update update = product != null
+                    ? new Update()
+                            .set("items.$[line].productName", product.name())
+                            .set("items.$[line].price", product.price())
+                    : new Update()
+                            .unset("items.$[line].productName")
+                            .unset("items.$[line].price");
+            update.set("items.$[line].priceAsOf", now)
+                    .filterArray(stale("line.", cutoff).and("line.productId").is(productId));
+            bulk.updateMulti(
+                    Query.query(Criteria.where("items").elemMatch(
+                            stale("", cutoff).and("productId").is(productId))),
+                    update);
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public List<String> findMemberIdsWithPriceChange(List<String> productIds,
+                                                     Map<String, GetProductResponse> products) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Criteria[] changed = productIds.stream()
+                .map(productId -> {
+                    GetProductResponse product = products.get(productId);
+                    BigDecimal price = product != null ? product.price() : null;
+                    return Criteria.where("items").elemMatch(
+                            Criteria.where("productId").is(productId).and("price").ne(price));
+                })
+                .toArray(Criteria[]::new);
+        return mongoTemplate.findDistinct(Query.query(new Criteria().orOperator(changed)),
+                "_id", MemberCart.class, String.class);
+    }
+
+    /**
+     * Missing, null or older than the cutoff, as a single field condition: array filters only accept
+     * fields of the one identifier at the top level, not $or.
+     */
+    private static Criteria stale(String prefix, Instant cutoff) {
+        return Criteria.where(prefix + "priceAsOf").not().gte(cutoff);
+    }
+
+    /**
+     * Pushes the item unless the member already has a line for its product, creating the document when the
+     * member has none. Returns false when a concurrent add created the product's line first.
+     */
+    private boolean pushItem(String memberId, CartItem item, Instant now) {
+        Query noLine = Query.query(Criteria.where("_id").is(memberId).and("items.productId").ne(item.getProductId()));
+        Update push = new Update()
+                .push("items", item)
+                .set("updatedAt", now)
+                .setOnInsert("createdAt", now);
+        try {
+            mongoTemplate.upsert(noLine, push, MemberCart.class);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            // the document exists and a concurrent add created this product's line first
+            return false;
+        }
+    }
+
+    private static CartItem newItem(Cart line, int qty) {
+        return CartItem.builder()
+                .lineId(new ObjectId().toHexString())
+                .productId(line.getProductId())
+                .productName(line.getProductName())
+                .qty(qty)
+                .price(line.getPrice())
+                .priceAsOf(line.getPriceAsOf())
+                .createdAt(line.getCreatedAt())
+                .updatedAt(line.getUpdatedAt())
+                .build();
+    }
+
+    private static Query byLine(String memberId, Criteria line) {
+        return Query.query(Criteria.where("_id").is(memberId).and("items").elemMatch(line));
+    }
+
+    private static Optional<CartItem> findItem(MemberCart cart, String productId) {
+        return findItem(cart, item -> item.getProductId().equals(productId));
+    }
+
+    private static Optional<CartItem> findItem(MemberCart cart, Predicate<CartItem> match) {
+        return cart.getItems().stream().filter(match).findFirst();
+    }
+
+    private static Cart toLine(String memberId, CartItem item) {
+        return Cart.builder()
+                .id(item.getLineId())
+                .memberId(memberId)
+                .productId(item.getProductId())
+                .productName(item.getProductName())
+                .qty(item.getQty())
+                .price(item.getPrice())
+                .priceAsOf(item.getPriceAsOf())
+                .createdAt(item.getCreatedAt())
+                .updatedAt(item.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.cartservice.repository;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.model.Cart;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Storage of cart lines. LINES keeps one carts document per (member, product); AGGREGATE keeps one
+ * member_carts document per member with the lines embedded. Both hand lines out as {@link Cart}.
+ */
+public interface CartStore {
+
+    enum Mode {
+        LINES,
+        AGGREGATE
+    }
+
+    /**
+     * A written line together with the line it replaced; {@code previous} is null when the line is new.
+     */
+    record SavedLine(Cart line, Cart previous) {}
+
+    /**
+     * Creates the member's line for the product or overwrites its qty and snapshot.
+     */
+    SavedLine saveLine(Cart line);
+
+    /**
+     * Creates or overwrites the member's lines for the given products in one bulk write; each product may
+     * appear only once. Returns the member's lines for those products as stored afterwards.
+     */
+    List<Cart> saveLines(String memberId, List<Cart> lines);
+
+    /**
+     * Adds {@code delta} to the qty of the member's line for the product in one atomic write, without reading
+     * it first. A positive delta creates a missing line with qty {@code delta} and refreshes the snapshot from
+     * {@code line}; a negative delta that would leave less than 1 removes the line instead, and {@code line}
+     * in the result is then null. A zero delta only reads the line.
+     */
+    SavedLine changeQty(Cart line, int delta);
+
+    Page<Cart> findByMemberId(String memberId, Pageable pageable);
+
+    List<Cart> findAllByMemberId(String memberId);
+
+    /**
+     * Removes the member's line and returns it, or empty when the member has no such line.
+     */
+    Optional<Cart> deleteLine(String memberId, String lineId);
+
+    /**
+     * Removes those of the given lines that belong to the member. Returns the number removed.
+     */
+    long deleteLines(String memberId, Collection<String> lineIds);
+
+    /**
+     * Removes all of the member's lines. Returns the number removed.
+     */
+    long deleteAllLines(String memberId);
+
+    /**
+     * Products with at least one line whose snapshot is missing or older than {@code cutoff}.
+     */
+    List<String> findStaleProductIds(Instant cutoff);
+
+    /**
+     * Rewrites the stale lines of the given products; products absent from {@code products} lose their
+     * snapshot. Returns the number of documents modified.
+     */
+    long updateSnapshots(List<String> productIds, Map<String, GetProductResponse> products,
+                         Instant cutoff, Instant now);
+
+    /**
+     * Members holding a line of one of the products whose price differs from the product's current price,
+     * in one query; products absent from {@code products} match the lines that still have a price.
+     */
+    List<String> findMemberIdsWithPriceChange(List<String> productIds, Map<String, GetProductResponse> products);
+}
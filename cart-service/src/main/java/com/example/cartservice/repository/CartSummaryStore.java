@@ -0,0 +1,191 @@
+package com.example.cartservice.repository;
+
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.model.CartSummary;
+import com.example.cartservice.model.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps one cart_summaries document per member in step with the lines. Every add and delete applies its
+ * difference as a single $inc, so reading the summary never touches the lines.
+ *
+ * A line write and its $inc are two writes, so a rebuild from the lines can fall between them. Writers therefore
+ * read the summary's generation before writing the line and only apply their $inc to that generation; when a
+ * rebuild started a new one meanwhile, or there was no summary, the writer rebuilds instead. A rebuild replaces
+ * the totals only if the version it read is still current and otherwise reads the lines again, so neither a
+ * change it missed nor one it already counted ends up wrong. Summaries older than {@code max-age-ms} are rebuilt
+ * on read, which repairs drift left by a writer that died between its two writes.
+ */
+@Component
+public class CartSummaryStore {
+
+    private static final int REBUILD_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final CartStore cartStore;
+    private final Duration maxAge;
+    private final Counter rebuilds;
+    private final Counter rebuildConflicts;
+
+    public CartSummaryStore(MongoTemplate mongoTemplate, CartStore cartStore, MeterRegistry meterRegistry,
+                            @Value("${cart.summary.max-age-ms:3600000}") long maxAgeMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.cartStore = cartStore;
+        this.maxAge = Duration.ofMillis(maxAgeMs);
+        this.rebuilds = meterRegistry.counter("cart.summary.rebuilds");
+        this.rebuildConflicts = meterRegistry.counter("cart.summary.rebuild-conflicts");
+    }
+
+    public CartSummary find(String memberId) {
+        CartSummary summary = mongoTemplate.findById(memberId, CartSummary.class);
+        if (summary == null || summary.isStale() || summary.getRebuiltAt() == null
+                || summary.getRebuiltAt().isBefore(Instant.now().minus(maxAge))) {
+            return rebuild(memberId);
+        }
+        return summary;
+    }
+
+    /**
+     * The generation of the member's summary, to be read before writing a line and handed to
+     * {@link #applyChange}; null when the member has no summary yet.
+     */
+    public String generation(String memberId) {
+        Query query = byMember(memberId);
+        query.fields().include("generation");
+        CartSummary summary = mongoTemplate.findOne(query, CartSummary.class);
+        return summary != null ? summary.getGeneration() : null;
+    }
+
+    /**
+     * Applies the change from {@code before} to {@code after}; either is null when the line was created
+     * or removed. {@code generation} is what {@link #generation} returned before the line was written.
+     */
+    public void applyChange(String memberId, String generation, Cart before, Cart after) {
+        if (generation == null) {
+            // the lines already include this change
+            rebuild(memberId);
+            return;
+        }
+
+        long subtotalDelta = total(after) - total(before);
+        long itemDelta = qty(after) - qty(before);
+        int lineDelta = (after != null ? 1 : 0) - (before != null ? 1 : 0);
+
+        Update update = new Update()
+                .inc("subtotalMinor", subtotalDelta)
+                .inc("itemCount", itemDelta)
+                .inc("lineCount", lineDelta)
+                .inc("version", 1)
+                .set("updatedAt", Instant.now());
+        Query sameGeneration = Query.query(Criteria.where("_id").is(memberId).and("generation").is(generation));
+        if (mongoTemplate.updateFirst(sameGeneration, update, CartSummary.class).getMatchedCount() == 0) {
+            // rebuilt since the line was written, maybe with this change in it already
+            rebuild(memberId);
+        }
+    }
+
+    /**
+     * Marks the summaries of the given members stale; they are rebuilt from the lines when next used. A
+     * rebuild already under way for one of them does not store what it read.
+     */
+    public void invalidate(Collection<String> memberIds) {
+        if (memberIds.isEmpty()) return;
+
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CartSummary.class);
+        for (String memberId : memberIds) {
+            bulk.upsert(byMember(memberId), new Update().set("stale", true).inc("version", 1).set("updatedAt", now));
+        }
+        bulk.execute();
+    }
+
+    private CartSummary rebuild(String memberId) {
+        rebuilds.increment();
+        CartSummary rebuilt = null;
+        for (int attempt = 0; attempt < REBUILD_ATTEMPTS; attempt++) {
+            CartSummary current = mongoTemplate.findById(memberId, CartSummary.class);
+            rebuilt = fromLines(memberId, current != null ? current.getVersion() + 1 : 0);
+            if (current == null ? insert(rebuilt) : replace(current.getVersion(), rebuilt)) {
+                return rebuilt;
+            }
+        }
+        // changes kept landing between reading the lines and storing them: answer from the lines read last
+        // and leave the summary to the next reader
+        rebuildConflicts.increment();
+        invalidate(List.of(memberId));
+        return rebuilt;
+    }
+
+    private CartSummary fromLines(String memberId, long version) {
+        List<Cart> lines = cartStore.findAllByMemberId(memberId);
+        long subtotal = 0;
+        long items = 0;
+        for (Cart line : lines) {
+            subtotal += total(line);
+            items += qty(line);
+        }
+        Instant now = Instant.now();
+        return CartSummary.builder()
+                .memberId(memberId)
+                .subtotalMinor(subtotal)
+                .itemCount(items)
+                .lineCount(lines.size())
+                .updatedAt(now)
+                .version(version)
+                .generation(new ObjectId().toHexString())
+                .rebuiltAt(now)
+                .build();
+    }
+
+    private boolean insert(CartSummary rebuilt) {
+        try {
+            mongoTemplate.insert(rebuilt);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    private boolean replace(long version, CartSummary rebuilt) {
+        // summaries written before versions existed have none
+        Criteria unchanged = Criteria.where("_id").is(rebuilt.getMemberId()).and("version");
+        unchanged = version == 0 ? unchanged.in(0L, null) : unchanged.is(version);
+        Update update = new Update()
+                .set("subtotalMinor", rebuilt.getSubtotalMinor())
+                .set("itemCount", rebuilt.getItemCount())
+                .set("lineCount", rebuilt.getLineCount())
+                .set("updatedAt", rebuilt.getUpdatedAt())
+                .set("version", rebuilt.getVersion())
+                .set("generation", rebuilt.getGeneration())
+                .set("stale", false)
+                .set("rebuiltAt", rebuilt.getRebuiltAt());
+        return mongoTemplate.updateFirst(Query.query(unchanged), update, CartSummary.class).getMatchedCount() > 0;
+    }
+
+    private static Query byMember(String memberId) {
+        return Query.query(Criteria.where("_id").is(memberId));
+    }
+
+    private static long total(Cart line) {
+        return line != null && line.getQty() != null ? Money.lineTotal(line.getPrice(), line.getQty()) : 0;
+    }
+
+    private static long qty(Cart line) {
+        return line != null && line.getQty() != null ? line.getQty() : 0;
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.cartservice.repository;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.model.Cart;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cart.storage-mode", havingValue = "LINES", matchIfMissing = true)
+public class LineCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * One findAndModify upsert keyed on the unique (memberId, productId) index: it overwrites the member's
+     * line for the product or inserts it, so concurrent adds can never leave two lines for one product.
+     * It returns the line as it was before, and the id of a new line is chosen here, so the written line
+     * needs no second read.
+     */
+    @Override
+    public SavedLine saveLine(Cart line) {
+        Query query = byProduct(line.getMemberId(), line.getProductId());
+        ObjectId newId = new ObjectId();
+        Update update = overwrite(line).setOnInsert("_id", newId);
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(false);
+
+        Cart previous;
+        try {
+            previous = mongoTemplate.findAndModify(query, update, options, Cart.class);
+        } catch (DuplicateKeyException ex) {
+            // a concurrent add inserted the line first; the retry matches it and updates in place
+            previous = mongoTemplate.findAndModify(query, update, options, Cart.class);
+        }
+
+        return new SavedLine(written(line, previous, newId, line.getQty()), previous);
+    }
+
+    /**
+     * An increment is the same findAndModify upsert with $inc in place of the qty overwrite. A decrement is
+     * a $inc that only matches while it leaves at least 1, or else a findAndRemove that only matches when it
+     * would not, so no concurrent change is lost; should the qty move between the two, both are tried again.
+     */
+    @Override
+    public SavedLine changeQty(Cart line, int delta) {
+        String memberId = line.getMemberId();
+        String productId = line.getProductId();
+        if (delta == 0) {
+            Cart current = mongoTemplate.findOne(byProduct(memberId, productId), Cart.class);
+            return new SavedLine(current, current);
+        }
+
+        if (delta > 0) {
+            ObjectId newId = new ObjectId();
+            Update update = snapshot(line).inc("qty", delta).setOnInsert("_id", newId);
+            FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(false);
+            Cart previous;
+            try {
+                previous = mongoTemplate.findAndModify(byProduct(memberId, productId), update, options, Cart.class);
+            } catch (DuplicateKeyException ex) {
+                previous = mongoTemplate.findAndModify(byProduct(memberId, productId), update, options, Cart.class);
+            }
+            int qty = (previous != null ? previous.getQty() : 0) + delta;
+            return new SavedLine(written(line, previous, newId, qty), previous);
+        }
+
+        int keepAtLeast = 1 - delta;
+        while (true) {
+            Cart previous = mongoTemplate.findAndModify(
+                    Query.query(product(memberId, productId).and("qty").gte(keepAtLeast)),
+                    new Update().inc("qty", delta).set("updatedAt", line.getUpdatedAt()),
+                    FindAndModifyOptions.options().returnNew(false), Cart.class);
+            if (previous != null) {
+                Cart changed = written(previous, previous, null, previous.getQty() + delta);
+                changed.setUpdatedAt(line.getUpdatedAt());
+                return new SavedLine(changed, previous);
+            }
+
+            Cart removed = mongoTemplate.findAndRemove(
+                    Query.query(product(memberId, productId).and("qty").lt(keepAtLeast)), Cart.class);
+            if (removed != null) {
+                return new SavedLine(null, removed);
+            }
+            if (!mongoTemplate.exists(byProduct(memberId, productId), Cart.class)) {
+                return new SavedLine(null, null);
+            }
+        }
+    }
+
+    /**
+     * The same upserts as {@link #saveLine} in one unordered bulk write. Lines a concurrent add inserted
+     * first fail on the unique index and are retried one by one; the lines are then read back in one query.
+     */
+    @Override
+    public List<Cart> saveLines(String memberId, List<Cart> lines) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class);
+        for (Cart line : lines) {
+            bulk.upsert(byProduct(memberId, line.getProductId()), overwrite(line).setOnInsert("_id", new ObjectId()));
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException ex) {
+            if (!ex.getErrors().stream().allMatch(LineCartStore::isDuplicateKey)) throw ex;
+            ex.getErrors().forEach(error -> saveLine(lines.get(error.getIndex())));
+        }
+
+        List<String> productIds = lines.stream().map(Cart::getProductId).toList();
+        return mongoTemplate.find(
+                Query.query(Criteria.where("memberId").is(memberId).and("productId").in(productIds)), Cart.class);
+    }
+
+    /**
+     * Unsorted pages are ordered by productId so the (memberId, productId) index serves both the filter
+     * and the order, and page boundaries stay stable while lines are added.
+     */
+    @Override
+    public Page<Cart> findByMemberId(String memberId, Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("productId"));
+        }
+        return cartRepository.findByMemberId(memberId, pageable);
+    }
+
+    @Override
+    public List<Cart> findAllByMemberId(String memberId) {
+        return mongoTemplate.find(Query.query(Criteria.where("memberId").is(memberId)), Cart.class);
+    }
+
+    @Override
+    public Optional<Cart> deleteLine(String memberId, String lineId) {
+        Query query = Query.query(Criteria.where("_id").is(lineId).and("memberId").is(memberId));
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, Cart.class));
+    }
+
+    @Override
+    public long deleteLines(String memberId, Collection<String> lineIds) {
+        Query query = Query.query(Criteria.where("_id").in(lineIds).and("memberId").is(memberId));
+        return mongoTemplate.remove(query, Cart.class).getDeletedCount();
+    }
+
+    @Override
+    public long deleteAllLines(String memberId) {
+        return mongoTemplate.remove(Query.query(Criteria.where("memberId").is(memberId)), Cart.class).getDeletedCount();
+    }
+
+    @Override
+    public List<String> findStaleProductIds(Instant cutoff) {
+        return mongoTemplate.findDistinct(Query.query(stale(cutoff)), "productId", Cart.class, String.class);
+    }
+
+    @Override
+    public long updateSnapshots(List<String> productIds, Map<String, GetProductResponse> products,
+                                Instant cutoff, Instant now) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class);
+        for (String productId : productIds) {
+            GetProductResponse product = products.get(productId);
+            Update update = product != null
+                    ? new Update().set("productName", product.name()).set("price", product.price())
+                    : new Update().unset("productName").unset("price");
+            bulk.updateMulti(
+                    Query.query(Criteria.where("productId").is(productId).andOperator(stale(cutoff))),
+                    update.set("priceAsOf", now));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public List<String> findMemberIdsWithPriceChange(List<String> productIds,
+                                                     Map<String, GetProductResponse> products) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Criteria[] changed = productIds.stream()
+                .map(productId -> {
+                    GetProductResponse product = products.get(productId);
+                    BigDecimal price = product != null ? product.price() : null;
+                    return Criteria.where("productId").is(productId).and("price").ne(price);
+                })
+                .toArray(Criteria[]::new);
+        return mongoTemplate.findDistinct(Query.query(new Criteria().orOperator(changed)),
+                "memberId", Cart.class, String.class);
+    }
+
+    private static Criteria product(String memberId, String productId) {
+        return Criteria.where("memberId").is(memberId).and("productId").is(productId);
+    }
+
+    private static Query byProduct(String memberId, String productId) {
+        return Query.query(product(memberId, productId));
+    }
+
+    private static Update overwrite(Cart line) {
+        return snapshot(line).set("qty", line.getQty());
+    }
+
+    private static Update snapshot(Cart line) {
+        return new Update()
+                .set("productName", line.getProductName())
+                .set("price", line.getPrice())
+                .set("priceAsOf", line.getPriceAsOf())
+                .set("updatedAt", line.getUpdatedAt())
+                .setOnInsert("createdAt", line.getCreatedAt());
+    }
+
+    /**
+     * The line as written from {@code line}, keeping the id and createdAt of the line it replaced, if any.
+     */
+    private static Cart written(Cart line, Cart previous, ObjectId newId, int qty) {
+        return Cart.builder()
+                .id(previous != null ? previous.getId() : newId.toHexString())
+                .memberId(line.getMemberId())
+                .productId(line.getProductId())
+                .productName(line.getProductName())
+                .qty(qty)
+                .price(line.getPrice())
+                .priceAsOf(line.getPriceAsOf())
+                .createdAt(previous != null ? previous.getCreatedAt() : line.getCreatedAt())
+                .updatedAt(line.getUpdatedAt())
+                .build();
+    }
+
+    private static boolean isDuplicateKey(BulkWriteError error) {
+        return ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY;
+    }
+
+    private static Criteria stale(Instant cutoff) {
+        return new Criteria().orOperator(
+                Criteria.where("priceAsOf").is(null),
+                Criteria.where("priceAsOf").lt(cutoff));
+    }
+}
@@ -2,15 +2,30 @@ package com.example.cartservice.service;
 
 import com.example.cartservice.dto.AddToCartRequest;
 import com.example.cartservice.dto.AddToCartResponse;
+import com.example.cartservice.dto.AddToCartResult;
+import com.example.cartservice.dto.CartSummaryResponse;
+import com.example.cartservice.dto.ChangeQtyRequest;
 import com.example.cartservice.dto.GetCartResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface CartService {
 
     AddToCartResponse addToCart(String memberId, AddToCartRequest request);
 
+    List<AddToCartResult> bulkAddToCart(String memberId, List<AddToCartRequest> requests);
+
+    AddToCartResponse changeQty(String memberId, ChangeQtyRequest request);
+
     Page<GetCartResponse> getCart(String memberId, Pageable pageable);
 
-    boolean deleteFromCart(String id);
+    CartSummaryResponse getSummary(String memberId);
+
+    boolean deleteFromCart(String memberId, String id);
+
+    long removeFromCart(String memberId, List<String> ids);
+
+    long clearCart(String memberId);
 }
\ No newline at end of file
@@ -2,66 +2,67 @@ package com.example.cartservice.service;
 
 import com.example.cartservice.dto.AddToCartRequest;
 import com.example.cartservice.dto.AddToCartResponse;
+import com.example.cartservice.dto.AddToCartResult;
+import com.example.cartservice.dto.CartSummaryResponse;
+import com.example.cartservice.dto.ChangeQtyRequest;
 import com.example.cartservice.dto.GetCartResponse;
 import com.example.cartservice.dto.GetProductResponse;
 import com.example.cartservice.exception.BusinessException;
 import com.example.cartservice.model.Cart;
-import com.example.cartservice.repository.CartRepository;
+import com.example.cartservice.model.CartSummary;
+import com.example.cartservice.model.Money;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.repository.CartSummaryStore;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
 
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
 
-    private final RestTemplate restTemplate;
+    private final ProductCache productCache;
 
-    @Value("${product.service.base-url}")
-    @Setter
-    private String productServiceUrl;
+    private final ProductEnricher productEnricher;
 
-    @Override
-    public AddToCartResponse addToCart(String memberId, AddToCartRequest request) {
+    private final CartSummaryStore cartSummaryStore;
 
-        String productUrl = productServiceUrl + "/api/product/product-detail/" + request.productId();
+    private final QtyChangeCoalescer qtyChangeCoalescer;
 
-        try {
-            GetProductResponse product = restTemplate.getForObject(productUrl, GetProductResponse.class);
-            if (product == null) {
-                throw new BusinessException("PRODUCT_NOT_FOUND", "Product not found with id: " + request.productId());
-            }
-        } catch (HttpClientErrorException.NotFound ex) {
-            throw new BusinessException("PRODUCT_NOT_FOUND", "Product not found with id: " + request.productId());
-        }
+    @Override
+    public AddToCartResponse addToCart(String memberId, AddToCartRequest request) {
 
-        Cart cart = cartRepository
-                .findByMemberIdAndProductId(memberId, request.productId())
-                .map(existing -> {
-                    existing.setQty(request.qty());
-                    existing.setUpdatedAt(Instant.now());
-                    return existing;
-                })
-                .orElseGet(() -> Cart.builder()
-                        .memberId(memberId)
-                        .productId(request.productId())
-                        .qty(request.qty())
-                        .createdAt(Instant.now())
-                        .updatedAt(Instant.now())
-                        .build()
-                );
-
-        Cart saved = cartRepository.save(cart);
+        GetProductResponse product = productCache.get(request.productId())
+                .orElseThrow(() -> new BusinessException(
+                        "PRODUCT_NOT_FOUND", "Product not found with id: " + request.productId()));
+        Instant now = Instant.now();
+
+        String generation = cartSummaryStore.generation(memberId);
+        CartStore.SavedLine result = cartStore.saveLine(Cart.builder()
+                .memberId(memberId)
+                .productId(request.productId())
+                .productName(product.name())
+                .price(product.price())
+                .priceAsOf(now)
+                .qty(request.qty())
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        Cart saved = result.line();
+        cartSummaryStore.applyChange(memberId, generation, result.previous(), saved);
 
         return new AddToCartResponse(
                 saved.getId(),
@@ -71,34 +72,180 @@ public class CartServiceImpl implements CartService {
         );
     }
 
+    /**
+     * Same outcome as adding the items one by one: all products are looked up in one batched call, the
+     * lines are written in one bulk write and a product listed twice keeps the qty of its last item. Items
+     * whose product is not found are reported rather than failing the rest. The summary is rebuilt on next
+     * read, as the bulk write does not return the lines it replaced.
+     */
+    @Override
+    public List<AddToCartResult> bulkAddToCart(String memberId, List<AddToCartRequest> requests) {
+        Map<String, Integer> lastItem = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            lastItem.put(requests.get(i).productId(), i);
+        }
+        Map<String, GetProductResponse> products = productCache.getAll(lastItem.keySet());
+        Instant now = Instant.now();
+
+        List<Cart> lines = new ArrayList<>();
+        lastItem.forEach((productId, index) -> {
+            GetProductResponse product = products.get(productId);
+            if (product == null) return;
+            lines.add(Cart.builder()
+                    .memberId(memberId)
+                    .productId(productId)
+                    .productName(product.name())
+                    .price(product.price())
+                    .priceAsOf(now)
+                    .qty(requests.get(index).qty())
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build());
+        });
+
+        Map<String, String> lineIds = new HashMap<>();
+        if (!lines.isEmpty()) {
+            cartStore.saveLines(memberId, lines).forEach(line -> lineIds.put(line.getProductId(), line.getId()));
+            cartSummaryStore.invalidate(Set.of(memberId));
+        }
+
+        List<AddToCartResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            AddToCartRequest request = requests.get(i);
+            AddToCartResult.Status status = !products.containsKey(request.productId())
+                    ? AddToCartResult.Status.PRODUCT_NOT_FOUND
+                    : lastItem.get(request.productId()) == i
+                            ? AddToCartResult.Status.SAVED
+                            : AddToCartResult.Status.SUPERSEDED;
+            results.add(new AddToCartResult(
+                    lineIds.get(request.productId()),
+                    request.productId(),
+                    request.qty(),
+                    status
+            ));
+        }
+        return results;
+    }
+
+    /**
+     * Adds the delta to the line's qty in place, possibly merged with other changes to the same line made
+     * at the same time. The line is created by a positive delta and removed once its qty would drop below 1,
+     * in which case the response has qty 0.
+     */
+    @Override
+    public AddToCartResponse changeQty(String memberId, ChangeQtyRequest request) {
+        String productId = request.productId();
+        CartStore.SavedLine result = qtyChangeCoalescer.submit(memberId, productId, request.delta(),
+                delta -> writeQtyChange(memberId, productId, delta));
+
+        Cart line = result.line() != null ? result.line() : result.previous();
+        return new AddToCartResponse(
+                line != null ? line.getId() : null,
+                memberId,
+                productId,
+                result.line() != null ? result.line().getQty() : 0
+        );
+    }
+
+    private CartStore.SavedLine writeQtyChange(String memberId, String productId, int delta) {
+        Instant now = Instant.now();
+        Cart.CartBuilder line = Cart.builder()
+                .memberId(memberId)
+                .productId(productId)
+                .createdAt(now)
+                .updatedAt(now);
+        if (delta > 0) {
+            // only an increment can create the line, so only an increment needs the product
+            GetProductResponse product = productCache.get(productId)
+                    .orElseThrow(() -> new BusinessException(
+                            "PRODUCT_NOT_FOUND", "Product not found with id: " + productId));
+            line.productName(product.name()).price(product.price()).priceAsOf(now);
+        }
+
+        String generation = delta != 0 ? cartSummaryStore.generation(memberId) : null;
+        CartStore.SavedLine result = cartStore.changeQty(line.build(), delta);
+        if (delta != 0 && (result.line() != null || result.previous() != null)) {
+            cartSummaryStore.applyChange(memberId, generation, result.previous(), result.line());
+        }
+        return result;
+    }
+
+    /**
+     * Served from the snapshots on the cart lines. Only lines written before snapshots existed are
+     * looked up in product-service, under the enrichment deadline; the snapshot reconciler backfills
+     * those. Lines whose product could not be looked up in time come back degraded.
+     */
     @Override
     public Page<GetCartResponse> getCart(String memberId, Pageable pageable) {
-        return cartRepository.findByMemberId(memberId, pageable)
-                .map(cart -> {
-                    String productUrl = productServiceUrl + "/api/product/product-detail/" + cart.getProductId();
-                    GetProductResponse product = restTemplate.getForObject(productUrl, GetProductResponse.class);
-
-                    String productName = product != null ? product.name() : "Unknown Product";
-                    BigDecimal totalPrice = product != null
-                            ? product.price().multiply(BigDecimal.valueOf(cart.getQty()))
-                            : BigDecimal.ZERO;
-
-                    return new GetCartResponse(
-                            cart.getId(),
-                            cart.getMemberId(),
-                            cart.getProductId(),
-                            productName,
-                            cart.getQty(),
-                            totalPrice
-                    );
-                });
+        Page<Cart> carts = cartStore.findByMemberId(memberId, pageable);
+
+        List<String> unsnapshotted = carts.getContent().stream()
+                .filter(cart -> cart.getPriceAsOf() == null)
+                .map(Cart::getProductId)
+                .distinct()
+                .toList();
+        ProductEnricher.Enrichment enrichment = unsnapshotted.isEmpty()
+                ? new ProductEnricher.Enrichment(Map.of(), Set.of())
+                : productEnricher.enrich(unsnapshotted);
+
+        return carts.map(cart -> {
+            String productName = cart.getProductName();
+            BigDecimal price = cart.getPrice();
+            Instant priceAsOf = cart.getPriceAsOf();
+            boolean degraded = false;
+
+            if (priceAsOf == null) {
+                GetProductResponse product = enrichment.products().get(cart.getProductId());
+                degraded = enrichment.unresolved().contains(cart.getProductId());
+                productName = product != null ? product.name() : null;
+                price = product != null ? product.price() : null;
+            }
+
+            return new GetCartResponse(
+                    cart.getId(),
+                    cart.getMemberId(),
+                    cart.getProductId(),
+                    productName != null ? productName : "Unknown Product",
+                    cart.getQty(),
+                    price != null ? Money.toDecimal(Money.lineTotal(price, cart.getQty())) : BigDecimal.ZERO,
+                    priceAsOf,
+                    degraded
+            );
+        });
+    }
+
+    @Override
+    public CartSummaryResponse getSummary(String memberId) {
+        CartSummary summary = cartSummaryStore.find(memberId);
+        return new CartSummaryResponse(
+                memberId,
+                Money.toDecimal(summary.getSubtotalMinor()),
+                summary.getItemCount(),
+                summary.getLineCount()
+        );
     }
 
     @Override
-    public boolean deleteFromCart(String id) {
-        if (!cartRepository.existsById(id)) return false;
+    public boolean deleteFromCart(String memberId, String id) {
+        String generation = cartSummaryStore.generation(memberId);
+        Optional<Cart> removed = cartStore.deleteLine(memberId, id);
+        removed.ifPresent(line -> cartSummaryStore.applyChange(line.getMemberId(), generation, line, null));
+        return removed.isPresent();
+    }
 
-        cartRepository.deleteById(id);
-        return true;
+    @Override
+    public long removeFromCart(String memberId, List<String> ids) {
+        long removed = cartStore.deleteLines(memberId, ids);
+        if (removed > 0) {
+            cartSummaryStore.invalidate(Set.of(memberId));
+        }
+        return removed;
+    }
+
+    @Override
+    public long clearCart(String memberId) {
+        long removed = cartStore.deleteAllLines(memberId);
+        cartSummaryStore.invalidate(Set.of(memberId));
+        return removed;
     }
 }
\ No newline at end of file
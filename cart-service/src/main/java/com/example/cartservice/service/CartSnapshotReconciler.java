@@ -0,0 +1,89 @@
+package com.example.cartservice.service;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.repository.CartSummaryStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the productName/price snapshots on cart lines in line with product-service. Every run picks the
+ * products that have at least one line not confirmed within {@code stale-after-ms}, fetches them in batches
+ * and has the {@link CartStore} rewrite their stale lines with one bulk write per batch. Lines of products
+ * that no longer exist lose their snapshot, so getCart shows them as unknown. Members whose line prices
+ * change get their cart summary dropped, to be rebuilt at the new prices.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cart.snapshot-reconciler.enabled", havingValue = "true", matchIfMissing = true)
+public class CartSnapshotReconciler {
+
+    private final CartStore cartStore;
+    private final ProductCache productCache;
+    private final CartSummaryStore cartSummaryStore;
+    private final Duration staleAfter;
+    private final int batchSize;
+
+    private final Counter updatedDocuments;
+    private final Counter missingProducts;
+    private final Counter invalidatedSummaries;
+
+    public CartSnapshotReconciler(CartStore cartStore,
+                                  ProductCache productCache,
+                                  CartSummaryStore cartSummaryStore,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${cart.snapshot-reconciler.stale-after-ms:600000}") long staleAfterMs,
+                                  @Value("${cart.snapshot-reconciler.batch-size:100}") int batchSize) {
+        this.cartStore = cartStore;
+        this.productCache = productCache;
+        this.cartSummaryStore = cartSummaryStore;
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        this.batchSize = batchSize;
+        this.updatedDocuments = meterRegistry.counter("cart.snapshot-reconciler.updated-documents");
+        this.missingProducts = meterRegistry.counter("cart.snapshot-reconciler.missing-products");
+        this.invalidatedSummaries = meterRegistry.counter("cart.snapshot-reconciler.invalidated-summaries");
+    }
+
+    @Scheduled(initialDelayString = "${cart.snapshot-reconciler.interval-ms:60000}",
+            fixedDelayString = "${cart.snapshot-reconciler.interval-ms:60000}")
+    public void reconcile() {
+        Instant cutoff = Instant.now().minus(staleAfter);
+        List<String> productIds = cartStore.findStaleProductIds(cutoff);
+
+        for (int from = 0; from < productIds.size(); from += batchSize) {
+            List<String> batch = productIds.subList(from, Math.min(from + batchSize, productIds.size()));
+            try {
+                reconcile(batch, cutoff);
+            } catch (RestClientException ex) {
+                log.warn("Snapshot reconciliation stopped, product-service unavailable: {}", ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void reconcile(List<String> productIds, Instant cutoff) {
+        Map<String, GetProductResponse> products = productCache.refreshAll(productIds);
+
+        Set<String> repriced = new HashSet<>(cartStore.findMemberIdsWithPriceChange(productIds, products));
+        long modified = cartStore.updateSnapshots(productIds, products, cutoff, Instant.now());
+        cartSummaryStore.invalidate(repriced);
+
+        updatedDocuments.increment(modified);
+        invalidatedSummaries.increment(repriced.size());
+        missingProducts.increment(productIds.size() - products.size());
+        log.debug("Reconciled {} cart documents for {} products", modified, productIds.size());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cartservice.service;
+
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.model.CartItem;
+import com.example.cartservice.model.MemberCart;
+import com.example.cartservice.repository.CartSummaryStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Copies per-line carts documents into member_carts at startup in AGGREGATE mode. Lines are streamed in
+ * (memberId, productId) order, which the unique memberId_productId index serves, and merged into each member's
+ * document: a line is pushed only while the document has none for its product, so lines a member added in
+ * AGGREGATE mode meanwhile are kept and the migration can be re-run. Line ids are kept, so ids clients already
+ * hold still delete the right line. Only the summaries of members that gained lines are invalidated. The carts
+ * collection is left untouched for rollback.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cart.storage-migration.enabled", havingValue = "true")
+@ConditionalOnProperty(name = "cart.storage-mode", havingValue = "AGGREGATE")
+public class CartStorageMigration implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+    private final CartSummaryStore cartSummaryStore;
+    private final int batchSize;
+
+    public CartStorageMigration(MongoTemplate mongoTemplate,
+                                CartSummaryStore cartSummaryStore,
+                                @Value("${cart.storage-migration.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.cartSummaryStore = cartSummaryStore;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Query query = new Query().with(Sort.by("memberId", "productId"));
+
+        long lines = 0;
+        long changed = 0;
+        Map<String, Map<String, CartItem>> batch = new LinkedHashMap<>();
+        String memberId = null;
+
+        try (Stream<Cart> carts = mongoTemplate.stream(query, Cart.class)) {
+            for (Cart cart : (Iterable<Cart>) carts::iterator) {
+                if (!cart.getMemberId().equals(memberId) && batch.size() == batchSize) {
+                    changed += merge(batch);
+                    batch = new LinkedHashMap<>();
+                }
+                memberId = cart.getMemberId();
+                // concurrent adds could leave duplicate lines for a product; the latest one wins
+                batch.computeIfAbsent(memberId, id -> new LinkedHashMap<>())
+                        .merge(cart.getProductId(), toItem(cart), CartStorageMigration::newer);
+                lines++;
+            }
+        }
+        changed += merge(batch);
+        log.info("Migrated {} cart lines; {} members gained lines in member_carts", lines, changed);
+    }
+
+    /**
+     * Reads which products the members' documents already hold, creates the missing documents, then pushes each
+     * remaining line guarded on its product still being absent. Returns the number of members given lines.
+     */
+    private long merge(Map<String, Map<String, CartItem>> batch) {
+        if (batch.isEmpty()) return 0;
+
+        Query existing = Query.query(Criteria.where("_id").in(batch.keySet()));
+        existing.fields().include("items.productId");
+        Map<String, Set<String>> present = new HashMap<>();
+        for (MemberCart cart : mongoTemplate.find(existing, MemberCart.class)) {
+            Set<String> productIds = new HashSet<>();
+            cart.getItems().forEach(item -> productIds.add(item.getProductId()));
+            present.put(cart.getMemberId(), productIds);
+        }
+
+        Instant now = Instant.now();
+        BulkOperations create = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MemberCart.class);
+        BulkOperations push = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MemberCart.class);
+        List<String> changed = new ArrayList<>();
+        boolean creates = false;
+        for (Map.Entry<String, Map<String, CartItem>> member : batch.entrySet()) {
+            String memberId = member.getKey();
+            Set<String> productIds = present.get(memberId);
+            List<CartItem> missing = member.getValue().values().stream()
+                    .filter(item -> productIds == null || !productIds.contains(item.getProductId()))
+                    .toList();
+            if (missing.isEmpty()) continue;
+
+            if (productIds == null) {
+                create.upsert(Query.query(Criteria.where("_id").is(memberId)), new Update()
+                        .setOnInsert("items", List.of())
+                        .setOnInsert("createdAt", missing.get(0).getCreatedAt()));
+                creates = true;
+            }
+            for (CartItem item : missing) {
+                push.updateOne(Query.query(Criteria.where("_id").is(memberId)
+                                .and("items.productId").ne(item.getProductId())),
+                        new Update().push("items", item).set("updatedAt", now));
+            }
+            changed.add(memberId);
+        }
+        if (changed.isEmpty()) return 0;
+
+        if (creates) {
+            create.execute();
+        }
+        push.execute();
+        // the summaries of these members were kept over fewer lines
+        cartSummaryStore.invalidate(changed);
+        return changed.size();
+    }
+
+    private static CartItem newer(CartItem a, CartItem b) {
+        if (a.getUpdatedAt() == null) return b;
+        if (b.getUpdatedAt() == null) return a;
+        return b.getUpdatedAt().isAfter(a.getUpdatedAt()) ? b : a;
+    }
+
+    private static CartItem toItem(Cart cart) {
+        return CartItem.builder()
+                .lineId(cart.getId())
+                .productId(cart.getProductId())
+                .productName(cart.getProductName())
+                .qty(cart.getQty())
+                .price(cart.getPrice())
+                .priceAsOf(cart.getPriceAsOf())
+                .createdAt(cart.getCreatedAt())
+                .updatedAt(cart.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.cartservice.service;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded local copy of product-service lookups. Entries are refreshed in the background once they are
+ * older than {@code refresh-after-ms} and dropped after {@code ttl-ms}; ids product-service does not know
+ * are cached as empty for the shorter {@code negative-ttl-ms}. All loads, single or bulk, go through the
+ * product-details endpoint, where an unknown id is simply absent from the result. Concurrent misses on the same
+ * id wait for one load rather than each calling product-service.
+ */
+@Component
+public class ProductCache {
+
+    private final LoadingCache<String, Optional<GetProductResponse>> cache;
+    private final ProductLoader loader = new ProductLoader();
+    private final ExecutorService refresher;
+    private final RestTemplate restTemplate;
+    private final String productServiceUrl;
+
+    public ProductCache(RestTemplate restTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${product.service.base-url}") String productServiceUrl,
+                        @Value("${cart.product-cache.max-size:10000}") long maxSize,
+                        @Value("${cart.product-cache.ttl-ms:300000}") long ttlMs,
+                        @Value("${cart.product-cache.refresh-after-ms:60000}") long refreshAfterMs,
+                        @Value("${cart.product-cache.negative-ttl-ms:30000}") long negativeTtlMs,
+                        @Value("${cart.product-cache.refresh-threads:2}") int refreshThreads) {
+        this.restTemplate = restTemplate;
+        this.productServiceUrl = productServiceUrl;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.refresher = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-cache-refresh-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry(Duration.ofMillis(ttlMs), Duration.ofMillis(negativeTtlMs)))
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterMs))
+                .executor(refresher)
+                .recordStats()
+                .build(loader);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "cart.product");
+        meterRegistry.gauge("cart.product-cache.hit-ratio", cache, c -> c.stats().hitRate());
+        meterRegistry.gauge("cart.product-cache.negative-entries", cache, c -> c.asMap().values().stream()
+                .filter(Optional::isEmpty)
+                .count());
+    }
+
+    public Optional<GetProductResponse> get(String productId) {
+        return cache.get(productId);
+    }
+
+    /**
+     * Products for the given ids; ids product-service does not know are left out. Misses are fetched
+     * together in a single product-details call.
+     */
+    public Map<String, GetProductResponse> getAll(Collection<String> productIds) {
+        Map<String, GetProductResponse> products = new HashMap<>();
+        cache.getAll(productIds).forEach((id, product) -> product.ifPresent(p -> products.put(id, p)));
+        return products;
+    }
+
+    /**
+     * Whatever is cached for the given ids, without loading; an empty value marks a product known not to
+     * exist and ids that are not cached are absent.
+     */
+    public Map<String, Optional<GetProductResponse>> getAllPresent(Collection<String> productIds) {
+        return cache.getAllPresent(productIds);
+    }
+
+    /**
+     * Fetches the given ids from product-service regardless of what is cached and stores the result.
+     */
+    public Map<String, GetProductResponse> refreshAll(Collection<String> productIds) {
+        Map<String, Optional<GetProductResponse>> loaded = loader.loadAll(Set.copyOf(productIds));
+        cache.putAll(loaded);
+
+        Map<String, GetProductResponse> products = new HashMap<>();
+        loaded.forEach((id, product) -> product.ifPresent(p -> products.put(id, p)));
+        return products;
+    }
+
+    public void invalidate(String productId) {
+        cache.invalidate(productId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private class ProductLoader implements CacheLoader<String, Optional<GetProductResponse>> {
+
+        @Override
+        public Optional<GetProductResponse> load(String productId) {
+            return loadAll(Set.of(productId)).get(productId);
+        }
+
+        @Override
+        public Map<String, Optional<GetProductResponse>> loadAll(Set<? extends String> productIds) {
+            URI productsUri = UriComponentsBuilder.fromUriString(productServiceUrl)
+                    .path("/api/product/product-details")
+                    .queryParam("ids", String.join(",", productIds))
+                    .encode()
+                    .build()
+                    .toUri();
+            GetProductResponse[] found = restTemplate.getForObject(productsUri, GetProductResponse[].class);
+
+            Map<String, Optional<GetProductResponse>> products = new LinkedHashMap<>();
+            productIds.forEach(id -> products.put(id, Optional.empty()));
+            if (found != null) {
+                for (GetProductResponse product : found) {
+                    products.computeIfPresent(product.id(), (id, ignored) -> Optional.of(product));
+                }
+            }
+            return products;
+        }
+    }
+
+    private record EntryExpiry(Duration ttl, Duration negativeTtl)
+            implements Expiry<String, Optional<GetProductResponse>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<GetProductResponse> product, long currentTime) {
+            return (product.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<GetProductResponse> product,
+                                      long currentTime, long currentDuration) {
+            return expireAfterCreate(key, product, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<GetProductResponse> product,
+                                    long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
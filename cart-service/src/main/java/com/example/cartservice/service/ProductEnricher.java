@@ -0,0 +1,156 @@
+package com.example.cartservice.service;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Product lookups for cart reads under a per-request deadline. Cached products are answered inline; the
+ * misses are split into batches of {@code batch-size} that are fetched concurrently on a bounded pool.
+ * Batches that fail, are rejected by a full pool or are still running at the deadline leave their ids
+ * unresolved: with the DEGRADE fallback the caller gets the rest and marks those lines degraded, with FAIL
+ * the read fails. Fetches still running at the deadline are not cancelled, so they warm the cache for the
+ * next read.
+ */
+@Slf4j
+@Component
+public class ProductEnricher {
+
+    public enum Fallback {
+        DEGRADE,
+        FAIL
+    }
+
+    public record Enrichment(Map<String, GetProductResponse> products, Set<String> unresolved) {}
+
+    private final ProductCache productCache;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    private final Duration deadline;
+    private final Fallback fallback;
+
+    private final Counter partialResponses;
+    private final Counter unresolvedProducts;
+    private final Timer duration;
+
+    public ProductEnricher(ProductCache productCache,
+                           MeterRegistry meterRegistry,
+                           @Value("${cart.enrichment.threads:8}") int threads,
+                           @Value("${cart.enrichment.queue-capacity:64}") int queueCapacity,
+                           @Value("${cart.enrichment.batch-size:20}") int batchSize,
+                           @Value("${cart.enrichment.deadline-ms:1000}") long deadlineMs,
+                           @Value("${cart.enrichment.fallback:DEGRADE}") Fallback fallback) {
+        this.productCache = productCache;
+        this.batchSize = batchSize;
+        this.deadline = Duration.ofMillis(deadlineMs);
+        this.fallback = fallback;
+
+        AtomicInteger workers = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "cart-enrichment-" + workers.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.partialResponses = meterRegistry.counter("cart.enrichment.partial-responses");
+        this.unresolvedProducts = meterRegistry.counter("cart.enrichment.unresolved-products");
+        this.duration = meterRegistry.timer("cart.enrichment.duration");
+        meterRegistry.gauge("cart.enrichment.queue-size", executor, e -> e.getQueue().size());
+    }
+
+    /**
+     * Products for the given ids. Ids product-service does not know are simply absent; ids that could not
+     * be looked up in time are listed as unresolved.
+     */
+    public Enrichment enrich(Collection<String> productIds) {
+        long start = System.nanoTime();
+        Map<String, GetProductResponse> products = new HashMap<>();
+
+        List<String> misses = new ArrayList<>();
+        Map<String, Optional<GetProductResponse>> cached = productCache.getAllPresent(productIds);
+        for (String productId : productIds) {
+            Optional<GetProductResponse> product = cached.get(productId);
+            if (product == null) {
+                misses.add(productId);
+            } else {
+                product.ifPresent(p -> products.put(productId, p));
+            }
+        }
+        if (misses.isEmpty()) {
+            return new Enrichment(products, Set.of());
+        }
+
+        Map<List<String>, CompletableFuture<Map<String, GetProductResponse>>> batches = new LinkedHashMap<>();
+        for (int from = 0; from < misses.size(); from += batchSize) {
+            List<String> batch = misses.subList(from, Math.min(from + batchSize, misses.size()));
+            batches.put(batch, submit(batch));
+        }
+
+        long deadlineNanos = start + deadline.toNanos();
+        Set<String> unresolved = new HashSet<>();
+        for (Map.Entry<List<String>, CompletableFuture<Map<String, GetProductResponse>>> batch : batches.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadlineNanos - System.nanoTime());
+                products.putAll(batch.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException ex) {
+                unresolved.addAll(batch.getKey());
+                log.debug("Product lookup for {} products did not complete: {}", batch.getKey().size(),
+                        ex instanceof ExecutionException ? ex.getCause().toString() : "deadline exceeded");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                unresolved.addAll(batch.getKey());
+            }
+        }
+        duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (unresolved.isEmpty()) {
+            return new Enrichment(products, Set.of());
+        }
+        if (fallback == Fallback.FAIL) {
+            throw new BusinessException("PRODUCT_LOOKUP_INCOMPLETE",
+                    "Products could not be looked up within " + deadline.toMillis() + " ms");
+        }
+        partialResponses.increment();
+        unresolvedProducts.increment(unresolved.size());
+        return new Enrichment(products, unresolved);
+    }
+
+    private CompletableFuture<Map<String, GetProductResponse>> submit(List<String> batch) {
+        try {
+            return CompletableFuture.supplyAsync(() -> productCache.getAll(batch), executor);
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.cartservice.service;
+
+import com.example.cartservice.repository.CartStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+
+/**
+ * Merges bursts of qty changes to the same member's line into one write. The first change for a line opens
+ * a batch and, after {@code window-ms}, writes the sum of every delta that joined it; the other callers wait
+ * for that write and all get its result. There is no extra thread: the request that opened the batch does
+ * the waiting and the write. With {@code enabled=false} every change is written on its own.
+ */
+@Component
+public class QtyChangeCoalescer {
+
+    private record Key(String memberId, String productId) {}
+
+    private final ConcurrentMap<Key, Batch> open = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Duration window;
+
+    private final Counter mutations;
+    private final Counter writes;
+    private final DistributionSummary batchSize;
+
+    public QtyChangeCoalescer(MeterRegistry meterRegistry,
+                              @Value("${cart.qty-coalescing.enabled:false}") boolean enabled,
+                              @Value("${cart.qty-coalescing.window-ms:5}") long windowMs) {
+        this.enabled = enabled;
+        this.window = Duration.ofMillis(windowMs);
+
+        this.mutations = meterRegistry.counter("cart.qty-coalescing.mutations");
+        this.writes = meterRegistry.counter("cart.qty-coalescing.writes");
+        this.batchSize = meterRegistry.summary("cart.qty-coalescing.batch-size");
+        meterRegistry.gauge("cart.qty-coalescing.ratio", this,
+                c -> c.writes.count() == 0 ? 1.0 : c.mutations.count() / c.writes.count());
+    }
+
+    /**
+     * Applies {@code delta} to the member's line for the product through {@code write}, which is called with
+     * the merged delta of the batch and must not depend on anything but the delta.
+     */
+    public CartStore.SavedLine submit(String memberId, String productId, int delta,
+                                      IntFunction<CartStore.SavedLine> write) {
+        mutations.increment();
+        if (!enabled) {
+            return flush(1, delta, write);
+        }
+
+        Key key = new Key(memberId, productId);
+        while (true) {
+            Batch batch = new Batch(delta);
+            Batch current = open.putIfAbsent(key, batch);
+            if (current == null) {
+                return lead(key, batch, write);
+            }
+            if (current.join(delta)) {
+                return await(current);
+            }
+            // closed by its leader, which is about to remove it
+            open.remove(key, current);
+        }
+    }
+
+    private CartStore.SavedLine lead(Key key, Batch batch, IntFunction<CartStore.SavedLine> write) {
+        try {
+            Thread.sleep(window);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        open.remove(key, batch);
+        batch.close();
+
+        try {
+            CartStore.SavedLine result = flush(batch.size, batch.delta, write);
+            batch.result.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            batch.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private CartStore.SavedLine flush(int size, int delta, IntFunction<CartStore.SavedLine> write) {
+        writes.increment();
+        batchSize.record(size);
+        return write.apply(delta);
+    }
+
+    private static CartStore.SavedLine await(Batch batch) {
+        try {
+            return batch.result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    private static final class Batch {
+
+        private final CompletableFuture<CartStore.SavedLine> result = new CompletableFuture<>();
+        private int delta;
+        private int size = 1;
+        private boolean closed;
+
+        private Batch(int delta) {
+            this.delta = delta;
+        }
+
+        private synchronized boolean join(int delta) {
+            if (closed) return false;
+            this.delta += delta;
+            size++;
+            return true;
+        }
+
+        private synchronized void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.cartservice;
+
+import com.example.cartservice.config.MongoConfig;
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.repository.AggregateCartStore;
+import com.example.cartservice.repository.CartStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Adds, changes, deletes and pages lines of one member_carts document in an in-process MongoDB.
+ */
+class AggregateCartStoreTest {
+
+    private InProcessMongo mongo;
+    private AggregateCartStore cartStore;
+
+    @BeforeEach
+    void setup() {
+        mongo = new InProcessMongo();
+        new MongoConfig(mongo.mongoTemplate(), CartStore.Mode.AGGREGATE).initIndexes();
+        cartStore = new AggregateCartStore(mongo.mongoTemplate());
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    private static Cart line(String productId, int qty) {
+        Instant now = Instant.now();
+        return Cart.builder()
+                .memberId("member1")
+                .productId(productId)
+                .productName("Product " + productId)
+                .price(new BigDecimal("2.50"))
+                .priceAsOf(now)
+                .qty(qty)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static Cart line(String memberId, String productId, String price) {
+        Cart line = line(productId, 1);
+        line.setMemberId(memberId);
+        line.setPrice(new BigDecimal(price));
+        return line;
+    }
+
+    private static List<String> productIds(Page<Cart> page) {
+        return page.getContent().stream().map(Cart::getProductId).toList();
+    }
+
+    @Test
+    void testSaveLineCreatesThenOverwritesTheProductsLine() {
+        CartStore.SavedLine created = cartStore.saveLine(line("product1", 2));
+        CartStore.SavedLine overwritten = cartStore.saveLine(line("product1", 5));
+
+        assertNull(created.previous());
+        assertNotNull(created.line().getId());
+        assertEquals(created.line().getId(), overwritten.line().getId());
+        assertEquals(2, overwritten.previous().getQty());
+        assertEquals(5, overwritten.line().getQty());
+        assertEquals(1, cartStore.findAllByMemberId("member1").size());
+    }
+
+    @Test
+    void testChangeQtyIncrementsAndRemovesTheLineAtZero() {
+        cartStore.changeQty(line("product1", 0), 2);
+        CartStore.SavedLine incremented = cartStore.changeQty(line("product1", 0), 3);
+        CartStore.SavedLine decremented = cartStore.changeQty(line("product1", 0), -4);
+        CartStore.SavedLine removed = cartStore.changeQty(line("product1", 0), -1);
+
+        assertEquals(5, incremented.line().getQty());
+        assertEquals(1, decremented.line().getQty());
+        assertNull(removed.line());
+        assertEquals(1, removed.previous().getQty());
+        assertEquals(List.of(), cartStore.findAllByMemberId("member1"));
+        assertEquals(new CartStore.SavedLine(null, null), cartStore.changeQty(line("product1", 0), -1));
+    }
+
+    @Test
+    void testSaveLinesAddsAndOverwritesInOneDocument() {
+        cartStore.saveLine(line("product1", 1));
+
+        List<Cart> saved = cartStore.saveLines("member1", List.of(line("product1", 4), line("product2", 2)));
+
+        assertEquals(2, saved.size());
+        assertEquals(2, cartStore.findAllByMemberId("member1").size());
+        assertTrue(saved.stream().anyMatch(l -> l.getProductId().equals("product1") && l.getQty() == 4));
+    }
+
+    @Test
+    void testDeletesAreScopedToTheMembersLines() {
+        String first = cartStore.saveLine(line("product1", 1)).line().getId();
+        String second = cartStore.saveLine(line("product2", 1)).line().getId();
+        String third = cartStore.saveLine(line("product3", 1)).line().getId();
+
+        Optional<Cart> deleted = cartStore.deleteLine("member1", first);
+        assertEquals("product1", deleted.orElseThrow().getProductId());
+        assertTrue(cartStore.deleteLine("member1", first).isEmpty());
+        assertTrue(cartStore.deleteLine("member2", second).isEmpty());
+
+        assertEquals(1, cartStore.deleteLines("member1", Set.of(second, "unknown")));
+        assertEquals(1, cartStore.deleteAllLines("member1"));
+        assertEquals(0, cartStore.deleteAllLines("member1"));
+        assertTrue(cartStore.deleteLine("member1", third).isEmpty());
+    }
+
+    @Test
+    void testPagesAreOrderedByProductIdUnlessSorted() {
+        cartStore.saveLine(line("product3", 1));
+        cartStore.saveLine(line("product1", 3));
+        cartStore.saveLine(line("product2", 2));
+
+        Page<Cart> first = cartStore.findByMemberId("member1", PageRequest.of(0, 2));
+        Page<Cart> second = cartStore.findByMemberId("member1", PageRequest.of(1, 2));
+        Page<Cart> byQty = cartStore.findByMemberId("member1", PageRequest.of(0, 3, Sort.by("qty").descending()));
+
+        assertEquals(List.of("product1", "product2"), productIds(first));
+        assertEquals(List.of("product3"), productIds(second));
+        assertEquals(3, second.getTotalElements());
+        assertEquals(List.of("product1", "product2", "product3"), productIds(byQty));
+        assertEquals(List.of(), productIds(cartStore.findByMemberId("member2", PageRequest.of(0, 2))));
+    }
+
+    @Test
+    void testMembersWithPriceChangesAcrossProductsAreFoundInOneQuery() {
+        cartStore.saveLine(line("member1", "product1", "2.50"));
+        cartStore.saveLine(line("member2", "product1", "3.00"));
+        cartStore.saveLine(line("member3", "product2", "2.50"));
+        cartStore.saveLine(line("member4", "product3", "2.50"));
+        cartStore.saveLine(line("member5", "product4", "2.50"));
+
+        Map<String, GetProductResponse> products = Map.of(
+                "product1", new GetProductResponse("product1", "Product 1", null, null, new BigDecimal("2.50")),
+                "product2", new GetProductResponse("product2", "Product 2", null, null, new BigDecimal("2.00")));
+
+        List<String> repriced = cartStore.findMemberIdsWithPriceChange(
+                List.of("product1", "product2", "product3"), products);
+
+        assertEquals(Set.of("member2", "member3", "member4"), Set.copyOf(repriced));
+        assertEquals(List.of(), cartStore.findMemberIdsWithPriceChange(List.of(), products));
+    }
+}
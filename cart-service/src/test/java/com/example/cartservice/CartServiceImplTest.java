@@ -2,23 +2,32 @@ package com.example.cartservice;
 
 import com.example.cartservice.dto.AddToCartRequest;
 import com.example.cartservice.dto.AddToCartResponse;
+import com.example.cartservice.dto.AddToCartResult;
+import com.example.cartservice.dto.CartSummaryResponse;
+import com.example.cartservice.dto.ChangeQtyRequest;
 import com.example.cartservice.dto.GetCartResponse;
 import com.example.cartservice.dto.GetProductResponse;
 import com.example.cartservice.exception.BusinessException;
 import com.example.cartservice.model.Cart;
-import com.example.cartservice.repository.CartRepository;
+import com.example.cartservice.model.CartSummary;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.repository.CartSummaryStore;
 import com.example.cartservice.service.CartServiceImpl;
+import com.example.cartservice.service.ProductCache;
+import com.example.cartservice.service.ProductEnricher;
+import com.example.cartservice.service.QtyChangeCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.data.domain.*;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpStatus;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,10 +35,22 @@ import static org.mockito.Mockito.*;
 class CartServiceImplTest {
 
     @Mock
-    private CartRepository cartRepository;
+    private CartStore cartStore;
 
     @Mock
-    private RestTemplate restTemplate;
+    private ProductCache productCache;
+
+    @Mock
+    private ProductEnricher productEnricher;
+
+    @Mock
+    private CartSummaryStore cartSummaryStore;
+
+    @Spy
+    private QtyChangeCoalescer qtyChangeCoalescer = new QtyChangeCoalescer(new SimpleMeterRegistry(), false, 5);
+
+    @Captor
+    private ArgumentCaptor<List<Cart>> savedLines;
 
     @InjectMocks
     private CartServiceImpl cartService;
@@ -37,7 +58,7 @@ class CartServiceImplTest {
     @BeforeEach
     void setup() {
         MockitoAnnotations.openMocks(this);
-        cartService.setProductServiceUrl("http://localhost:8080");
+        when(cartSummaryStore.generation(anyString())).thenReturn("gen-1");
     }
 
     @Test
@@ -45,10 +66,8 @@ class CartServiceImplTest {
         String memberId = "member1";
         AddToCartRequest request = new AddToCartRequest("product1", 2);
 
-        when(restTemplate.getForObject(anyString(), eq(GetProductResponse.class)))
-                .thenReturn(new GetProductResponse("product1", "Test", "D", "CAT", BigDecimal.TEN));
-
-        when(cartRepository.findByMemberIdAndProductId(memberId, "product1")).thenReturn(Optional.empty());
+        when(productCache.get("product1"))
+                .thenReturn(Optional.of(new GetProductResponse("product1", "Test", "D", "CAT", BigDecimal.TEN)));
 
         Cart savedCart = Cart.builder()
                 .id("cart1")
@@ -59,7 +78,7 @@ class CartServiceImplTest {
                 .updatedAt(Instant.now())
                 .build();
 
-        when(cartRepository.save(any(Cart.class))).thenReturn(savedCart);
+        when(cartStore.saveLine(any(Cart.class))).thenReturn(new CartStore.SavedLine(savedCart, null));
 
         AddToCartResponse response = cartService.addToCart(memberId, request);
 
@@ -68,8 +87,15 @@ class CartServiceImplTest {
         assertEquals("product1", response.productId());
         assertEquals(2, response.qty());
 
-        verify(cartRepository).findByMemberIdAndProductId(memberId, "product1");
-        verify(cartRepository).save(any(Cart.class));
+        ArgumentCaptor<Cart> saved = ArgumentCaptor.forClass(Cart.class);
+        verify(cartStore).saveLine(saved.capture());
+        assertEquals(memberId, saved.getValue().getMemberId());
+        assertEquals("product1", saved.getValue().getProductId());
+        assertEquals(2, saved.getValue().getQty());
+        assertEquals("Test", saved.getValue().getProductName());
+        assertEquals(BigDecimal.TEN, saved.getValue().getPrice());
+        assertNotNull(saved.getValue().getPriceAsOf());
+        verify(cartSummaryStore).applyChange(memberId, "gen-1", null, savedCart);
     }
 
     @Test
@@ -77,27 +103,32 @@ class CartServiceImplTest {
         String memberId = "member1";
         AddToCartRequest request = new AddToCartRequest("product1", 5);
 
-        when(restTemplate.getForObject(anyString(), eq(GetProductResponse.class)))
-                .thenReturn(new GetProductResponse("product1", "Test", "D", "CAT", BigDecimal.TEN));
+        when(productCache.get("product1"))
+                .thenReturn(Optional.of(new GetProductResponse("product1", "Test", "D", "CAT", BigDecimal.TEN)));
 
-        Cart existingCart = Cart.builder()
+        Cart updatedCart = Cart.builder()
                 .id("cart1")
                 .memberId(memberId)
                 .productId("product1")
-                .qty(2)
+                .qty(5)
                 .createdAt(Instant.now())
                 .updatedAt(Instant.now())
                 .build();
 
-        when(cartRepository.findByMemberIdAndProductId(memberId, "product1"))
-                .thenReturn(Optional.of(existingCart));
+        Cart previousCart = Cart.builder()
+                .id("cart1")
+                .memberId(memberId)
+                .productId("product1")
+                .qty(2)
+                .build();
 
-        when(cartRepository.save(existingCart)).thenReturn(existingCart);
+        when(cartStore.saveLine(any(Cart.class))).thenReturn(new CartStore.SavedLine(updatedCart, previousCart));
 
         AddToCartResponse response = cartService.addToCart(memberId, request);
 
+        assertEquals("cart1", response.id());
         assertEquals(5, response.qty());
-        verify(cartRepository).save(existingCart);
+        verify(cartSummaryStore).applyChange(memberId, "gen-1", previousCart, updatedCart);
     }
 
     @Test
@@ -105,14 +136,7 @@ class CartServiceImplTest {
         String memberId = "member1";
         AddToCartRequest request = new AddToCartRequest("productX", 1);
 
-        when(restTemplate.getForObject(anyString(), eq(GetProductResponse.class)))
-                .thenThrow(HttpClientErrorException.create(
-                        HttpStatus.NOT_FOUND,
-                        "Not Found",
-                        null,
-                        null,
-                        null
-                ));
+        when(productCache.get("productX")).thenReturn(Optional.empty());
 
         BusinessException ex = assertThrows(
                 BusinessException.class,
@@ -120,9 +144,94 @@ class CartServiceImplTest {
         );
 
         assertEquals("PRODUCT_NOT_FOUND", ex.getCode());
+        verify(cartStore, never()).saveLine(any(Cart.class));
+        verifyNoInteractions(cartSummaryStore);
     }
 
 
+    @Test
+    void testBulkAddToCart() {
+        when(productCache.getAll(Set.of("product1", "product2", "missing"))).thenReturn(Map.of(
+                "product1", new GetProductResponse("product1", "Laptop", "D", "CAT", BigDecimal.TEN),
+                "product2", new GetProductResponse("product2", "Mouse", "D", "CAT", BigDecimal.ONE)));
+        when(cartStore.saveLines(eq("member1"), anyList())).thenReturn(List.of(
+                Cart.builder().id("cart1").memberId("member1").productId("product1").qty(3).build(),
+                Cart.builder().id("cart2").memberId("member1").productId("product2").qty(1).build()));
+
+        List<AddToCartResult> results = cartService.bulkAddToCart("member1", List.of(
+                new AddToCartRequest("product1", 1),
+                new AddToCartRequest("product2", 1),
+                new AddToCartRequest("missing", 4),
+                new AddToCartRequest("product1", 3)));
+
+        assertEquals(List.of(
+                new AddToCartResult("cart1", "product1", 1, AddToCartResult.Status.SUPERSEDED),
+                new AddToCartResult("cart2", "product2", 1, AddToCartResult.Status.SAVED),
+                new AddToCartResult(null, "missing", 4, AddToCartResult.Status.PRODUCT_NOT_FOUND),
+                new AddToCartResult("cart1", "product1", 3, AddToCartResult.Status.SAVED)), results);
+
+        verify(cartStore).saveLines(eq("member1"), savedLines.capture());
+        assertEquals(List.of("product1", "product2"),
+                savedLines.getValue().stream().map(Cart::getProductId).toList());
+        assertEquals(3, savedLines.getValue().get(0).getQty());
+        assertEquals(BigDecimal.TEN, savedLines.getValue().get(0).getPrice());
+        verify(productCache, never()).get(anyString());
+        verify(cartSummaryStore).invalidate(Set.of("member1"));
+    }
+
+    @Test
+    void testBulkAddToCart_NoProductFound() {
+        when(productCache.getAll(Set.of("missing"))).thenReturn(Map.of());
+
+        List<AddToCartResult> results = cartService.bulkAddToCart("member1",
+                List.of(new AddToCartRequest("missing", 1)));
+
+        assertEquals(AddToCartResult.Status.PRODUCT_NOT_FOUND, results.get(0).status());
+        verify(cartStore, never()).saveLines(anyString(), anyList());
+        verifyNoInteractions(cartSummaryStore);
+    }
+
+    @Test
+    void testChangeQtyIncrementsInPlace() {
+        when(productCache.get("product1"))
+                .thenReturn(Optional.of(new GetProductResponse("product1", "Test", "D", "CAT", BigDecimal.TEN)));
+        Cart previous = Cart.builder().id("cart1").memberId("member1").productId("product1").qty(2).build();
+        Cart changed = Cart.builder().id("cart1").memberId("member1").productId("product1").qty(3).build();
+        when(cartStore.changeQty(any(Cart.class), eq(1))).thenReturn(new CartStore.SavedLine(changed, previous));
+
+        AddToCartResponse response = cartService.changeQty("member1", new ChangeQtyRequest("product1", 1));
+
+        assertEquals(new AddToCartResponse("cart1", "member1", "product1", 3), response);
+        ArgumentCaptor<Cart> line = ArgumentCaptor.forClass(Cart.class);
+        verify(cartStore).changeQty(line.capture(), eq(1));
+        assertEquals(BigDecimal.TEN, line.getValue().getPrice());
+        verify(cartStore, never()).saveLine(any(Cart.class));
+        verify(cartSummaryStore).applyChange("member1", "gen-1", previous, changed);
+    }
+
+    @Test
+    void testChangeQtyDecrementBelowOneRemovesLine() {
+        Cart previous = Cart.builder().id("cart1").memberId("member1").productId("product1").qty(1).build();
+        when(cartStore.changeQty(any(Cart.class), eq(-1))).thenReturn(new CartStore.SavedLine(null, previous));
+
+        AddToCartResponse response = cartService.changeQty("member1", new ChangeQtyRequest("product1", -1));
+
+        assertEquals(new AddToCartResponse("cart1", "member1", "product1", 0), response);
+        verifyNoInteractions(productCache);
+        verify(cartSummaryStore).applyChange("member1", "gen-1", previous, null);
+    }
+
+    @Test
+    void testChangeQty_ProductNotFound() {
+        when(productCache.get("missing")).thenReturn(Optional.empty());
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> cartService.changeQty("member1", new ChangeQtyRequest("missing", 1)));
+
+        assertEquals("PRODUCT_NOT_FOUND", ex.getCode());
+        verify(cartStore, never()).changeQty(any(Cart.class), anyInt());
+    }
+
     @Test
     void testGetCart() {
         String memberId = "member1";
@@ -135,9 +244,9 @@ class CartServiceImplTest {
                 .build();
 
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Cart> page = new PageImpl<>(java.util.List.of(cart1), pageable, 1);
+        Page<Cart> page = new PageImpl<>(List.of(cart1), pageable, 1);
 
-        when(cartRepository.findByMemberId(memberId, pageable)).thenReturn(page);
+        when(cartStore.findByMemberId(memberId, pageable)).thenReturn(page);
 
         GetProductResponse productResponse = new GetProductResponse(
                 "product1",
@@ -147,19 +256,19 @@ class CartServiceImplTest {
                 new BigDecimal("100")
         );
 
-        when(restTemplate.getForObject("http://localhost:8080/api/product/product-detail/product1", GetProductResponse.class))
-                .thenReturn(productResponse);
+        when(productEnricher.enrich(List.of("product1")))
+                .thenReturn(new ProductEnricher.Enrichment(Map.of("product1", productResponse), Set.of()));
 
         Page<GetCartResponse> result = cartService.getCart(memberId, pageable);
 
         assertEquals(1, result.getTotalElements());
         GetCartResponse item = result.getContent().get(0);
         assertEquals("Laptop", item.productName());
-        assertEquals(new BigDecimal("200"), item.totalPrice());
+        assertEquals(new BigDecimal("200.00"), item.totalPrice());
     }
 
     @Test
-    void testGetCart_ProductServiceReturnsNull() {
+    void testGetCart_ProductNotFound() {
         String memberId = "member1";
 
         Cart cart1 = Cart.builder()
@@ -170,12 +279,11 @@ class CartServiceImplTest {
                 .build();
 
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Cart> page = new PageImpl<>(java.util.List.of(cart1), pageable, 1);
+        Page<Cart> page = new PageImpl<>(List.of(cart1), pageable, 1);
 
-        when(cartRepository.findByMemberId(memberId, pageable)).thenReturn(page);
+        when(cartStore.findByMemberId(memberId, pageable)).thenReturn(page);
 
-        when(restTemplate.getForObject(anyString(), eq(GetProductResponse.class)))
-                .thenReturn(null);
+        when(productEnricher.enrich(List.of("productX"))).thenReturn(new ProductEnricher.Enrichment(Map.of(), Set.of()));
 
         Page<GetCartResponse> result = cartService.getCart(memberId, pageable);
 
@@ -183,26 +291,147 @@ class CartServiceImplTest {
 
         assertEquals("Unknown Product", item.productName());
         assertEquals(BigDecimal.ZERO, item.totalPrice());
+        assertFalse(item.degraded());
     }
 
     @Test
-    void testDeleteFromCartSuccess() {
-        when(cartRepository.existsById("cart1")).thenReturn(true);
-        doNothing().when(cartRepository).deleteById("cart1");
+    void testGetCart_ServedFromSnapshots() {
+        String memberId = "member1";
+        Instant priceAsOf = Instant.parse("2026-01-01T00:00:00Z");
 
-        boolean result = cartService.deleteFromCart("cart1");
+        Cart cart1 = Cart.builder()
+                .id("cart1")
+                .memberId(memberId)
+                .productId("product1")
+                .productName("Laptop")
+                .price(new BigDecimal("100"))
+                .priceAsOf(priceAsOf)
+                .qty(3)
+                .build();
+
+        Pageable pageable = PageRequest.of(0, 10);
+        when(cartStore.findByMemberId(memberId, pageable))
+                .thenReturn(new PageImpl<>(List.of(cart1), pageable, 1));
 
-        assertTrue(result);
-        verify(cartRepository).deleteById("cart1");
+        GetCartResponse item = cartService.getCart(memberId, pageable).getContent().get(0);
+
+        assertEquals("Laptop", item.productName());
+        assertEquals(new BigDecimal("300.00"), item.totalPrice());
+        assertEquals(priceAsOf, item.priceAsOf());
+        assertFalse(item.degraded());
+        verifyNoInteractions(productCache, productEnricher);
+    }
+
+    @Test
+    void testGetCart_BatchesProductLookups() {
+        String memberId = "member1";
+
+        Cart cart1 = Cart.builder().id("cart1").memberId(memberId).productId("product1").qty(2).build();
+        Cart cart2 = Cart.builder().id("cart2").memberId(memberId).productId("product2").qty(1).build();
+        Cart cart3 = Cart.builder().id("cart3").memberId(memberId).productId("productX").qty(4).build();
+
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<Cart> page = new PageImpl<>(List.of(cart1, cart2, cart3), pageable, 3);
+
+        when(cartStore.findByMemberId(memberId, pageable)).thenReturn(page);
+
+        when(productEnricher.enrich(List.of("product1", "product2", "productX")))
+                .thenReturn(new ProductEnricher.Enrichment(Map.of(
+                        "product1", new GetProductResponse("product1", "Laptop", "D", "ELECTRONICS", new BigDecimal("100")),
+                        "product2", new GetProductResponse("product2", "Mouse", "D", "ELECTRONICS", new BigDecimal("5"))
+                ), Set.of()));
+
+        Page<GetCartResponse> result = cartService.getCart(memberId, pageable);
+
+        assertEquals(new BigDecimal("200.00"), result.getContent().get(0).totalPrice());
+        assertEquals("Mouse", result.getContent().get(1).productName());
+        assertEquals("Unknown Product", result.getContent().get(2).productName());
+        assertEquals(BigDecimal.ZERO, result.getContent().get(2).totalPrice());
+
+        verify(productEnricher, times(1)).enrich(List.of("product1", "product2", "productX"));
+    }
+
+    @Test
+    void testGetCart_DegradesLinesWithUnresolvedProducts() {
+        String memberId = "member1";
+
+        Cart cart1 = Cart.builder().id("cart1").memberId(memberId).productId("product1").qty(2).build();
+        Cart cart2 = Cart.builder().id("cart2").memberId(memberId).productId("product2").qty(1).build();
+
+        Pageable pageable = PageRequest.of(0, 10);
+        when(cartStore.findByMemberId(memberId, pageable))
+                .thenReturn(new PageImpl<>(List.of(cart1, cart2), pageable, 2));
+
+        when(productEnricher.enrich(List.of("product1", "product2")))
+                .thenReturn(new ProductEnricher.Enrichment(Map.of(
+                        "product1", new GetProductResponse("product1", "Laptop", "D", "ELECTRONICS", new BigDecimal("100"))
+                ), Set.of("product2")));
+
+        Page<GetCartResponse> result = cartService.getCart(memberId, pageable);
+
+        assertEquals("Laptop", result.getContent().get(0).productName());
+        assertFalse(result.getContent().get(0).degraded());
+        assertEquals("Unknown Product", result.getContent().get(1).productName());
+        assertEquals(BigDecimal.ZERO, result.getContent().get(1).totalPrice());
+        assertTrue(result.getContent().get(1).degraded());
+    }
+
+    @Test
+    void testDeleteFromCart() {
+        Cart removed = Cart.builder().id("cart1").memberId("member1").productId("product1").qty(2).build();
+        when(cartStore.deleteLine("member1", "cart1")).thenReturn(Optional.of(removed));
+
+        assertTrue(cartService.deleteFromCart("member1", "cart1"));
+        verify(cartStore).deleteLine("member1", "cart1");
+        verify(cartSummaryStore).applyChange("member1", "gen-1", removed, null);
     }
 
     @Test
     void testDeleteFromCartNotFound() {
-        when(cartRepository.existsById("cart1")).thenReturn(false);
+        when(cartStore.deleteLine("member1", "cart1")).thenReturn(Optional.empty());
+
+        assertFalse(cartService.deleteFromCart("member1", "cart1"));
+        verify(cartSummaryStore, never()).applyChange(any(), any(), any(), any());
+    }
+
+    @Test
+    void testRemoveFromCart() {
+        when(cartStore.deleteLines("member1", List.of("cart1", "cart2"))).thenReturn(2L);
+
+        assertEquals(2, cartService.removeFromCart("member1", List.of("cart1", "cart2")));
+        verify(cartSummaryStore).invalidate(Set.of("member1"));
+    }
 
-        boolean result = cartService.deleteFromCart("cart1");
+    @Test
+    void testRemoveFromCartNothingRemoved() {
+        when(cartStore.deleteLines("member1", List.of("cart9"))).thenReturn(0L);
+
+        assertEquals(0, cartService.removeFromCart("member1", List.of("cart9")));
+        verifyNoInteractions(cartSummaryStore);
+    }
 
-        assertFalse(result);
-        verify(cartRepository, never()).deleteById(anyString());
+    @Test
+    void testClearCart() {
+        when(cartStore.deleteAllLines("member1")).thenReturn(3L);
+
+        assertEquals(3, cartService.clearCart("member1"));
+        verify(cartSummaryStore).invalidate(Set.of("member1"));
+    }
+
+    @Test
+    void testGetSummary() {
+        when(cartSummaryStore.find("member1")).thenReturn(CartSummary.builder()
+                .memberId("member1")
+                .subtotalMinor(123_45)
+                .itemCount(7)
+                .lineCount(3)
+                .build());
+
+        CartSummaryResponse summary = cartService.getSummary("member1");
+
+        assertEquals(new BigDecimal("123.45"), summary.subtotal());
+        assertEquals(7, summary.itemCount());
+        assertEquals(3, summary.lineCount());
+        verifyNoInteractions(cartStore);
     }
-}
\ No newline at end of file
+}
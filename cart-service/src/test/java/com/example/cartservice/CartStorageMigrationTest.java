@@ -0,0 +1,126 @@
+package com.example.cartservice;
+
+import com.example.cartservice.config.MongoConfig;
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.model.CartSummary;
+import com.example.cartservice.repository.AggregateCartStore;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.repository.CartSummaryStore;
+import com.example.cartservice.service.CartStorageMigration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Migrates lines written in LINES mode into member_carts while members already have aggregate carts.
+ */
+class CartStorageMigrationTest {
+
+    private InProcessMongo mongo;
+    private MongoTemplate mongoTemplate;
+    private AggregateCartStore cartStore;
+    private CartSummaryStore summaryStore;
+
+    @BeforeEach
+    void setup() {
+        mongo = new InProcessMongo();
+        mongoTemplate = mongo.mongoTemplate();
+        new MongoConfig(mongoTemplate, CartStore.Mode.LINES).initIndexes();
+        new MongoConfig(mongoTemplate, CartStore.Mode.AGGREGATE).initIndexes();
+        cartStore = new AggregateCartStore(mongoTemplate);
+        summaryStore = new CartSummaryStore(mongoTemplate, cartStore, new SimpleMeterRegistry(), 3_600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    private static Cart line(String memberId, String productId, int qty) {
+        Instant now = Instant.now();
+        return Cart.builder()
+                .memberId(memberId)
+                .productId(productId)
+                .productName("Product " + productId)
+                .price(new BigDecimal("2.50"))
+                .priceAsOf(now)
+                .qty(qty)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    /** a line as LINES mode stored it in the carts collection */
+    private Cart stored(String memberId, String productId, int qty) {
+        return mongoTemplate.insert(line(memberId, productId, qty));
+    }
+
+    private void migrate(int batchSize) {
+        new CartStorageMigration(mongoTemplate, summaryStore, batchSize).run(null);
+    }
+
+    private Map<String, Integer> qtyByProduct(String memberId) {
+        return cartStore.findAllByMemberId(memberId).stream()
+                .collect(Collectors.toMap(Cart::getProductId, Cart::getQty));
+    }
+
+    private boolean summaryIsStale(String memberId) {
+        CartSummary summary = mongoTemplate.findById(memberId, CartSummary.class);
+        return summary == null || summary.isStale();
+    }
+
+    @Test
+    void testLinesAreMergedIntoCartsMembersAlreadyHave() {
+        Cart kept = stored("member1", "product1", 1);
+        stored("member1", "product2", 2);
+        stored("member2", "product1", 1);
+        stored("member2", "product2", 4);
+        // member2 added product1 in AGGREGATE mode before the migration ran
+        cartStore.saveLine(line("member2", "product1", 5));
+        cartStore.saveLine(line("member2", "product3", 1));
+
+        migrate(1);
+
+        assertEquals(Map.of("product1", 1, "product2", 2), qtyByProduct("member1"));
+        assertEquals(Map.of("product1", 5, "product2", 4, "product3", 1), qtyByProduct("member2"));
+        // line ids clients already hold still address the same line
+        assertTrue(cartStore.findAllByMemberId("member1").stream().anyMatch(l -> l.getId().equals(kept.getId())));
+    }
+
+    @Test
+    void testRerunChangesNothingAndKeepsSummaries() {
+        stored("member1", "product1", 1);
+        stored("member2", "product1", 3);
+        migrate(1000);
+        summaryStore.find("member1");
+        summaryStore.find("member2");
+
+        stored("member2", "product2", 2);
+        migrate(1000);
+
+        assertEquals(1, cartStore.findAllByMemberId("member1").size());
+        assertEquals(Map.of("product1", 3, "product2", 2), qtyByProduct("member2"));
+        assertFalse(summaryIsStale("member1"));
+        assertTrue(summaryIsStale("member2"));
+        CartSummary rebuilt = summaryStore.find("member2");
+        assertEquals(5, rebuilt.getItemCount());
+        assertEquals(2, rebuilt.getLineCount());
+    }
+
+    @Test
+    void testNothingToMigrate() {
+        migrate(10);
+
+        assertEquals(List.of(), cartStore.findAllByMemberId("member1"));
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.cartservice;
+
+import com.example.cartservice.config.MongoConfig;
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.model.CartSummary;
+import com.example.cartservice.model.Money;
+import com.example.cartservice.repository.AggregateCartStore;
+import com.example.cartservice.repository.CartRepository;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.repository.CartSummaryStore;
+import com.example.cartservice.repository.LineCartStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Drives both storage modes against an in-process MongoDB and checks the incrementally kept summary against
+ * one rebuilt from the lines.
+ */
+class CartSummaryStoreTest {
+
+    private InProcessMongo mongo;
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private CartStore cartStore;
+    private CartSummaryStore summaryStore;
+
+    @BeforeEach
+    void setup() {
+        mongo = new InProcessMongo();
+        mongoTemplate = mongo.mongoTemplate();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    private void useMode(CartStore.Mode mode) {
+        new MongoConfig(mongoTemplate, mode).initIndexes();
+        cartStore = mode == CartStore.Mode.LINES
+                ? new LineCartStore(mock(CartRepository.class), mongoTemplate)
+                : new AggregateCartStore(mongoTemplate);
+        summaryStore = new CartSummaryStore(mongoTemplate, cartStore, meterRegistry, 3_600_000);
+    }
+
+    private static Cart line(String memberId, String productId, String price, int qty) {
+        Instant now = Instant.now();
+        return Cart.builder()
+                .memberId(memberId)
+                .productId(productId)
+                .productName("Product " + productId)
+                .price(price != null ? new BigDecimal(price) : null)
+                .priceAsOf(price != null ? now : null)
+                .qty(qty)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private Cart add(Cart line) {
+        String generation = summaryStore.generation(line.getMemberId());
+        CartStore.SavedLine saved = cartStore.saveLine(line);
+        summaryStore.applyChange(line.getMemberId(), generation, saved.previous(), saved.line());
+        return saved.line();
+    }
+
+    private void delete(String memberId, String lineId) {
+        String generation = summaryStore.generation(memberId);
+        cartStore.deleteLine(memberId, lineId)
+                .ifPresent(removed -> summaryStore.applyChange(memberId, generation, removed, null));
+    }
+
+    private static void assertSummary(CartSummary summary, long subtotalMinor, long items, int lines) {
+        assertEquals(subtotalMinor, summary.getSubtotalMinor());
+        assertEquals(items, summary.getItemCount());
+        assertEquals(lines, summary.getLineCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testSummaryFollowsAddsOverwritesAndDeletes(CartStore.Mode mode) {
+        useMode(mode);
+
+        Cart laptop = add(line("member1", "p1", "999.99", 1));
+        add(line("member1", "p2", "5.25", 4));
+        assertSummary(summaryStore.find("member1"), 999_99 + 4 * 5_25, 5, 2);
+
+        add(line("member1", "p2", "5.25", 2));
+        assertSummary(summaryStore.find("member1"), 999_99 + 2 * 5_25, 3, 2);
+
+        delete("member1", laptop.getId());
+        delete("member1", laptop.getId());
+        assertSummary(summaryStore.find("member1"), 2 * 5_25, 2, 1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testDeletesOnlyTouchTheCallersLines(CartStore.Mode mode) {
+        useMode(mode);
+        Cart own1 = add(line("member1", "p1", "1.00", 1));
+        Cart own2 = add(line("member1", "p2", "2.00", 1));
+        add(line("member1", "p3", "3.00", 1));
+        Cart other = add(line("member2", "p1", "1.00", 5));
+
+        assertTrue(cartStore.deleteLine("member1", other.getId()).isEmpty());
+        assertEquals(1, cartStore.deleteLines("member1", List.of(own1.getId(), own2.getId() + "x", other.getId())));
+        summaryStore.invalidate(Set.of("member1"));
+        assertSummary(summaryStore.find("member1"), 5_00, 2, 2);
+
+        assertEquals(2, cartStore.deleteAllLines("member1"));
+        summaryStore.invalidate(Set.of("member1"));
+        assertSummary(summaryStore.find("member1"), 0, 0, 0);
+        assertSummary(summaryStore.find("member2"), 5_00, 5, 1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testSaveLinesCreatesAndOverwritesInOneCall(CartStore.Mode mode) {
+        useMode(mode);
+        Cart existing = add(line("member1", "p1", "1.00", 1));
+        add(line("member2", "p2", "9.00", 9));
+
+        List<Cart> saved = cartStore.saveLines("member1", List.of(
+                line("member1", "p1", "1.50", 4),
+                line("member1", "p2", "2.00", 2)));
+
+        assertEquals(2, saved.size());
+        Cart overwritten = saved.stream().filter(l -> l.getProductId().equals("p1")).findFirst().orElseThrow();
+        assertEquals(existing.getId(), overwritten.getId());
+        assertEquals(4, overwritten.getQty());
+        assertEquals(0, new BigDecimal("1.50").compareTo(overwritten.getPrice()));
+        assertEquals(2, cartStore.findAllByMemberId("member1").size());
+
+        summaryStore.invalidate(Set.of("member1"));
+        assertSummary(summaryStore.find("member1"), 4 * 1_50 + 2 * 2_00, 6, 2);
+        assertSummary(summaryStore.find("member2"), 9 * 9_00, 9, 1);
+
+        cartStore.saveLines("member3", List.of(line("member3", "p1", "1.00", 1)));
+        assertEquals(1, cartStore.findAllByMemberId("member3").size());
+    }
+
+    private CartStore.SavedLine changeQty(String memberId, String productId, int delta) {
+        String generation = summaryStore.generation(memberId);
+        CartStore.SavedLine changed = cartStore.changeQty(line(memberId, productId, "2.50", 0), delta);
+        if (changed.line() != null || changed.previous() != null) {
+            summaryStore.applyChange(memberId, generation, changed.previous(), changed.line());
+        }
+        return changed;
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testChangeQtyIncrementsInPlaceAndRemovesBelowOne(CartStore.Mode mode) {
+        useMode(mode);
+
+        Cart created = changeQty("member1", "p1", 2).line();
+        assertEquals(2, created.getQty());
+        CartStore.SavedLine incremented = changeQty("member1", "p1", 3);
+        assertEquals(created.getId(), incremented.line().getId());
+        assertEquals(2, incremented.previous().getQty());
+        assertEquals(5, incremented.line().getQty());
+        assertEquals(4, changeQty("member1", "p1", -1).line().getQty());
+        assertEquals(4, cartStore.changeQty(line("member1", "p1", null, 0), 0).line().getQty());
+        assertSummary(summaryStore.find("member1"), 4 * 2_50, 4, 1);
+
+        CartStore.SavedLine removed = changeQty("member1", "p1", -10);
+        assertNull(removed.line());
+        assertEquals(created.getId(), removed.previous().getId());
+        assertTrue(cartStore.findAllByMemberId("member1").isEmpty());
+        assertSummary(summaryStore.find("member1"), 0, 0, 0);
+
+        CartStore.SavedLine missing = changeQty("member1", "p1", -1);
+        assertNull(missing.line());
+        assertNull(missing.previous());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testParallelQtyChangesAreNotLost(CartStore.Mode mode) throws Exception {
+        useMode(mode);
+        changeQty("member1", "p1", 100);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> changes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int delta = i % 2 == 0 ? 3 : -1;
+                changes.add(pool.submit(() -> changeQty("member1", "p1", delta)));
+            }
+            for (Future<?> result : changes) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(100 + 100 * 3 - 100, cartStore.findAllByMemberId("member1").get(0).getQty());
+        assertSummary(summaryStore.find("member1"), 300 * 2_50, 300, 1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testMissingSummaryIsRebuiltFromLines(CartStore.Mode mode) {
+        useMode(mode);
+        cartStore.saveLine(line("member1", "p1", "10.00", 3));
+        cartStore.saveLine(line("member1", "p2", null, 2));
+
+        assertSummary(summaryStore.find("member1"), 30_00, 5, 2);
+        assertEquals(1.0, meterRegistry.counter("cart.summary.rebuilds").count());
+
+        add(line("member1", "p2", "1.50", 2));
+        summaryStore.invalidate(Set.of("member1"));
+        assertSummary(summaryStore.find("member1"), 30_00 + 3_00, 5, 2);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testParallelAddsKeepSummaryInStepWithLines(CartStore.Mode mode) throws Exception {
+        useMode(mode);
+        add(line("member1", "p0", "1.00", 1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+                adds.add(pool.submit(() -> add(line("member1", "p" + (n % 10), "2.50", 1 + n % 3))));
+            }
+            for (Future<?> result : adds) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        CartSummary incremental = summaryStore.find("member1");
+        summaryStore.invalidate(Set.of("member1"));
+        CartSummary rebuilt = summaryStore.find("member1");
+
+        assertSummary(incremental, rebuilt.getSubtotalMinor(), rebuilt.getItemCount(), rebuilt.getLineCount());
+        assertEquals(10, rebuilt.getLineCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testParallelFindsAndAddsOnAMissingSummaryKeepItInStepWithLines(CartStore.Mode mode) throws Exception {
+        useMode(mode);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is("member1")), CartSummary.class);
+                List<Future<?>> calls = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    int n = round * 16 + i;
+                    calls.add(pool.submit(n % 2 == 0
+                            ? () -> add(line("member1", "p" + (n % 7), "1.25", 1 + n % 4))
+                            : () -> summaryStore.find("member1")));
+                }
+                for (Future<?> result : calls) {
+                    result.get();
+                }
+
+                CartSummary kept = mongoTemplate.findById("member1", CartSummary.class);
+                CartSummary rebuilt = fromLines("member1");
+                assertSummary(kept, rebuilt.getSubtotalMinor(), rebuilt.getItemCount(), rebuilt.getLineCount());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testInvalidationStopsARebuildOfOlderLinesFromBeingStored(CartStore.Mode mode) {
+        useMode(mode);
+        add(line("member1", "p1", "1.00", 1));
+        CartSummary before = summaryStore.find("member1");
+
+        cartStore.saveLine(line("member1", "p2", "2.00", 1));
+        summaryStore.invalidate(Set.of("member1"));
+
+        CartSummary after = mongoTemplate.findById("member1", CartSummary.class);
+        assertTrue(after.isStale());
+        assertTrue(after.getVersion() > before.getVersion());
+        assertSummary(summaryStore.find("member1"), 3_00, 2, 2);
+        assertFalse(mongoTemplate.findById("member1", CartSummary.class).isStale());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CartStore.Mode.class)
+    void testDriftedSummaryIsRebuiltOnceOld(CartStore.Mode mode) {
+        useMode(mode);
+        add(line("member1", "p1", "1.00", 1));
+        // a writer that died between its line write and its $inc
+        cartStore.saveLine(line("member1", "p2", "2.00", 1));
+        assertSummary(summaryStore.find("member1"), 1_00, 1, 1);
+
+        CartSummaryStore shortLived = new CartSummaryStore(mongoTemplate, cartStore, meterRegistry, 0);
+        assertSummary(shortLived.find("member1"), 3_00, 2, 2);
+        assertSummary(summaryStore.find("member1"), 3_00, 2, 2);
+    }
+
+    private CartSummary fromLines(String memberId) {
+        List<Cart> lines = cartStore.findAllByMemberId(memberId);
+        return CartSummary.builder()
+                .subtotalMinor(lines.stream().mapToLong(l -> Money.lineTotal(l.getPrice(), l.getQty())).sum())
+                .itemCount(lines.stream().mapToLong(Cart::getQty).sum())
+                .lineCount(lines.size())
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.cartservice;
+
+import com.example.cartservice.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares summing a cart the way getCart and its clients did, BigDecimal multiply and add per line, with
+ * the same sum over {@link Money} minor units, and with the single-line delta the incremental cart summary
+ * applies on each add.
+ *
+ * Run with:
+ * mvn -pl cart-service test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-cp %classpath com.example.cartservice.CartTotalsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartTotalsBenchmark {
+
+    @Param({"10", "100"})
+    private int lines;
+
+    private BigDecimal[] prices;
+    private long[] minorPrices;
+    private int[] qtys;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        prices = new BigDecimal[lines];
+        minorPrices = new long[lines];
+        qtys = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            minorPrices[i] = Money.toMinor(prices[i]);
+            qtys[i] = 1 + random.nextInt(5);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalSubtotal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            subtotal = subtotal.add(prices[i].multiply(BigDecimal.valueOf(qtys[i])));
+        }
+        return subtotal;
+    }
+
+    @Benchmark
+    public long minorUnitsSubtotal() {
+        long subtotal = 0;
+        for (int i = 0; i < lines; i++) {
+            subtotal += minorPrices[i] * qtys[i];
+        }
+        return subtotal;
+    }
+
+    @Benchmark
+    public long incrementalLineDelta() {
+        // qty of the last line goes from qtys[last] to qtys[last] + 1, priced from the product's BigDecimal
+        int last = lines - 1;
+        return Money.lineTotal(prices[last], qtys[last] + 1) - Money.lineTotal(prices[last], qtys[last]);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(CartTotalsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.cartservice;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.sun.net.httpserver.HttpServer;
+import org.bson.Document;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load benchmark for getCart (one product-details call per cart page) with N concurrent users.
+ *
+ * <pre>
+ * stub  &lt;port&gt; &lt;latencyMs&gt;                         fake product-service with a fixed response delay
+ * seed  &lt;mongoUri&gt; &lt;members&gt; &lt;linesPerCart&gt;                carts for members bench-0 .. bench-(members-1)
+ * drive &lt;cartBaseUrl&gt; &lt;users&gt; &lt;members&gt; &lt;seconds&gt; [timeoutSeconds]
+ *                                                      closed loop, user i repeatedly GETs the cart of bench-(i % members)
+ * </pre>
+ *
+ * Run cart-service against the stub once as-is and once with {@code --spring.profiles.active=virtual}.
+ */
+public class GetCartLoadBenchmark {
+
+    private static final byte[] PRODUCT = ("{\"id\":\"p\",\"name\":\"Bench product\",\"price\":10.00,"
+            + "\"description\":\"stub\",\"category\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        switch (args[0]) {
+            case "stub" -> stub(Integer.parseInt(args[1]), Long.parseLong(args[2]));
+            case "seed" -> seed(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            case "drive" -> System.out.println(drive(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Duration.ofSeconds(Long.parseLong(args[4])),
+                    Duration.ofSeconds(args.length > 5 ? Long.parseLong(args[5]) : 30)));
+            default -> throw new IllegalArgumentException(
+                    "usage: stub <port> <latencyMs> | seed <mongoUri> <members> <linesPerCart> | drive <url> <users> <members> <seconds> [timeoutSeconds]");
+        }
+    }
+
+    private static void stub(int port, long latencyMs) throws Exception {
+        // headers and body go out as separate writes; without this Nagle + delayed ACK adds ~40ms per call
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        // the default keeps only 200 idle keep-alive connections and closes pooled client connections beyond that
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 8192);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/product", exchange -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = PRODUCT;
+            String query = exchange.getRequestURI().getRawQuery();
+            if (exchange.getRequestURI().getPath().endsWith("/product-details") && query != null) {
+                List<String> products = new ArrayList<>();
+                for (String id : query.substring(query.indexOf('=') + 1).split("%2C|,")) {
+                    products.add(new String(PRODUCT, StandardCharsets.UTF_8).replace("\"id\":\"p\"", "\"id\":\"" + id + "\""));
+                }
+                body = ("[" + String.join(",", products) + "]").getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        System.out.println("stub listening on " + port + " with " + latencyMs + "ms latency");
+    }
+
+    private static void seed(String mongoUri, int members, int linesPerCart) {
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            MongoCollection<Document> carts = client.getDatabase("training_project").getCollection("carts");
+            carts.deleteMany(new Document("memberId", new Document("$regex", "^bench-")));
+
+            List<Document> batch = new ArrayList<>();
+            for (int member = 0; member < members; member++) {
+                for (int line = 0; line < linesPerCart; line++) {
+                    batch.add(new Document("memberId", "bench-" + member)
+                            .append("productId", "p" + line)
+                            .append("qty", 1 + line)
+                            .append("productName", "Bench product")
+                            .append("price", new BigDecimal("10.00"))
+                            .append("priceAsOf", Instant.now())
+                            .append("createdAt", Instant.now())
+                            .append("updatedAt", Instant.now())
+                            .append("_class", "com.example.cartservice.model.Cart"));
+                }
+                if (batch.size() >= 1000) {
+                    carts.insertMany(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                carts.insertMany(batch);
+            }
+            System.out.println("seeded " + members + " carts x " + linesPerCart + " lines");
+        }
+    }
+
+    private static String drive(String baseUrl, int users, int members, Duration duration, Duration timeout)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        URI uri = URI.create(baseUrl + "/api/cart/getCart");
+
+        AtomicLong ok = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[users][];
+        int[] counts = new int[users];
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                int id = user;
+                executor.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("X-User-Id", "bench-" + (id % members))
+                            .timeout(timeout)
+                            .GET()
+                            .build();
+                    long[] samples = new long[64];
+                    int n = 0;
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        if (n == samples.length) {
+                            samples = Arrays.copyOf(samples, n * 2);
+                        }
+                        samples[n++] = System.nanoTime() - sent;
+                        ok.incrementAndGet();
+                    }
+                    latencies[id] = samples;
+                    counts[id] = n;
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = new long[(int) ok.get()];
+        int offset = 0;
+        for (int user = 0; user < users; user++) {
+            if (latencies[user] != null) {
+                System.arraycopy(latencies[user], 0, all, offset, counts[user]);
+                offset += counts[user];
+            }
+        }
+        Arrays.sort(all, 0, offset);
+        long[] sorted = Arrays.copyOf(all, offset);
+
+        return String.format("users=%d members=%d ok=%d errors=%d rps=%.0f p50=%.1fms p99=%.1fms max=%.1fms",
+                users, members, ok.get(), errors.get(), ok.get() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(index, 0)]) / 1000.0;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.cartservice;
+
+import com.example.cartservice.config.MongoConfig;
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.repository.CartRepository;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.repository.LineCartStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs the LINES store against an in-process MongoDB so the unique (memberId, productId) index and the
+ * findAndModify upsert are exercised for real.
+ */
+class LineCartStoreConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 25;
+
+    private InProcessMongo mongo;
+    private MongoTemplate mongoTemplate;
+    private LineCartStore cartStore;
+
+    @BeforeEach
+    void setup() {
+        mongo = new InProcessMongo();
+        mongoTemplate = mongo.mongoTemplate();
+        cartStore = new LineCartStore(mock(CartRepository.class), mongoTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongo.close();
+    }
+
+    private static Cart line(String memberId, String productId, int qty) {
+        Instant now = Instant.now();
+        return Cart.builder()
+                .memberId(memberId)
+                .productId(productId)
+                .productName("Laptop")
+                .price(BigDecimal.TEN)
+                .priceAsOf(now)
+                .qty(qty)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    @Test
+    void testParallelAddsLeaveOneLinePerProduct() throws Exception {
+        new MongoConfig(mongoTemplate, CartStore.Mode.LINES).initIndexes();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Set<String>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    Set<String> ids = new HashSet<>();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        // every thread hits the same two products of the same member
+                        ids.add(cartStore.saveLine(line("member1", "product" + (i % 2), thread + 1)).line().getId());
+                    }
+                    return ids;
+                }));
+            }
+            start.countDown();
+
+            Set<String> returnedIds = new HashSet<>();
+            for (Future<Set<String>> result : results) {
+                returnedIds.addAll(result.get());
+            }
+
+            assertEquals(1, count("member1", "product0"));
+            assertEquals(1, count("member1", "product1"));
+            assertEquals(2, mongoTemplate.count(new Query(), Cart.class));
+            assertEquals(2, returnedIds.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testParallelBulkAndSingleAddsLeaveOneLinePerProduct() throws Exception {
+        new MongoConfig(mongoTemplate, CartStore.Mode.LINES).initIndexes();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        // bulk adds race single adds on the same members' lines
+                        String member = "member" + i;
+                        if (thread % 2 == 0) {
+                            cartStore.saveLines(member, List.of(line(member, "product0", 1), line(member, "product1", 1)));
+                        } else {
+                            cartStore.saveLine(line(member, "product" + (thread % 4 / 2), 1));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                assertEquals(1, count("member" + i, "product0"));
+                assertEquals(1, count("member" + i, "product1"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSaveLineKeepsIdAndCreatedAtOfExistingLine() {
+        new MongoConfig(mongoTemplate, CartStore.Mode.LINES).initIndexes();
+
+        Cart first = cartStore.saveLine(line("member1", "product1", 2)).line();
+        Cart second = cartStore.saveLine(line("member1", "product1", 5)).line();
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(first.getCreatedAt().truncatedTo(ChronoUnit.MILLIS), second.getCreatedAt());
+        assertEquals(5, second.getQty());
+    }
+
+    @Test
+    void testStartupRemovesDuplicateLinesBeforeCreatingUniqueIndex() {
+        Cart older = line("member1", "product1", 1);
+        older.setUpdatedAt(Instant.parse("2026-01-01T00:00:00Z"));
+        Cart newer = line("member1", "product1", 3);
+        mongoTemplate.insert(older);
+        mongoTemplate.insert(newer);
+
+        new MongoConfig(mongoTemplate, CartStore.Mode.LINES).initIndexes();
+
+        List<Cart> lines = mongoTemplate.find(new Query(), Cart.class);
+        assertEquals(1, lines.size());
+        assertEquals(newer.getId(), lines.get(0).getId());
+        assertEquals(4, cartStore.saveLine(line("member1", "product1", 4)).line().getQty());
+        assertEquals(1, count("member1", "product1"));
+    }
+
+    private long count(String memberId, String productId) {
+        return mongoTemplate.count(Query.query(Criteria.where("memberId").is(memberId)
+                .and("productId").is(productId)), Cart.class);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.cartservice;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.repository.CartRepository;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.repository.LineCartStore;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LineCartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private LineCartStore cartStore;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private Cart line(String memberId, String productId, int qty) {
+        return Cart.builder()
+                .memberId(memberId)
+                .productId(productId)
+                .productName("Laptop")
+                .price(BigDecimal.TEN)
+                .priceAsOf(Instant.now())
+                .qty(qty)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    @Test
+    void testSaveLineIsOneUpsert() {
+        Cart line = line("member1", "product1", 2);
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Cart.class))).thenReturn(null);
+
+        CartStore.SavedLine saved = cartStore.saveLine(line);
+
+        assertNull(saved.previous());
+        assertNotNull(saved.line().getId());
+        assertEquals(2, saved.line().getQty());
+        assertEquals(line.getCreatedAt(), saved.line().getCreatedAt());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(Cart.class));
+        assertEquals("member1", query.getValue().getQueryObject().get("memberId"));
+        assertEquals("product1", query.getValue().getQueryObject().get("productId"));
+        assertEquals(2, update.getValue().getUpdateObject().get("$set", Document.class).get("qty"));
+        Document setOnInsert = update.getValue().getUpdateObject().get("$setOnInsert", Document.class);
+        assertEquals(saved.line().getId(), setOnInsert.get("_id").toString());
+        assertTrue(options.getValue().isUpsert());
+        assertFalse(options.getValue().isReturnNew());
+        verifyNoInteractions(cartRepository);
+    }
+
+    @Test
+    void testSaveLineReturnsReplacedLine() {
+        Cart existing = Cart.builder()
+                .id("cart1")
+                .memberId("member1")
+                .productId("product1")
+                .qty(2)
+                .createdAt(Instant.parse("2026-01-01T00:00:00Z"))
+                .build();
+        Cart line = line("member1", "product1", 5);
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Cart.class))).thenReturn(existing);
+
+        CartStore.SavedLine saved = cartStore.saveLine(line);
+
+        assertSame(existing, saved.previous());
+        assertEquals("cart1", saved.line().getId());
+        assertEquals(5, saved.line().getQty());
+        assertEquals("Laptop", saved.line().getProductName());
+        assertEquals(Instant.parse("2026-01-01T00:00:00Z"), saved.line().getCreatedAt());
+    }
+
+    @Test
+    void testSaveLineRetriesAfterConcurrentInsert() {
+        Cart line = line("member1", "product1", 5);
+        Cart concurrent = line("member1", "product1", 3);
+        concurrent.setId("cart1");
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Cart.class)))
+                .thenThrow(new DuplicateKeyException("E11000"))
+                .thenReturn(concurrent);
+
+        CartStore.SavedLine saved = cartStore.saveLine(line);
+
+        assertSame(concurrent, saved.previous());
+        assertEquals("cart1", saved.line().getId());
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Cart.class));
+    }
+
+    @Test
+    void testSaveLinesRetriesUpsertsThatLostToConcurrentInserts() {
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Cart.class)).thenReturn(bulk);
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000", new BsonDocument(), 1);
+        when(bulk.execute()).thenThrow(new BulkOperationException("E11000", new MongoBulkWriteException(
+                BulkWriteResult.unacknowledged(), List.of(duplicate), null, new ServerAddress(), Set.of())));
+        List<Cart> lines = List.of(line("member1", "product1", 1), line("member1", "product2", 2));
+
+        cartStore.saveLines("member1", lines);
+
+        verify(bulk, times(2)).upsert(any(Query.class), any(Update.class));
+        ArgumentCaptor<Query> retried = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndModify(retried.capture(), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Cart.class));
+        assertEquals("product2", retried.getValue().getQueryObject().getString("productId"));
+        verify(mongoTemplate).find(any(Query.class), eq(Cart.class));
+    }
+
+    @Test
+    void testFindByMemberIdOrdersUnsortedPagesByProductId() {
+        when(cartRepository.findByMemberId(eq("member1"), any(Pageable.class))).thenReturn(Page.empty());
+
+        cartStore.findByMemberId("member1", PageRequest.of(1, 10));
+
+        verify(cartRepository).findByMemberId("member1", PageRequest.of(1, 10, Sort.by("productId")));
+    }
+
+    @Test
+    void testDeleteLineSuccess() {
+        Cart removed = line("member1", "product1", 2);
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Cart.class))).thenReturn(removed);
+
+        Optional<Cart> result = cartStore.deleteLine("member1", "cart1");
+
+        assertSame(removed, result.orElseThrow());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findAndRemove(query.capture(), eq(Cart.class));
+        assertEquals("member1", query.getValue().getQueryObject().get("memberId"));
+    }
+
+    @Test
+    void testDeleteLineNotFound() {
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(Cart.class))).thenReturn(null);
+
+        Optional<Cart> result = cartStore.deleteLine("member1", "cart1");
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void testDeleteLinesIsOneOwnedDeleteMany() {
+        when(mongoTemplate.remove(any(Query.class), eq(Cart.class))).thenReturn(DeleteResult.acknowledged(2));
+
+        assertEquals(2, cartStore.deleteLines("member1", List.of("cart1", "cart2", "cart3")));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(query.capture(), eq(Cart.class));
+        assertEquals("member1", query.getValue().getQueryObject().get("memberId"));
+        assertEquals(new Document("$in", List.of("cart1", "cart2", "cart3")),
+                query.getValue().getQueryObject().get("_id"));
+    }
+
+    @Test
+    void testDeleteAllLines() {
+        when(mongoTemplate.remove(any(Query.class), eq(Cart.class))).thenReturn(DeleteResult.acknowledged(4));
+
+        assertEquals(4, cartStore.deleteAllLines("member1"));
+    }
+
+    @Test
+    void testPriceChangesOfABatchAreOneDistinctQuery() {
+        when(mongoTemplate.findDistinct(any(Query.class), eq("memberId"), eq(Cart.class), eq(String.class)))
+                .thenReturn(List.of("member1"));
+
+        List<String> repriced = cartStore.findMemberIdsWithPriceChange(List.of("product1", "product2"),
+                Map.of("product1", new GetProductResponse("product1", "Laptop", null, null, BigDecimal.TEN)));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).findDistinct(query.capture(), eq("memberId"), eq(Cart.class),
+                eq(String.class));
+        assertEquals(List.of("member1"), repriced);
+        List<?> clauses = (List<?>) query.getValue().getQueryObject().get("$or");
+        assertEquals(2, clauses.size());
+        assertEquals(new Document("productId", "product2").append("price", new Document("$ne", null)),
+                clauses.get(1));
+    }
+}
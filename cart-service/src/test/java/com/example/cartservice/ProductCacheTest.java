@@ -0,0 +1,104 @@
+package com.example.cartservice;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.service.ProductCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductCacheTest {
+
+    private static final String BASE_URL = "http://localhost:8082";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        productCache = new ProductCache(restTemplate, meterRegistry, BASE_URL, 100, 300000, 60000, 30000, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productCache.shutdown();
+    }
+
+    private static URI productsUri(String ids) {
+        return URI.create(BASE_URL + "/api/product/product-details?ids=" + ids);
+    }
+
+    private static GetProductResponse product(String id) {
+        return new GetProductResponse(id, "Product " + id, "D", "ELECTRONICS", BigDecimal.TEN);
+    }
+
+    @Test
+    void testGetIsServedFromCacheAfterFirstLoad() {
+        when(restTemplate.getForObject(productsUri("product1"), GetProductResponse[].class))
+                .thenReturn(new GetProductResponse[]{product("product1")});
+
+        assertEquals("Product product1", productCache.get("product1").orElseThrow().name());
+        assertEquals("Product product1", productCache.get("product1").orElseThrow().name());
+
+        verify(restTemplate, times(1)).getForObject(any(URI.class), eq(GetProductResponse[].class));
+        assertEquals(0.5, meterRegistry.get("cart.product-cache.hit-ratio").gauge().value());
+    }
+
+    @Test
+    void testUnknownProductIsCachedAsNotFound() {
+        when(restTemplate.getForObject(productsUri("productX"), GetProductResponse[].class))
+                .thenReturn(new GetProductResponse[0]);
+
+        assertEquals(Optional.empty(), productCache.get("productX"));
+        assertEquals(Optional.empty(), productCache.get("productX"));
+
+        verify(restTemplate, times(1)).getForObject(any(URI.class), eq(GetProductResponse[].class));
+        assertEquals(1.0, meterRegistry.get("cart.product-cache.negative-entries").gauge().value());
+    }
+
+    @Test
+    void testGetAllFetchesOnlyMissesInOneCall() {
+        when(restTemplate.getForObject(productsUri("product1"), GetProductResponse[].class))
+                .thenReturn(new GetProductResponse[]{product("product1")});
+        productCache.get("product1");
+
+        when(restTemplate.getForObject(any(URI.class), eq(GetProductResponse[].class)))
+                .thenReturn(new GetProductResponse[]{product("product2")});
+
+        Map<String, GetProductResponse> products = productCache.getAll(List.of("product1", "product2", "productX"));
+
+        assertEquals(2, products.size());
+        assertEquals("Product product2", products.get("product2").name());
+        assertFalse(products.containsKey("productX"));
+        verify(restTemplate, times(2)).getForObject(any(URI.class), eq(GetProductResponse[].class));
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() {
+        when(restTemplate.getForObject(productsUri("product1"), GetProductResponse[].class))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenReturn(new GetProductResponse[]{product("product1")});
+
+        assertThrows(ResourceAccessException.class, () -> productCache.get("product1"));
+        assertTrue(productCache.get("product1").isPresent());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cartservice;
+
+import com.example.cartservice.dto.GetProductResponse;
+import com.example.cartservice.exception.BusinessException;
+import com.example.cartservice.service.ProductCache;
+import com.example.cartservice.service.ProductEnricher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ProductEnricherTest {
+
+    private static final long DEADLINE_MS = 200;
+
+    @Mock
+    private ProductCache productCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProductEnricher productEnricher;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        productEnricher = enricher(ProductEnricher.Fallback.DEGRADE);
+        when(productCache.getAllPresent(anyCollection())).thenReturn(Map.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        productEnricher.shutdown();
+    }
+
+    private ProductEnricher enricher(ProductEnricher.Fallback fallback) {
+        return new ProductEnricher(productCache, meterRegistry, 4, 8, 2, DEADLINE_MS, fallback);
+    }
+
+    private static GetProductResponse product(String id) {
+        return new GetProductResponse(id, "Product " + id, "D", "ELECTRONICS", BigDecimal.TEN);
+    }
+
+    private static Map<String, GetProductResponse> products(Collection<String> ids) {
+        return ids.stream().collect(Collectors.toMap(id -> id, ProductEnricherTest::product));
+    }
+
+    private Map<String, GetProductResponse> slowly(Collection<String> ids) throws InterruptedException {
+        release.await(5, TimeUnit.SECONDS);
+        return products(ids);
+    }
+
+    @Test
+    void testCachedProductsAreNotFetched() {
+        when(productCache.getAllPresent(List.of("p1", "p2")))
+                .thenReturn(Map.of("p1", Optional.of(product("p1")), "p2", Optional.empty()));
+
+        ProductEnricher.Enrichment enrichment = productEnricher.enrich(List.of("p1", "p2"));
+
+        assertEquals(Set.of("p1"), enrichment.products().keySet());
+        assertTrue(enrichment.unresolved().isEmpty());
+        verify(productCache, never()).getAll(anyCollection());
+    }
+
+    @Test
+    void testMissesAreFetchedInBatches() {
+        when(productCache.getAll(anyCollection())).thenAnswer(call -> products(call.getArgument(0)));
+
+        ProductEnricher.Enrichment enrichment = productEnricher.enrich(List.of("p1", "p2", "p3", "p4", "p5"));
+
+        assertEquals(Set.of("p1", "p2", "p3", "p4", "p5"), enrichment.products().keySet());
+        assertTrue(enrichment.unresolved().isEmpty());
+        verify(productCache).getAll(List.of("p1", "p2"));
+        verify(productCache).getAll(List.of("p3", "p4"));
+        verify(productCache).getAll(List.of("p5"));
+    }
+
+    @Test
+    void testBatchesRunConcurrently() {
+        CountDownLatch started = new CountDownLatch(3);
+        when(productCache.getAll(anyCollection())).thenAnswer(call -> {
+            started.countDown();
+            // each batch only finishes once all three are running at the same time
+            assertTrue(started.await(DEADLINE_MS, TimeUnit.MILLISECONDS));
+            return products(call.getArgument(0));
+        });
+
+        ProductEnricher.Enrichment enrichment = productEnricher.enrich(List.of("p1", "p2", "p3", "p4", "p5"));
+
+        assertEquals(5, enrichment.products().size());
+        assertTrue(enrichment.unresolved().isEmpty());
+    }
+
+    @Test
+    void testSlowBatchIsUnresolvedAtDeadline() {
+        when(productCache.getAll(List.of("p1", "p2"))).thenReturn(products(List.of("p1", "p2")));
+        when(productCache.getAll(List.of("p3"))).thenAnswer(call -> slowly(call.getArgument(0)));
+
+        long start = System.nanoTime();
+        ProductEnricher.Enrichment enrichment = productEnricher.enrich(List.of("p1", "p2", "p3"));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(Set.of("p1", "p2"), enrichment.products().keySet());
+        assertEquals(Set.of("p3"), enrichment.unresolved());
+        assertTrue(elapsedMs < DEADLINE_MS + 500, "took " + elapsedMs + " ms");
+        assertEquals(1.0, meterRegistry.counter("cart.enrichment.partial-responses").count());
+        assertEquals(1.0, meterRegistry.counter("cart.enrichment.unresolved-products").count());
+    }
+
+    @Test
+    void testFailedBatchIsUnresolved() {
+        when(productCache.getAll(List.of("p1", "p2"))).thenThrow(new ResourceAccessException("refused"));
+        when(productCache.getAll(List.of("p3"))).thenReturn(products(List.of("p3")));
+
+        ProductEnricher.Enrichment enrichment = productEnricher.enrich(List.of("p1", "p2", "p3"));
+
+        assertEquals(Set.of("p3"), enrichment.products().keySet());
+        assertEquals(Set.of("p1", "p2"), enrichment.unresolved());
+    }
+
+    @Test
+    void testFailFallbackRejectsPartialResult() {
+        productEnricher.shutdown();
+        productEnricher = enricher(ProductEnricher.Fallback.FAIL);
+        when(productCache.getAll(anyCollection())).thenAnswer(call -> slowly(call.getArgument(0)));
+
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> productEnricher.enrich(List.of("p1")));
+
+        assertEquals("PRODUCT_LOOKUP_INCOMPLETE", ex.getCode());
+        assertEquals(0.0, meterRegistry.counter("cart.enrichment.partial-responses").count());
+    }
+}
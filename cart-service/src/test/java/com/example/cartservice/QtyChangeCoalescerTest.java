@@ -0,0 +1,116 @@
+package com.example.cartservice;
+
+import com.example.cartservice.exception.BusinessException;
+import com.example.cartservice.model.Cart;
+import com.example.cartservice.repository.CartStore;
+import com.example.cartservice.service.QtyChangeCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QtyChangeCoalescerTest {
+
+    private static final long WINDOW_MS = 200;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final List<Integer> writes = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private CartStore.SavedLine write(int delta) {
+        writes.add(delta);
+        return new CartStore.SavedLine(Cart.builder().id("cart1").qty(delta).build(), null);
+    }
+
+    private List<Future<CartStore.SavedLine>> burst(QtyChangeCoalescer coalescer, int... deltas)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(deltas.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CartStore.SavedLine>> results = new ArrayList<>();
+        for (int delta : deltas) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return coalescer.submit("member1", "p1", delta, this::write);
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        return results;
+    }
+
+    @Test
+    void testBurstForOneLineIsWrittenOnce() throws Exception {
+        QtyChangeCoalescer coalescer = new QtyChangeCoalescer(meterRegistry, true, WINDOW_MS);
+
+        List<Future<CartStore.SavedLine>> results = burst(coalescer, 1, 1, 1, -1, 1);
+
+        for (Future<CartStore.SavedLine> result : results) {
+            assertEquals(3, result.get().line().getQty());
+        }
+        assertEquals(List.of(3), writes);
+        assertEquals(5.0, meterRegistry.counter("cart.qty-coalescing.mutations").count());
+        assertEquals(1.0, meterRegistry.counter("cart.qty-coalescing.writes").count());
+        assertEquals(5.0, meterRegistry.get("cart.qty-coalescing.ratio").gauge().value());
+    }
+
+    @Test
+    void testDifferentLinesAreNotMerged() {
+        QtyChangeCoalescer coalescer = new QtyChangeCoalescer(meterRegistry, true, 1);
+
+        coalescer.submit("member1", "p1", 1, this::write);
+        coalescer.submit("member1", "p2", 2, this::write);
+        coalescer.submit("member2", "p1", 3, this::write);
+
+        assertEquals(List.of(1, 2, 3), writes);
+    }
+
+    @Test
+    void testDisabledWritesEveryChange() {
+        QtyChangeCoalescer coalescer = new QtyChangeCoalescer(meterRegistry, false, WINDOW_MS);
+
+        coalescer.submit("member1", "p1", 1, this::write);
+        coalescer.submit("member1", "p1", 1, this::write);
+
+        assertEquals(List.of(1, 1), writes);
+        assertEquals(1.0, meterRegistry.get("cart.qty-coalescing.ratio").gauge().value());
+    }
+
+    @Test
+    void testFailedWriteFailsEveryMergedChange() throws Exception {
+        QtyChangeCoalescer coalescer = new QtyChangeCoalescer(meterRegistry, true, WINDOW_MS);
+        List<Future<CartStore.SavedLine>> results = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return coalescer.submit("member1", "p1", 1, delta -> {
+                    throw new BusinessException("PRODUCT_NOT_FOUND", "Product not found with id: p1");
+                });
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+
+        for (Future<CartStore.SavedLine> result : results) {
+            ExecutionException ex = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(BusinessException.class, ex.getCause());
+        }
+        assertEquals(1.0, meterRegistry.counter("cart.qty-coalescing.writes").count());
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.cartservice;
+
+import com.example.cartservice.config.RestClientConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.routing.DefaultRoutePlanner;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestClientConfigTest {
+
+    @Test
+    void testPerRouteLimitAppliesToAUrlWithoutAPort() throws Exception {
+        HttpRoute planned = new DefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE)
+                .determineRoute(HttpHost.create("http://product"), HttpClientContext.create());
+
+        try (PoolingHttpClientConnectionManager connectionManager = new RestClientConfig().connectionManager(
+                new SimpleMeterRegistry(), "http://product", 200, 150, 1000, 3000, 2000, 300000)) {
+
+            assertEquals(150, connectionManager.getMaxPerRoute(planned));
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.example.productservice.catalog;
+
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable, array-backed copy of the products collection. Products are numbered by ordinal in ascending id
+ * order and every field lives in an array indexed by ordinal: all names are concatenated into one string
+ * addressed by offsets, categories are enum ordinals and ids resolve to ordinals through an open-addressing
+ * table, so a lookup touches a handful of arrays and allocates nothing. Names are also indexed by trigram
+ * for substring search and by word prefix for suggestions, and categories and prices for filtering. A change
+ * produces a new snapshot, indexes included, with a new {@link #version()}; each product keeps the
+ * {@link #version(int)} of the snapshot it last changed in.
+ */
+public final class CatalogSnapshot {
+
+    public static final int MAX_SUGGESTIONS = PrefixIndex.MAX_SUGGESTIONS;
+
+    private static final byte NO_CATEGORY = -1;
+    private static final Category[] CATEGORIES = Category.values();
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    public record Matches(int[] ordinals, int total) {}
+
+    /**
+     * A page of filtered ordinals, the number of matches overall and the number of matches per category,
+     * indexed by {@link Category#ordinal()}.
+     */
+    public record Facets(int[] ordinals, int total, int[] categoryCounts) {}
+
+    private final String[] ids;
+    private final int[] idTable;
+    private final String names;
+    private final String foldedNames;
+    private final int[] nameOffsets;
+    private final String[] descriptions;
+    private final byte[] categories;
+    private final BigDecimal[] prices;
+    private final TrigramIndex nameIndex;
+    private final PrefixIndex prefixIndex;
+    private final FacetIndex facetIndex;
+    private final long version;
+    private final long[] versions;
+
+    private CatalogSnapshot(String[] ids, String names, String foldedNames, int[] nameOffsets,
+                            String[] descriptions, byte[] categories, BigDecimal[] prices, TrigramIndex nameIndex,
+                            PrefixIndex prefixIndex, FacetIndex facetIndex, long version, long[] versions) {
+        this.ids = ids;
+        this.names = names;
+        this.foldedNames = foldedNames;
+        this.nameOffsets = nameOffsets;
+        this.descriptions = descriptions;
+        this.categories = categories;
+        this.prices = prices;
+        this.idTable = buildIdTable(ids);
+        this.nameIndex = nameIndex;
+        this.prefixIndex = prefixIndex;
+        this.facetIndex = facetIndex;
+        this.version = version;
+        this.versions = versions;
+    }
+
+    public static CatalogSnapshot empty() {
+        return of(List.of());
+    }
+
+    public static CatalogSnapshot of(Collection<Product> products) {
+        return of(products, null);
+    }
+
+    /**
+     * A snapshot of exactly the given products, in which those {@code previous} already holds keep their
+     * {@link #version(int)}.
+     */
+    public static CatalogSnapshot of(Collection<Product> products, CatalogSnapshot previous) {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparing(Product::getId));
+        Builder builder = new Builder(sorted.size(), null);
+        for (Product product : sorted) {
+            boolean held = previous != null && previous.holds(product);
+            builder.add(product, held ? previous.versions[previous.ordinal(product.getId())] : builder.version);
+        }
+        return builder.build();
+    }
+
+    /**
+     * This snapshot with the given products added or replaced and the given ids removed, merged in one pass
+     * over the existing ordinals.
+     */
+    public CatalogSnapshot with(Collection<Product> changed, Set<String> removed) {
+        Map<String, Product> sorted = new TreeMap<>();
+        changed.forEach(product -> sorted.put(product.getId(), product));
+
+        Builder builder = new Builder(ids.length + sorted.size(), this);
+        int next = 0;
+        for (Product product : sorted.values()) {
+            while (next < ids.length && ids[next].compareTo(product.getId()) < 0) {
+                builder.copy(this, next++, removed);
+            }
+            if (next < ids.length && ids[next].equals(product.getId())) {
+                next++;
+            }
+            if (!removed.contains(product.getId())) {
+                builder.add(product, builder.version);
+            }
+        }
+        while (next < ids.length) {
+            builder.copy(this, next++, removed);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Whether the snapshot already holds the product exactly as given.
+     */
+    public boolean holds(Product product) {
+        int ordinal = ordinal(product.getId());
+        return ordinal >= 0
+                && name(ordinal).equals(product.getName())
+                && Objects.equals(descriptions[ordinal], product.getDescription())
+                && category(ordinal) == product.getCategory()
+                && Objects.equals(prices[ordinal], product.getPrice());
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Greater than the version of every snapshot built before this one.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * The version of the snapshot the product was last added or changed in, which stays the same in the
+     * snapshots derived from it for as long as the product does.
+     */
+    public long version(int ordinal) {
+        return versions[ordinal];
+    }
+
+    /**
+     * The ordinal of the product with the given id, or -1.
+     */
+    public int ordinal(String id) {
+        int mask = idTable.length - 1;
+        for (int slot = slot(id, mask); ; slot = (slot + 1) & mask) {
+            int entry = idTable[slot];
+            if (entry == 0) return -1;
+            if (ids[entry - 1].equals(id)) return entry - 1;
+        }
+    }
+
+    public String id(int ordinal) {
+        return ids[ordinal];
+    }
+
+    public String name(int ordinal) {
+        return names.substring(nameOffsets[ordinal], nameOffsets[ordinal + 1]);
+    }
+
+    public String description(int ordinal) {
+        return descriptions[ordinal];
+    }
+
+    public Category category(int ordinal) {
+        byte category = categories[ordinal];
+        return category == NO_CATEGORY ? null : CATEGORIES[category];
+    }
+
+    public BigDecimal price(int ordinal) {
+        return prices[ordinal];
+    }
+
+    /**
+     * Ordinals, in order, of the names that contain {@code term} ignoring case, skipping the first
+     * {@code offset} matches and keeping at most {@code limit}, together with the number of matches overall.
+     * The term is taken literally. The trigram index narrows the names to check and each is then verified,
+     * so the result is exact; a term shorter than three chars checks every name.
+     */
+    public Matches search(String term, long offset, int limit) {
+        int[] candidates = nameIndex.candidates(term);
+        int count = candidates != null ? candidates.length : ids.length;
+        int[] page = new int[limit];
+        int kept = 0;
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int ordinal = candidates != null ? candidates[i] : i;
+            if (contains(ordinal, term)) {
+                if (total >= offset && kept < limit) {
+                    page[kept++] = ordinal;
+                }
+                total++;
+            }
+        }
+        return new Matches(Arrays.copyOf(page, kept), total);
+    }
+
+    /**
+     * Ordinals, in order, of the products whose name contains {@code term} as {@link #search} matches it (any
+     * name when null), whose category is one of {@code categories} (any when empty) and whose price is within
+     * {@code minPrice} and {@code maxPrice} inclusive (either open when null), paged like {@link #search}. The
+     * count per category applies every filter but the categories, so it is what picking that category finds.
+     */
+    public Facets filter(String term, Set<Category> categories, BigDecimal minPrice, BigDecimal maxPrice,
+                         long offset, int limit) {
+        long[] matching = term != null ? named(term) : all();
+        if (minPrice != null || maxPrice != null) {
+            and(matching, facetIndex.priceRange(minPrice, maxPrice));
+        }
+
+        int[] categoryCounts = new int[CATEGORIES.length];
+        for (Category category : CATEGORIES) {
+            categoryCounts[category.ordinal()] = countBoth(matching, facetIndex.category(category.ordinal()));
+        }
+        if (!categories.isEmpty()) {
+            long[] any = new long[matching.length];
+            for (Category category : categories) {
+                long[] bits = facetIndex.category(category.ordinal());
+                for (int w = 0; w < any.length; w++) {
+                    any[w] |= bits[w];
+                }
+            }
+            and(matching, any);
+        }
+
+        int total = countBoth(matching, matching);
+        int[] page = new int[(int) Math.max(0, Math.min(limit, total - offset))];
+        long skip = offset;
+        int kept = 0;
+        for (int w = 0; w < matching.length && kept < page.length; w++) {
+            long word = matching[w];
+            int bits = Long.bitCount(word);
+            if (skip >= bits) {
+                skip -= bits;
+                continue;
+            }
+            for (; word != 0 && kept < page.length; word &= word - 1) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    page[kept++] = w << 6 | Long.numberOfTrailingZeros(word);
+                }
+            }
+        }
+        return new Facets(page, total, categoryCounts);
+    }
+
+    /**
+     * Ordinals of at most {@code limit} names with a word starting with {@code prefix} ignoring case, shorter
+     * names first and names of equal length alphabetically. The limit is capped at {@link #MAX_SUGGESTIONS}.
+     */
+    public int[] suggest(String prefix, int limit) {
+        return prefixIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * Bytes held by the name index.
+     */
+    public long nameIndexBytes() {
+        return nameIndex.bytes();
+    }
+
+    private long[] named(String term) {
+        long[] bits = new long[FacetIndex.words(ids.length)];
+        int[] candidates = nameIndex.candidates(term);
+        int count = candidates != null ? candidates.length : ids.length;
+        for (int i = 0; i < count; i++) {
+            int ordinal = candidates != null ? candidates[i] : i;
+            if (contains(ordinal, term)) {
+                bits[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+        return bits;
+    }
+
+    private long[] all() {
+        long[] bits = new long[FacetIndex.words(ids.length)];
+        Arrays.fill(bits, -1L);
+        if ((ids.length & 63) != 0) {
+            bits[bits.length - 1] = (1L << ids.length) - 1;
+        }
+        return bits;
+    }
+
+    private static void and(long[] bits, long[] other) {
+        for (int w = 0; w < bits.length; w++) {
+            bits[w] &= other[w];
+        }
+    }
+
+    private static int countBoth(long[] bits, long[] other) {
+        int count = 0;
+        for (int w = 0; w < bits.length; w++) {
+            count += Long.bitCount(bits[w] & other[w]);
+        }
+        return count;
+    }
+
+    private boolean contains(int ordinal, String term) {
+        int last = nameOffsets[ordinal + 1] - term.length();
+        for (int at = nameOffsets[ordinal]; at <= last; at++) {
+            if (names.regionMatches(true, at, term, 0, term.length())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Folds a char so that any two chars {@link String#regionMatches(boolean, int, String, int, int)} treats
+     * as equal ignoring case fold to the same char.
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    static String fold(String text) {
+        char[] folded = new char[text.length()];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(text.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    private static int[] buildIdTable(String[] ids) {
+        int capacity = Integer.highestOneBit(Math.max(2, ids.length * 2 - 1)) << 1;
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+            int slot = slot(ids[ordinal], mask);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = ordinal + 1;
+        }
+        return table;
+    }
+
+    private static int slot(String id, int mask) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static final class Builder {
+
+        private final String[] ids;
+        private final StringBuilder names = new StringBuilder();
+        private final StringBuilder foldedNames = new StringBuilder();
+        private final int[] nameOffsets;
+        private final String[] descriptions;
+        private final byte[] categories;
+        private final BigDecimal[] prices;
+        private final long[] versions;
+        private final long version = VERSIONS.incrementAndGet();
+        private int size;
+
+        /** when merging into a snapshot: the new ordinal of each of its ordinals, and the ordinals added */
+        private final CatalogSnapshot base;
+        private final int[] moved;
+        private int[] added = new int[16];
+        private int addedSize;
+
+        private Builder(int capacity, CatalogSnapshot base) {
+            ids = new String[capacity];
+            nameOffsets = new int[capacity + 1];
+            descriptions = new String[capacity];
+            categories = new byte[capacity];
+            prices = new BigDecimal[capacity];
+            versions = new long[capacity];
+            this.base = base;
+            moved = base != null ? new int[base.size()] : null;
+            if (moved != null) {
+                Arrays.fill(moved, -1);
+            }
+        }
+
+        private void add(Product product, long productVersion) {
+            if (addedSize == added.length) {
+                added = Arrays.copyOf(added, addedSize * 2);
+            }
+            added[addedSize++] = size;
+            String name = product.getName() != null ? product.getName() : "";
+            for (int i = 0; i < name.length(); i++) {
+                foldedNames.append(fold(name.charAt(i)));
+            }
+            Category category = product.getCategory();
+            append(product.getId(), name, 0, name.length(), product.getDescription(),
+                    category != null ? (byte) category.ordinal() : NO_CATEGORY, product.getPrice(), productVersion);
+        }
+
+        private void copy(CatalogSnapshot from, int ordinal, Set<String> removed) {
+            if (removed.contains(from.ids[ordinal])) return;
+            moved[ordinal] = size;
+            foldedNames.append(from.foldedNames, from.nameOffsets[ordinal], from.nameOffsets[ordinal + 1]);
+            append(from.ids[ordinal], from.names, from.nameOffsets[ordinal], from.nameOffsets[ordinal + 1],
+                    from.descriptions[ordinal], from.categories[ordinal], from.prices[ordinal], from.versions[ordinal]);
+        }
+
+        private void append(String id, CharSequence name, int nameStart, int nameEnd, String description,
+                            byte category, BigDecimal price, long productVersion) {
+            ids[size] = id;
+            names.append(name, nameStart, nameEnd);
+            descriptions[size] = description;
+            categories[size] = category;
+            prices[size] = price;
+            versions[size] = productVersion;
+            nameOffsets[++size] = names.length();
+        }
+
+        private CatalogSnapshot build() {
+            String folded = foldedNames.toString();
+            int[] offsets = Arrays.copyOf(nameOffsets, size + 1);
+            int[] changed = Arrays.copyOf(added, addedSize);
+            byte[] categoryOrdinals = Arrays.copyOf(categories, size);
+            BigDecimal[] priceValues = Arrays.copyOf(prices, size);
+            TrigramIndex nameIndex = base != null
+                    ? TrigramIndex.update(base.nameIndex, moved, changed, folded, offsets)
+                    : TrigramIndex.build(folded, offsets);
+            PrefixIndex prefixIndex = base != null
+                    ? PrefixIndex.update(base.prefixIndex, moved, changed, folded, offsets)
+                    : PrefixIndex.build(folded, offsets);
+            FacetIndex facetIndex = base != null
+                    ? FacetIndex.update(base.facetIndex, moved, changed, categoryOrdinals, CATEGORIES.length,
+                            priceValues)
+                    : FacetIndex.build(categoryOrdinals, CATEGORIES.length, priceValues);
+            return new CatalogSnapshot(Arrays.copyOf(ids, size), names.toString(), folded, offsets,
+                    Arrays.copyOf(descriptions, size), categoryOrdinals, priceValues, nameIndex, prefixIndex,
+                    facetIndex, version, Arrays.copyOf(versions, size));
+        }
+    }
+}
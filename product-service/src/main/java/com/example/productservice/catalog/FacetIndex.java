@@ -0,0 +1,118 @@
+package com.example.productservice.catalog;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Bitsets of the ordinals in each category and the ordinals in ascending price order, from which filters
+ * are built as bitsets of the matching ordinals and combined a word at a time. Products without a price sort
+ * last and never fall in a price range.
+ */
+final class FacetIndex {
+
+    private final long[][] categoryBits;
+    private final int[] byPrice;
+    private final int priced;
+    private final BigDecimal[] prices;
+
+    private FacetIndex(byte[] categories, int categoryCount, BigDecimal[] prices, int[] byPrice) {
+        this.prices = prices;
+        this.byPrice = byPrice;
+        int count = 0;
+        while (count < byPrice.length && prices[byPrice[count]] != null) {
+            count++;
+        }
+        this.priced = count;
+
+        this.categoryBits = new long[categoryCount][words(categories.length)];
+        for (int ordinal = 0; ordinal < categories.length; ordinal++) {
+            if (categories[ordinal] >= 0) {
+                categoryBits[categories[ordinal]][ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+    }
+
+    static FacetIndex build(byte[] categories, int categoryCount, BigDecimal[] prices) {
+        int[] byPrice = IntStream.range(0, prices.length).boxed()
+                .sorted(byPriceOf(prices))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new FacetIndex(categories, categoryCount, prices, byPrice);
+    }
+
+    /**
+     * The index of a snapshot derived from the one {@code previous} was built for, with {@code moved} and
+     * {@code added} as for {@link PrefixIndex#update}. The kept ordinals stay in price order, so only the
+     * added ones are sorted and merged in.
+     */
+    static FacetIndex update(FacetIndex previous, int[] moved, int[] added, byte[] categories, int categoryCount,
+                             BigDecimal[] prices) {
+        Comparator<Integer> byPrice = byPriceOf(prices);
+        int[] fresh = Arrays.stream(added).boxed().sorted(byPrice).mapToInt(Integer::intValue).toArray();
+
+        int[] merged = new int[prices.length];
+        int size = 0;
+        int next = 0;
+        for (int old : previous.byPrice) {
+            int ordinal = moved[old];
+            if (ordinal < 0) continue;
+            while (next < fresh.length && byPrice.compare(fresh[next], ordinal) < 0) {
+                merged[size++] = fresh[next++];
+            }
+            merged[size++] = ordinal;
+        }
+        while (next < fresh.length) {
+            merged[size++] = fresh[next++];
+        }
+        return new FacetIndex(categories, categoryCount, prices, merged);
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    long[] category(int category) {
+        return categoryBits[category];
+    }
+
+    /**
+     * A new bitset of the ordinals priced from {@code min} to {@code max}, both inclusive and either one
+     * open when null.
+     */
+    long[] priceRange(BigDecimal min, BigDecimal max) {
+        int from = min != null ? firstPricedAtLeast(min, false) : 0;
+        int to = max != null ? firstPricedAtLeast(max, true) : priced;
+        long[] bits = new long[words(prices.length)];
+        for (int i = from; i < to; i++) {
+            bits[byPrice[i] >>> 6] |= 1L << byPrice[i];
+        }
+        return bits;
+    }
+
+    /**
+     * Position in price order of the first price at or above {@code price} or, with {@code above}, strictly
+     * above it.
+     */
+    private int firstPricedAtLeast(BigDecimal price, boolean above) {
+        int low = 0;
+        int high = priced;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = prices[byPrice[mid]].compareTo(price);
+            if (cmp < 0 || above && cmp == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Comparator<Integer> byPriceOf(BigDecimal[] prices) {
+        return Comparator.comparing((Integer ordinal) -> prices[ordinal],
+                        Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Comparator.naturalOrder());
+    }
+}
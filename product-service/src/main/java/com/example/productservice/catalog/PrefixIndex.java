@@ -0,0 +1,497 @@
+package com.example.productservice.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Answers which names have a word starting with a prefix, best ranked first, where shorter names rank higher
+ * and names of equal length go in alphabetical order. Every word start of every name is a key, and the keys
+ * are sorted by their case-folded text, so the keys under a prefix are one contiguous range: the keys below
+ * one node of the trie the sorted keys spell out. Nodes spanning more than {@value #SCAN_LIMIT} keys have
+ * their best {@value #MAX_SUGGESTIONS} names precomputed; smaller ones are ranked on the spot.
+ */
+final class PrefixIndex {
+
+    static final int MAX_SUGGESTIONS = 10;
+    private static final int SCAN_LIMIT = 64;
+
+    private final String foldedNames;
+    private final int[] nameOffsets;
+
+    /** ordinal in the high half, char position of the word within the name in the low half */
+    private final long[] keys;
+    /** length of the prefix each key shares with the one before it */
+    private final int[] lcps;
+    private final int[] ranks;
+    private final int[] byRank;
+
+    private long[] nodes = new long[64];
+    private int[] nodeSlots = new int[64];
+    private int nodeCount;
+    private final int[] best;
+
+    private PrefixIndex(String foldedNames, int[] nameOffsets, long[] keys, int[] lcps) {
+        this.foldedNames = foldedNames;
+        this.nameOffsets = nameOffsets;
+        this.keys = keys;
+        this.lcps = lcps;
+
+        int size = nameOffsets.length - 1;
+        this.ranks = new int[size];
+        this.byRank = new int[size];
+        rank();
+        this.best = precompute();
+    }
+
+    /**
+     * Indexes the names stored back to back and already folded in {@code foldedNames}, name {@code i} spanning
+     * {@code offsets[i]} to {@code offsets[i + 1]}.
+     */
+    static PrefixIndex build(String foldedNames, int[] offsets) {
+        Text text = new Text(foldedNames, offsets);
+        long[] keys = keysOf(foldedNames, offsets, null);
+        text.sort(keys);
+        int[] lcps = new int[keys.length];
+        for (int i = 1; i < keys.length; i++) {
+            lcps[i] = text.commonPrefix(keys[i - 1], text, keys[i]);
+        }
+        return new PrefixIndex(foldedNames, offsets, keys, lcps);
+    }
+
+    /**
+     * The index of a snapshot derived from the one {@code previous} was built for, without sorting again what
+     * did not change. {@code moved[o]} is the new ordinal of old ordinal {@code o}, or -1 when that product was
+     * dropped or replaced; {@code added} are the new ordinals of the products added or replaced, ascending.
+     * Only the added keys are sorted and compared; the kept ones are copied with the prefix lengths they had.
+     */
+    static PrefixIndex update(PrefixIndex previous, int[] moved, int[] added, String foldedNames, int[] offsets) {
+        Text before = new Text(previous.foldedNames, previous.nameOffsets);
+        Text after = new Text(foldedNames, offsets);
+        long[] fresh = keysOf(foldedNames, offsets, added);
+        after.sort(fresh);
+
+        long[] keys = new long[previous.keys.length + fresh.length];
+        int[] lcps = new int[keys.length];
+        int size = 0;
+        int next = 0;
+        int insertAt = fresh.length > 0 ? previous.insertionPoint(before, after, fresh[0]) : -1;
+        int shared = Integer.MAX_VALUE;
+        boolean afterKept = false;
+        for (int i = 0; i <= previous.keys.length; i++) {
+            while (next < fresh.length && insertAt == i) {
+                keys[size] = fresh[next++];
+                lcps[size] = size > 0 ? after.commonPrefix(keys[size - 1], after, keys[size]) : 0;
+                size++;
+                afterKept = false;
+                if (next < fresh.length) {
+                    insertAt = previous.insertionPoint(before, after, fresh[next]);
+                }
+            }
+            if (i == previous.keys.length) break;
+
+            long old = previous.keys[i];
+            shared = Math.min(shared, previous.lcps[i]);
+            int ordinal = moved[(int) (old >>> 32)];
+            if (ordinal < 0) continue;
+
+            keys[size] = (long) ordinal << 32 | (old & 0xFFFF_FFFFL);
+            if (size == 0) {
+                lcps[size] = 0;
+            } else if (afterKept) {
+                lcps[size] = shared;
+            } else {
+                lcps[size] = after.commonPrefix(keys[size - 1], after, keys[size]);
+            }
+            size++;
+            afterKept = true;
+            shared = Integer.MAX_VALUE;
+        }
+        return new PrefixIndex(foldedNames, offsets, Arrays.copyOf(keys, size), Arrays.copyOf(lcps, size));
+    }
+
+    /**
+     * Ordinals of the best ranked names with a word starting with {@code prefix} ignoring case, at most
+     * {@code limit} of them and never more than {@value #MAX_SUGGESTIONS}.
+     */
+    int[] suggest(String prefix, int limit) {
+        limit = Math.max(0, Math.min(limit, MAX_SUGGESTIONS));
+        String folded = CatalogSnapshot.fold(prefix);
+        int from = bound(folded, false);
+        int to = bound(folded, true);
+        if (from == to || limit == 0) {
+            return new int[0];
+        }
+
+        int[] top;
+        int at = to - from > SCAN_LIMIT ? node(from, to) : -1;
+        if (at >= 0) {
+            top = Arrays.copyOfRange(best, at, at + MAX_SUGGESTIONS);
+        } else {
+            top = new int[to - from];
+            for (int k = from; k < to; k++) {
+                top[k - from] = ranks[(int) (keys[k] >>> 32)];
+            }
+            Arrays.sort(top);
+        }
+
+        int[] ordinals = new int[limit];
+        int found = 0;
+        for (int k = 0; k < top.length && found < limit; k++) {
+            if (top[k] < 0 || k > 0 && top[k] == top[k - 1]) continue;
+            ordinals[found++] = byRank[top[k]];
+        }
+        return Arrays.copyOf(ordinals, found);
+    }
+
+    /**
+     * The first key whose text is at or after the prefix or, with {@code past}, the first that is after
+     * every text starting with it.
+     */
+    private int bound(String prefix, boolean past) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareToPrefix(keys[mid], prefix);
+            if (cmp < 0 || past && cmp == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compareToPrefix(long key, String prefix) {
+        int at = nameOffsets[(int) (key >>> 32)] + (int) key;
+        int end = nameOffsets[(int) (key >>> 32) + 1];
+        for (int i = 0; i < prefix.length(); i++, at++) {
+            if (at == end) return -1;
+            int cmp = foldedNames.charAt(at) - prefix.charAt(i);
+            if (cmp != 0) return cmp;
+        }
+        return 0;
+    }
+
+    /**
+     * The first of this index's keys that sorts after {@code key}, a key into {@code other}.
+     */
+    private int insertionPoint(Text text, Text other, long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (text.compare(keys[mid], other, key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Ranks names by length, then by folded text, then by ordinal, using the order the whole-name keys already
+     * sorted in: two of them hold the same text when their lengths match and so does every char between them.
+     */
+    private void rank() {
+        int[] alphabetical = new int[ranks.length];
+        long[] groups = new long[ranks.length];
+        int[] groupEnds = new int[ranks.length + 1];
+        int count = 0;
+        int groupCount = 0;
+        int previousLength = -1;
+        int shared = 0;
+        for (int i = 0; i < keys.length; i++) {
+            shared = Math.min(shared, lcps[i]);
+            if ((int) keys[i] != 0) continue;
+
+            int ordinal = (int) (keys[i] >>> 32);
+            int length = nameOffsets[ordinal + 1] - nameOffsets[ordinal];
+            if (length != previousLength || shared < length) {
+                groups[groupCount++] = (long) length << 32 | count;
+            }
+            alphabetical[count++] = ordinal;
+            groupEnds[(int) groups[groupCount - 1]] = count;
+            previousLength = length;
+            shared = Integer.MAX_VALUE;
+        }
+
+        Arrays.sort(groups, 0, groupCount);
+        int rank = 0;
+        for (int g = 0; g < groupCount; g++) {
+            int from = (int) groups[g];
+            Arrays.sort(alphabetical, from, groupEnds[from]);
+            for (int i = from; i < groupEnds[from]; i++) {
+                byRank[rank] = alphabetical[i];
+                ranks[alphabetical[i]] = rank++;
+            }
+        }
+    }
+
+    /**
+     * Walks the nodes bottom up, as the intervals of keys sharing a longest common prefix, and keeps the best
+     * ranks of each. Returns them for the nodes past the scan limit, {@value #MAX_SUGGESTIONS} a node.
+     */
+    private int[] precompute() {
+        int[] stored = new int[MAX_SUGGESTIONS * 16];
+        int storedSize = 0;
+        if (keys.length == 0) {
+            return stored;
+        }
+
+        int depth = 0;
+        int[] depths = new int[16];
+        int[] starts = new int[16];
+        int[][] tops = new int[16][];
+        tops[0] = empty();
+
+        for (int i = 1; i <= keys.length; i++) {
+            int leaf = ranks[(int) (keys[i - 1] >>> 32)];
+            int shared = i < keys.length ? lcps[i] : 0;
+            if (shared > depths[depth]) {
+                if (++depth == depths.length) {
+                    depths = Arrays.copyOf(depths, depth * 2);
+                    starts = Arrays.copyOf(starts, depth * 2);
+                    tops = Arrays.copyOf(tops, depth * 2);
+                }
+                depths[depth] = shared;
+                starts[depth] = i - 1;
+                tops[depth] = empty();
+                insert(tops[depth], leaf);
+                continue;
+            }
+
+            insert(tops[depth], leaf);
+            while (shared < depths[depth]) {
+                int[] node = tops[depth];
+                int start = starts[depth--];
+                if (i - start > SCAN_LIMIT) {
+                    if (storedSize + MAX_SUGGESTIONS > stored.length) {
+                        stored = Arrays.copyOf(stored, stored.length * 2);
+                    }
+                    System.arraycopy(node, 0, stored, storedSize, MAX_SUGGESTIONS);
+                    store(start, i, storedSize);
+                    storedSize += MAX_SUGGESTIONS;
+                }
+                if (shared > depths[depth]) {
+                    depths[++depth] = shared;
+                    starts[depth] = start;
+                    tops[depth] = node;
+                } else {
+                    merge(tops[depth], node);
+                }
+            }
+        }
+        if (keys.length > SCAN_LIMIT) {
+            if (storedSize + MAX_SUGGESTIONS > stored.length) {
+                stored = Arrays.copyOf(stored, stored.length + MAX_SUGGESTIONS);
+            }
+            System.arraycopy(tops[0], 0, stored, storedSize, MAX_SUGGESTIONS);
+            store(0, keys.length, storedSize);
+            storedSize += MAX_SUGGESTIONS;
+        }
+        return Arrays.copyOf(stored, storedSize);
+    }
+
+    private static int[] empty() {
+        int[] top = new int[MAX_SUGGESTIONS];
+        Arrays.fill(top, -1);
+        return top;
+    }
+
+    private static void insert(int[] top, int rank) {
+        int at = 0;
+        while (at < top.length && top[at] >= 0 && top[at] < rank) {
+            at++;
+        }
+        if (at == top.length || top[at] == rank) return;
+        System.arraycopy(top, at, top, at + 1, top.length - at - 1);
+        top[at] = rank;
+    }
+
+    /**
+     * Merges the ascending ranks of {@code from} into {@code into}, keeping the lowest distinct ones; unused
+     * places hold -1 at the end.
+     */
+    private static void merge(int[] into, int[] from) {
+        int[] merged = new int[MAX_SUGGESTIONS];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (size < MAX_SUGGESTIONS) {
+            int a = i < into.length ? into[i] : -1;
+            int b = j < from.length ? from[j] : -1;
+            int next;
+            if (a < 0 && b < 0) break;
+            if (b < 0 || a >= 0 && a <= b) {
+                next = a;
+                i++;
+                if (a == b) j++;
+            } else {
+                next = b;
+                j++;
+            }
+            merged[size++] = next;
+        }
+        Arrays.fill(merged, size, MAX_SUGGESTIONS, -1);
+        System.arraycopy(merged, 0, into, 0, MAX_SUGGESTIONS);
+    }
+
+    private void store(int from, int to, int at) {
+        if (++nodeCount * 2 > nodes.length) {
+            long[] oldNodes = nodes;
+            int[] oldSlots = nodeSlots;
+            nodes = new long[oldNodes.length * 2];
+            nodeSlots = new int[oldNodes.length * 2];
+            for (int i = 0; i < oldNodes.length; i++) {
+                if (oldNodes[i] != 0) {
+                    put(oldNodes[i], oldSlots[i]);
+                }
+            }
+        }
+        put((long) from << 32 | to, at);
+    }
+
+    private void put(long node, int at) {
+        int mask = nodes.length - 1;
+        int slot = slot(node, mask);
+        while (nodes[slot] != 0 && nodes[slot] != node) {
+            slot = (slot + 1) & mask;
+        }
+        nodes[slot] = node;
+        nodeSlots[slot] = at;
+    }
+
+    /**
+     * Where the best ranks of the node spanning the keys are stored, or -1 if they were not.
+     */
+    private int node(int from, int to) {
+        long node = (long) from << 32 | to;
+        int mask = nodes.length - 1;
+        for (int slot = slot(node, mask); ; slot = (slot + 1) & mask) {
+            if (nodes[slot] == node) return nodeSlots[slot];
+            if (nodes[slot] == 0) return -1;
+        }
+    }
+
+    private static int slot(long node, int mask) {
+        long hash = node * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    /**
+     * A key for the start of the name and for every letter or digit that follows anything else, for all
+     * names or, with {@code only}, for those ordinals.
+     */
+    private static long[] keysOf(String foldedNames, int[] offsets, int[] only) {
+        int count = only != null ? only.length : offsets.length - 1;
+        long[] keys = new long[Math.max(16, count * 4)];
+        int size = 0;
+        for (int n = 0; n < count; n++) {
+            int ordinal = only != null ? only[n] : n;
+            int start = offsets[ordinal];
+            for (int at = start; at == start || at < offsets[ordinal + 1]; at++) {
+                if (at == start || Character.isLetterOrDigit(foldedNames.charAt(at))
+                        && !Character.isLetterOrDigit(foldedNames.charAt(at - 1))) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, size * 2);
+                    }
+                    keys[size++] = (long) ordinal << 32 | (at - start);
+                }
+            }
+        }
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * The folded names keys point into, with the comparisons and the sort the index needs.
+     */
+    private record Text(String foldedNames, int[] offsets) {
+
+        /** chars cached per key while sorting, each one plus one so that 0 marks the end of the key */
+        private static final int CHUNK = 3;
+
+        private int charAt(long key, int depth) {
+            int ordinal = (int) (key >>> 32);
+            int at = offsets[ordinal] + (int) key + depth;
+            return at < offsets[ordinal + 1] ? foldedNames.charAt(at) : -1;
+        }
+
+        private int compare(long key, Text other, long otherKey) {
+            for (int depth = 0; ; depth++) {
+                int a = charAt(key, depth);
+                int b = other.charAt(otherKey, depth);
+                if (a != b) return a - b;
+                if (a < 0) return 0;
+            }
+        }
+
+        private int commonPrefix(long key, Text other, long otherKey) {
+            for (int depth = 0; ; depth++) {
+                int a = charAt(key, depth);
+                if (a < 0 || a != other.charAt(otherKey, depth)) return depth;
+            }
+        }
+
+        private long chunk(long key, int depth) {
+            long chunk = 0;
+            for (int i = 0; i < CHUNK; i++) {
+                chunk = chunk << 17 | (charAt(key, depth + i) + 1);
+            }
+            return chunk;
+        }
+
+        /**
+         * Three-way radix quicksort on the next {@value #CHUNK} chars of each key, which are read from the
+         * names once per key and level instead of once per comparison.
+         */
+        private void sort(long[] keys) {
+            long[] chunks = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                chunks[i] = chunk(keys[i], 0);
+            }
+            sort(keys, chunks, 0, keys.length, 0);
+        }
+
+        private void sort(long[] keys, long[] chunks, int from, int to, int depth) {
+            while (to - from > 1) {
+                long pivot = median(chunks[from], chunks[(from + to) >>> 1], chunks[to - 1]);
+                int lt = from;
+                int gt = to - 1;
+                int i = from;
+                while (i <= gt) {
+                    if (chunks[i] < pivot) {
+                        swap(keys, chunks, lt++, i++);
+                    } else if (chunks[i] > pivot) {
+                        swap(keys, chunks, i, gt--);
+                    } else {
+                        i++;
+                    }
+                }
+                sort(keys, chunks, from, lt, depth);
+                sort(keys, chunks, gt + 1, to, depth);
+                if ((pivot & 0x1FFFF) == 0) return;
+
+                from = lt;
+                to = gt + 1;
+                depth += CHUNK;
+                for (int k = from; k < to; k++) {
+                    chunks[k] = chunk(keys[k], depth);
+                }
+            }
+        }
+
+        private static long median(long a, long b, long c) {
+            return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+        }
+
+        private static void swap(long[] keys, long[] chunks, int i, int j) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            long chunk = chunks[i];
+            chunks[i] = chunks[j];
+            chunks[j] = chunk;
+        }
+    }
+}
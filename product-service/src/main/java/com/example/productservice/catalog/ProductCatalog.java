@@ -0,0 +1,144 @@
+package com.example.productservice.catalog;
+
+import com.example.productservice.model.Product;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link CatalogSnapshot} of the products collection, which stays the source of truth. The catalog
+ * is loaded in full at startup and every {@code full-reload-interval-ms}, which also drops deleted products.
+ * In between, products whose updatedAt is at or after the newest one seen (minus {@code poll-overlap-ms})
+ * are merged in every {@code poll-interval-ms}, together with the products read from Mongo on a lookup miss
+ * since the last poll, so the request that missed never waits for a snapshot to be built. Every change is
+ * published by swapping in a new snapshot, so readers never wait or see it half done.
+ */
+@Slf4j
+@Component
+public class ProductCatalog {
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration pollOverlap;
+    private final Map<String, Product> fetched = new ConcurrentHashMap<>();
+
+    private volatile CatalogSnapshot snapshot;
+    private volatile Instant watermark = Instant.EPOCH;
+
+    public ProductCatalog(MongoTemplate mongoTemplate,
+                          @Value("${product.catalog.poll-overlap-ms:5000}") long pollOverlapMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.pollOverlap = Duration.ofMillis(pollOverlapMs);
+    }
+
+    /**
+     * The current snapshot, or null until the first load has succeeded.
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    @PostConstruct
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(initialDelayString = "${product.catalog.full-reload-interval-ms:300000}",
+            fixedDelayString = "${product.catalog.full-reload-interval-ms:300000}")
+    public void reload() {
+        long start = System.nanoTime();
+        List<Product> products = new ArrayList<>();
+        try (Stream<Product> stream = mongoTemplate.stream(new Query(), Product.class)) {
+            stream.forEach(products::add);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to load the product catalog", ex);
+            return;
+        }
+
+        CatalogSnapshot loaded = CatalogSnapshot.of(products, snapshot);
+        synchronized (this) {
+            snapshot = loaded;
+            // polls resume from what this load saw, so changes made while it read are merged again
+            watermark = newest(products, Instant.EPOCH);
+        }
+        log.info("Loaded {} products into the catalog in {} ms, name index {} KB", loaded.size(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), loaded.nameIndexBytes() / 1024);
+    }
+
+    @Scheduled(fixedDelayString = "${product.catalog.poll-interval-ms:1000}")
+    public void poll() {
+        if (snapshot == null) {
+            return;
+        }
+
+        // read before the poll, so a product the poll finds as well is taken from the poll
+        List<Product> fetchedSince = new ArrayList<>();
+        for (String id : fetched.keySet()) {
+            Product product = fetched.remove(id);
+            if (product != null) {
+                fetchedSince.add(product);
+            }
+        }
+
+        Instant since = watermark.equals(Instant.EPOCH) ? Instant.EPOCH : watermark.minus(pollOverlap);
+        try {
+            List<Product> changed = mongoTemplate.find(
+                    Query.query(Criteria.where("updatedAt").gte(since)), Product.class);
+            List<Product> merged = new ArrayList<>(fetchedSince);
+            merged.addAll(changed);
+            merge(merged);
+            synchronized (this) {
+                watermark = newest(changed, watermark);
+            }
+        } catch (RuntimeException ex) {
+            fetchedSince.forEach(product -> fetched.putIfAbsent(product.getId(), product));
+            log.warn("Failed to poll product changes since {}", since, ex);
+        }
+    }
+
+    /**
+     * Reads the given products from Mongo and returns those that exist, which the next poll merges into the
+     * catalog.
+     */
+    public List<Product> fetch(Collection<String> ids) {
+        List<Product> found = mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), Product.class);
+        found.forEach(product -> fetched.put(product.getId(), product));
+        return found;
+    }
+
+    private synchronized void merge(List<Product> products) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        List<Product> changed = products.stream().filter(product -> !current.holds(product)).toList();
+        if (!changed.isEmpty()) {
+            snapshot = current.with(changed, Set.of());
+            log.debug("Merged {} changed products into the catalog", changed.size());
+        }
+    }
+
+    private static Instant newest(List<Product> products, Instant since) {
+        Instant newest = since;
+        for (Product product : products) {
+            if (product.getUpdatedAt() != null && product.getUpdatedAt().isAfter(newest)) {
+                newest = product.getUpdatedAt();
+            }
+        }
+        return newest;
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.productservice.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Inverted index from the case-folded trigrams of each name to the ordinals of the names that contain them.
+ * Each posting list is kept as ascending ordinals, delta and varint encoded into one shared byte array, so a
+ * trigram most names share costs about a byte per name. The index only narrows the candidates: a substring
+ * of a name holds every trigram of the query, but the reverse is not true, so candidates must be verified.
+ */
+final class TrigramIndex {
+
+    /** next posting list is only intersected while it is at most this many times larger than the candidates */
+    private static final int MAX_INTERSECT_RATIO = 16;
+
+    private final long[] keys;
+    private final int[] slots;
+    private final int[] starts;
+    private final int[] counts;
+    private final byte[] postings;
+
+    private TrigramIndex(long[] keys, int[] slots, int[] starts, int[] counts, byte[] postings) {
+        this.keys = keys;
+        this.slots = slots;
+        this.starts = starts;
+        this.counts = counts;
+        this.postings = postings;
+    }
+
+    /**
+     * Indexes the names stored back to back and already folded in {@code foldedNames}, name {@code i} spanning
+     * {@code offsets[i]} to {@code offsets[i + 1]}.
+     */
+    static TrigramIndex build(String foldedNames, int[] offsets) {
+        Builder builder = new Builder();
+        for (int ordinal = 0; ordinal + 1 < offsets.length; ordinal++) {
+            for (int at = offsets[ordinal]; at + 3 <= offsets[ordinal + 1]; at++) {
+                long key = key(foldedNames, at);
+                if (key >= 0) {
+                    builder.add(key, ordinal);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * The index of a snapshot derived from the one {@code previous} was built for, with {@code moved} and
+     * {@code added} as for {@link PrefixIndex#update}. Only the added names are split into trigrams; every kept
+     * posting list is read once in order, its ordinals moved, and written out again with the added ordinals
+     * merged in. Lists left empty keep their trigram until the next full build.
+     */
+    static TrigramIndex update(TrigramIndex previous, int[] moved, int[] added, String foldedNames, int[] offsets) {
+        Table table = new Table(previous.keys.clone(), previous.slots.clone(), previous.counts.length);
+        long[] fresh = new long[Math.max(16, added.length * 8)];
+        int freshSize = 0;
+        for (int ordinal : added) {
+            for (int at = offsets[ordinal]; at + 3 <= offsets[ordinal + 1]; at++) {
+                long key = key(foldedNames, at);
+                if (key < 0) continue;
+                if (freshSize == fresh.length) {
+                    fresh = Arrays.copyOf(fresh, freshSize * 2);
+                }
+                fresh[freshSize++] = (long) table.listOf(key) << 32 | ordinal;
+            }
+        }
+        Arrays.sort(fresh, 0, freshSize);
+
+        int lists = table.size;
+        int[] starts = new int[lists + 1];
+        int[] counts = new int[lists];
+        Writer writer = new Writer(previous.postings.length + freshSize * 5);
+        int next = 0;
+        for (int list = 0; list < lists; list++) {
+            writer.start();
+            int kept = list < previous.counts.length ? previous.counts[list] : 0;
+            int pos = kept > 0 ? previous.starts[list] : 0;
+            int old = -1;
+            for (int i = 0; i < kept; i++) {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = previous.postings[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                old += delta;
+                int ordinal = moved[old];
+                if (ordinal < 0) continue;
+                while (next < freshSize && (int) (fresh[next] >>> 32) == list && (int) fresh[next] < ordinal) {
+                    writer.add((int) fresh[next++]);
+                }
+                writer.add(ordinal);
+            }
+            while (next < freshSize && (int) (fresh[next] >>> 32) == list) {
+                writer.add((int) fresh[next++]);
+            }
+            counts[list] = writer.count;
+            starts[list + 1] = writer.length;
+        }
+        return new TrigramIndex(table.keys, table.slots, starts, counts, Arrays.copyOf(writer.bytes, writer.length));
+    }
+
+    /**
+     * Ascending ordinals of the names that may contain {@code term} ignoring case, or null when the term has
+     * no trigram to look up and every name is a candidate.
+     */
+    int[] candidates(String term) {
+        String folded = CatalogSnapshot.fold(term);
+        int[] lists = new int[Math.max(0, term.length() - 2)];
+        int found = 0;
+        for (int at = 0; at + 3 <= term.length(); at++) {
+            long key = key(folded, at);
+            if (key < 0) continue;
+            int list = find(key);
+            if (list < 0) return new int[0];
+            lists[found++] = list;
+        }
+        if (found == 0) {
+            return null;
+        }
+
+        long[] bySize = new long[found];
+        for (int i = 0; i < found; i++) {
+            bySize[i] = (long) counts[lists[i]] << 32 | lists[i];
+        }
+        Arrays.sort(bySize);
+
+        int[] candidates = decode((int) bySize[0]);
+        int previous = (int) bySize[0];
+        for (int i = 1; i < found && candidates.length > 0; i++) {
+            int list = (int) bySize[i];
+            if (list == previous) continue;
+            if ((long) counts[list] > (long) candidates.length * MAX_INTERSECT_RATIO) break;
+            candidates = intersect(candidates, list);
+            previous = list;
+        }
+        return candidates;
+    }
+
+    /**
+     * Bytes held by the posting lists and the trigram table.
+     */
+    long bytes() {
+        return postings.length + keys.length * 8L + (slots.length + starts.length + counts.length) * 4L;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == 0) return -1;
+            if (keys[slot] == key + 1) return slots[slot];
+        }
+    }
+
+    private int[] decode(int list) {
+        int[] ordinals = new int[counts[list]];
+        int pos = starts[list];
+        int ordinal = -1;
+        for (int i = 0; i < ordinals.length; i++) {
+            int delta = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = postings[pos++];
+                delta |= (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            ordinal += delta;
+            ordinals[i] = ordinal;
+        }
+        return ordinals;
+    }
+
+    private int[] intersect(int[] candidates, int list) {
+        int[] kept = new int[candidates.length];
+        int size = 0;
+        int next = 0;
+        int pos = starts[list];
+        int ordinal = -1;
+        for (int i = 0; i < counts[list] && next < candidates.length; i++) {
+            int delta = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = postings[pos++];
+                delta |= (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            ordinal += delta;
+            while (next < candidates.length && candidates[next] < ordinal) {
+                next++;
+            }
+            if (next < candidates.length && candidates[next] == ordinal) {
+                kept[size++] = ordinal;
+                next++;
+            }
+        }
+        return Arrays.copyOf(kept, size);
+    }
+
+    /**
+     * The trigram of folded text starting at {@code at} packed into 48 bits, or -1 when it holds half of a
+     * surrogate pair, whose case is only defined for the pair and so cannot be folded one char at a time.
+     */
+    private static long key(CharSequence folded, int at) {
+        long key = 0;
+        for (int i = at; i < at + 3; i++) {
+            char c = folded.charAt(i);
+            if (Character.isSurrogate(c)) return -1;
+            key = key << 16 | c;
+        }
+        return key;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    /**
+     * Writes one posting list after another as varint deltas into a growing array, skipping repeats.
+     */
+    private static final class Writer {
+
+        private byte[] bytes;
+        private int length;
+        private int count;
+        private int last;
+
+        private Writer(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        private void start() {
+            count = 0;
+            last = -1;
+        }
+
+        private void add(int ordinal) {
+            if (ordinal == last) return;
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length + (bytes.length >> 1) + 5);
+            }
+            length = encode(bytes, length, ordinal - last);
+            last = ordinal;
+            count++;
+        }
+    }
+
+    private static int encode(byte[] bytes, int at, int delta) {
+        while ((delta & ~0x7F) != 0) {
+            bytes[at++] = (byte) (delta & 0x7F | 0x80);
+            delta >>>= 7;
+        }
+        bytes[at++] = (byte) delta;
+        return at;
+    }
+
+    /**
+     * Open-addressing table from trigram, stored plus one so that 0 marks a free slot, to posting list.
+     */
+    private static final class Table {
+
+        private long[] keys;
+        private int[] slots;
+        private int size;
+
+        private Table(long[] keys, int[] slots, int size) {
+            this.keys = keys;
+            this.slots = slots;
+            this.size = size;
+        }
+
+        /**
+         * The list of the trigram, numbered next after the others when it is new.
+         */
+        private int listOf(long key) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != 0) {
+                if (keys[slot] == key + 1) return slots[slot];
+                slot = (slot + 1) & mask;
+            }
+
+            int list = size++;
+            keys[slot] = key + 1;
+            slots[slot] = list;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return list;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new long[oldKeys.length * 2];
+            slots = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) continue;
+                int slot = slot(oldKeys[i] - 1, mask);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                slots[slot] = oldSlots[i];
+            }
+        }
+    }
+
+    private static final class Builder {
+
+        private final Table table = new Table(new long[1024], new int[1024], 0);
+
+        private byte[][] postings = new byte[256][];
+        private int[] lengths = new int[256];
+        private int[] counts = new int[256];
+        private int[] last = new int[256];
+
+        private void add(long key, int ordinal) {
+            int list = listOf(key);
+            if (last[list] == ordinal) return;
+
+            int delta = ordinal - last[list];
+            last[list] = ordinal;
+            counts[list]++;
+            byte[] bytes = postings[list];
+            if (lengths[list] + 5 > bytes.length) {
+                bytes = postings[list] = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            lengths[list] = encode(bytes, lengths[list], delta);
+        }
+
+        private int listOf(long key) {
+            int lists = table.size;
+            int list = table.listOf(key);
+            if (list < lists) return list;
+
+            if (list == postings.length) {
+                int capacity = list * 2;
+                postings = Arrays.copyOf(postings, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                last = Arrays.copyOf(last, capacity);
+            }
+            postings[list] = new byte[8];
+            last[list] = -1;
+            return list;
+        }
+
+        private TrigramIndex build() {
+            int lists = table.size;
+            int[] starts = new int[lists + 1];
+            for (int list = 0; list < lists; list++) {
+                starts[list + 1] = starts[list] + lengths[list];
+            }
+            byte[] packed = new byte[starts[lists]];
+            for (int list = 0; list < lists; list++) {
+                System.arraycopy(postings[list], 0, packed, starts[list], lengths[list]);
+            }
+            return new TrigramIndex(table.keys, table.slots, starts, Arrays.copyOf(counts, lists), packed);
+        }
+    }
+}
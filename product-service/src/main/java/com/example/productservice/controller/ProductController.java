@@ -1,14 +1,20 @@
 package com.example.productservice.controller;
 
-import com.example.productservice.dto.GetProductResponse;
+import com.example.productservice.constant.Category;
+import com.example.productservice.dto.ProductSuggestion;
+import com.example.productservice.service.ProductJsonService;
 import com.example.productservice.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/product")
@@ -17,23 +23,56 @@ public class ProductController {
 
     private final ProductService productService;
 
+    private final ProductJsonService productJsonService;
+
     @GetMapping("/lists")
-    public ResponseEntity<Page<GetProductResponse>> getAllProducts(
+    public ResponseEntity<byte[]> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(productService.getAllProducts(PageRequest.of(page, size)));
+        return json(productJsonService.getAllProducts(PageRequest.of(page, size)));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<GetProductResponse>> searchProducts(
+    public ResponseEntity<byte[]> searchProducts(
             @RequestParam String productName,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(productService.searchProducts(productName, PageRequest.of(page, size)));
+        return json(productJsonService.searchProducts(productName, PageRequest.of(page, size)));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<byte[]> filterProducts(
+            @RequestParam(required = false) String productName,
+            @RequestParam(name = "category", required = false) Set<Category> categories,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return json(productJsonService.filterProducts(productName, categories != null ? categories : Set.of(),
+                minPrice, maxPrice, PageRequest.of(page, size)));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(productService.suggest(prefix, size));
     }
 
     @GetMapping("/product-detail/{id}")
-    public ResponseEntity<GetProductResponse> getProductDetail(@PathVariable String id) {
-        return ResponseEntity.ok(productService.getProductDetail(id));
+    public ResponseEntity<byte[]> getProductDetail(@PathVariable String id) {
+        return json(productJsonService.getProductDetail(id));
+    }
+
+    @GetMapping("/product-details")
+    public ResponseEntity<byte[]> getProductDetails(@RequestParam List<String> ids) {
+        return json(productJsonService.getProductDetails(ids));
+    }
+
+    /**
+     * Responses already serialized to JSON are written as they are.
+     */
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.example.productservice.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+/**
+ * A page of filtered products with, per category, how many products the same filter finds in it when the
+ * category filter is left out.
+ */
+public record FacetedProductsResponse<T>(
+        Page<T> products,
+        Map<String, Integer> categoryCounts
+) {}
@@ -0,0 +1,6 @@
+package com.example.productservice.dto;
+
+public record ProductSuggestion(
+        String id,
+        String name
+) {}
@@ -7,6 +7,7 @@ import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 @Document(collection = "products")
 @Getter
@@ -27,4 +28,8 @@ public class Product {
     private Category category;
 
     private BigDecimal price;
+
+    /** stamped by writers so the in-memory catalog picks the change up on its next poll */
+    @Indexed
+    private Instant updatedAt;
 }
\ No newline at end of file
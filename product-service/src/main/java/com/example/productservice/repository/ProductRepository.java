@@ -4,11 +4,12 @@ import com.example.productservice.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 
 public interface ProductRepository extends MongoRepository<Product, String> {
-    @Query("{ $or: [ " +
-            "{ 'name': { $regex: ?0, $options: 'i' } }, " +
-            "] }")
+
+    /**
+     * Names containing the term ignoring case. The term is a literal: the derived query quotes it into the
+     * $regex itself.
+     */
     Page<Product> findByNameContainingIgnoreCase(String searchTerm, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.example.productservice.service;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Byte-bounded cache of responses already serialized to UTF-8 JSON: one entry per product, keyed by id, and
+ * one per page of products, whose content is spliced in from the product entries. An entry remembers the
+ * version it was serialized from, {@link CatalogSnapshot#version(int)} for a product and
+ * {@link CatalogSnapshot#version()} for a page, and is only served while that version is current, so a
+ * changed product or a page over a changed catalog is serialized again on its next read. Entries nobody
+ * reads again are left for the byte bound to evict. A hit counts the time its entry took to serialize as
+ * saved.
+ */
+@Component
+public class ProductJsonCache {
+
+    /** rough bytes an entry holds beside its JSON: key, entry, array header and the cache's own node */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Object, Entry> cache;
+
+    private final Counter productHits;
+    private final Counter productMisses;
+    private final Counter pageHits;
+    private final Counter pageMisses;
+    private final Counter serializationSaved;
+
+    public ProductJsonCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                            @Value("${product.json-cache.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Object key, Entry entry) -> ENTRY_OVERHEAD + entry.json().length)
+                .build();
+
+        this.productHits = meterRegistry.counter("product.json-cache.requests", "kind", "product", "result", "hit");
+        this.productMisses = meterRegistry.counter("product.json-cache.requests", "kind", "product", "result", "miss");
+        this.pageHits = meterRegistry.counter("product.json-cache.requests", "kind", "page", "result", "hit");
+        this.pageMisses = meterRegistry.counter("product.json-cache.requests", "kind", "page", "result", "miss");
+        this.serializationSaved = Counter.builder("product.json-cache.serialization-saved")
+                .baseUnit("seconds")
+                .description("Time the cache hits took to serialize when they were stored")
+                .register(meterRegistry);
+        Gauge.builder("product.json-cache.bytes", this, ProductJsonCache::bytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The product's JSON, as its {@code GetProductResponse} serializes.
+     */
+    public byte[] product(CatalogSnapshot catalog, int ordinal) {
+        return get(productHits, productMisses, catalog.id(ordinal), catalog.version(ordinal),
+                () -> ProductServiceImpl.toResponse(catalog, ordinal));
+    }
+
+    /**
+     * The JSON of the page {@code key} identifies within the catalog, serializing what {@code page} builds on
+     * a miss.
+     */
+    public byte[] page(List<Object> key, CatalogSnapshot catalog, Supplier<Object> page) {
+        return get(pageHits, pageMisses, key, catalog.version(), page);
+    }
+
+    /**
+     * The products' cached JSON, each written as is when the list is serialized.
+     */
+    public List<RawValue> products(CatalogSnapshot catalog, int[] ordinals) {
+        List<RawValue> products = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            products.add(new RawValue(new String(product(catalog, ordinal), StandardCharsets.UTF_8)));
+        }
+        return products;
+    }
+
+    public byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Failed to serialize " + value.getClass().getSimpleName(), ex);
+        }
+    }
+
+    public long bytes() {
+        return cache.policy().eviction().orElseThrow().weightedSize().orElse(0);
+    }
+
+    private byte[] get(Counter hits, Counter misses, Object key, long version, Supplier<Object> value) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            serializationSaved.increment(entry.serializationNanos() / 1e9);
+            return entry.json();
+        }
+        misses.increment();
+
+        long start = System.nanoTime();
+        byte[] json = encode(value.get());
+        Entry fresh = new Entry(version, json, System.nanoTime() - start);
+        // a reader still on an older snapshot must not replace what a newer one stored
+        cache.asMap().merge(key, fresh, (stored, ignored) -> stored.version() > version ? stored : fresh);
+        return json;
+    }
+
+    private record Entry(long version, byte[] json, long serializationNanos) {}
+}
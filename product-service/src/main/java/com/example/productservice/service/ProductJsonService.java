@@ -0,0 +1,111 @@
+package com.example.productservice.service;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.catalog.ProductCatalog;
+import com.example.productservice.constant.Category;
+import com.example.productservice.dto.FacetedProductsResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * The {@link ProductService} reads as the JSON bytes they serialize to, taken from the {@link ProductJsonCache}
+ * when the catalog can answer them. Whatever the catalog cannot answer is passed on to {@link ProductService}
+ * and serialized without caching.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductJsonService {
+
+    private final ProductService productService;
+
+    private final ProductCatalog productCatalog;
+
+    private final ProductJsonCache jsonCache;
+
+    public byte[] getAllProducts(Pageable pageable) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog == null || pageable.getSort().isSorted()) {
+            return jsonCache.encode(productService.getAllProducts(pageable));
+        }
+
+        return jsonCache.page(List.of("lists", pageable), catalog, () -> {
+            int from = (int) Math.min(pageable.getOffset(), catalog.size());
+            int to = Math.min(from + pageable.getPageSize(), catalog.size());
+            return new PageImpl<>(jsonCache.products(catalog, IntStream.range(from, to).toArray()), pageable,
+                    catalog.size());
+        });
+    }
+
+    public byte[] searchProducts(String productName, Pageable pageable) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog == null || pageable.getSort().isSorted()) {
+            return jsonCache.encode(productService.searchProducts(productName, pageable));
+        }
+
+        return jsonCache.page(List.of("search", productName, pageable), catalog, () -> {
+            CatalogSnapshot.Matches matches = catalog.search(productName, pageable.getOffset(),
+                    pageable.getPageSize());
+            return new PageImpl<>(jsonCache.products(catalog, matches.ordinals()), pageable, matches.total());
+        });
+    }
+
+    public byte[] filterProducts(String productName, Set<Category> categories, BigDecimal minPrice,
+                                 BigDecimal maxPrice, Pageable pageable) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog == null) {
+            return jsonCache.encode(productService.filterProducts(productName, categories, minPrice, maxPrice,
+                    pageable));
+        }
+
+        List<Object> key = Arrays.asList("filter", productName, categories, minPrice, maxPrice, pageable);
+        return jsonCache.page(key, catalog, () -> {
+            CatalogSnapshot.Facets facets = catalog.filter(productName, categories, minPrice, maxPrice,
+                    pageable.getOffset(), pageable.getPageSize());
+            return new FacetedProductsResponse<>(
+                    new PageImpl<>(jsonCache.products(catalog, facets.ordinals()), pageable, facets.total()),
+                    ProductServiceImpl.categoryCounts(facets));
+        });
+    }
+
+    public byte[] getProductDetail(String id) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        int ordinal = catalog != null ? catalog.ordinal(id) : -1;
+        if (ordinal < 0) {
+            return jsonCache.encode(productService.getProductDetail(id));
+        }
+        return jsonCache.product(catalog, ordinal);
+    }
+
+    /**
+     * Joins the products' cached JSON into an array when the catalog holds every id.
+     */
+    public byte[] getProductDetails(List<String> ids) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        int[] ordinals = catalog != null
+                ? ids.stream().distinct().mapToInt(catalog::ordinal).toArray()
+                : new int[] {-1};
+        if (Arrays.stream(ordinals).anyMatch(ordinal -> ordinal < 0)) {
+            return jsonCache.encode(productService.getProductDetails(ids));
+        }
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.write('[');
+        for (int i = 0; i < ordinals.length; i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            json.writeBytes(jsonCache.product(catalog, ordinals[i]));
+        }
+        json.write(']');
+        return json.toByteArray();
+    }
+}
@@ -1,14 +1,40 @@
 package com.example.productservice.service;
 
+import com.example.productservice.constant.Category;
+import com.example.productservice.dto.FacetedProductsResponse;
 import com.example.productservice.dto.GetProductResponse;
+import com.example.productservice.dto.ProductSuggestion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
 public interface ProductService {
 
     Page<GetProductResponse> getAllProducts(Pageable pageable);
 
     Page<GetProductResponse> searchProducts(String productName, Pageable pageable);
 
+    /**
+     * Products matching every given filter, a null or empty one matching everything, with counts per category.
+     * Served from memory only.
+     */
+    FacetedProductsResponse<GetProductResponse> filterProducts(String productName, Set<Category> categories,
+                                                               BigDecimal minPrice, BigDecimal maxPrice,
+                                                               Pageable pageable);
+
+    /**
+     * Best ranked products with a word in their name starting with the prefix, served from memory only; empty
+     * until the catalog has loaded.
+     */
+    List<ProductSuggestion> suggest(String prefix, int size);
+
     GetProductResponse getProductDetail(String id);
+
+    /**
+     * Resolves all ids in one query; ids that do not exist are left out of the result.
+     */
+    List<GetProductResponse> getProductDetails(List<String> ids);
 }
\ No newline at end of file
@@ -1,39 +1,125 @@
 package com.example.productservice.service;
 
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.catalog.ProductCatalog;
+import com.example.productservice.constant.Category;
+import com.example.productservice.dto.FacetedProductsResponse;
 import com.example.productservice.dto.GetProductResponse;
+import com.example.productservice.dto.ProductSuggestion;
 import com.example.productservice.exception.BusinessException;
 import com.example.productservice.model.Product;
 import com.example.productservice.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads are answered from the in-memory {@link ProductCatalog}. Mongo is only read for ids the catalog does
+ * not know yet, and for everything while the catalog has not loaded or when a page asks for a sort.
+ */
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
 
+    private final ProductCatalog productCatalog;
+
     @Override
     @Transactional(readOnly = true)
     public Page<GetProductResponse> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable)
-                .map(this::toResponse);
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog == null || pageable.getSort().isSorted()) {
+            return productRepository.findAll(pageable)
+                    .map(this::toResponse);
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), catalog.size());
+        int to = Math.min(from + pageable.getPageSize(), catalog.size());
+        List<GetProductResponse> content = new ArrayList<>(to - from);
+        for (int ordinal = from; ordinal < to; ordinal++) {
+            content.add(toResponse(catalog, ordinal));
+        }
+        return new PageImpl<>(content, pageable, catalog.size());
     }
 
+    /**
+     * Names containing the term ignoring case. The term is a literal, also when it falls back to Mongo, whose
+     * derived $regex query quotes it.
+     */
     @Override
     @Transactional(readOnly = true)
     public Page<GetProductResponse> searchProducts(String productName, Pageable pageable) {
-        return productRepository.findByNameContainingIgnoreCase(productName, pageable)
-                .map(this::toResponse);
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog == null || pageable.getSort().isSorted()) {
+            return productRepository.findByNameContainingIgnoreCase(productName, pageable)
+                    .map(this::toResponse);
+        }
+
+        CatalogSnapshot.Matches matches = catalog.search(productName, pageable.getOffset(), pageable.getPageSize());
+        List<GetProductResponse> content = new ArrayList<>(matches.ordinals().length);
+        for (int ordinal : matches.ordinals()) {
+            content.add(toResponse(catalog, ordinal));
+        }
+        return new PageImpl<>(content, pageable, matches.total());
+    }
+
+    /**
+     * Not answered from Mongo: the catalog loads before the server takes requests, so it is only missing when
+     * Mongo could not be read.
+     */
+    @Override
+    public FacetedProductsResponse<GetProductResponse> filterProducts(String productName, Set<Category> categories,
+                                                                      BigDecimal minPrice, BigDecimal maxPrice,
+                                                                      Pageable pageable) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog == null) {
+            throw new BusinessException("CATALOG_NOT_LOADED", "Product catalog is not loaded yet");
+        }
+
+        CatalogSnapshot.Facets facets = catalog.filter(productName, categories, minPrice, maxPrice,
+                pageable.getOffset(), pageable.getPageSize());
+        List<GetProductResponse> content = new ArrayList<>(facets.ordinals().length);
+        for (int ordinal : facets.ordinals()) {
+            content.add(toResponse(catalog, ordinal));
+        }
+        return new FacetedProductsResponse<>(new PageImpl<>(content, pageable, facets.total()),
+                categoryCounts(facets));
+    }
+
+    @Override
+    public List<ProductSuggestion> suggest(String prefix, int size) {
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        if (catalog == null) {
+            return List.of();
+        }
+        List<ProductSuggestion> suggestions = new ArrayList<>();
+        for (int ordinal : catalog.suggest(prefix, size)) {
+            suggestions.add(new ProductSuggestion(catalog.id(ordinal), catalog.name(ordinal)));
+        }
+        return suggestions;
     }
 
     @Override
     @Transactional(readOnly = true)
     public GetProductResponse getProductDetail(String id) {
-        return productRepository.findById(id)
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        int ordinal = catalog != null ? catalog.ordinal(id) : -1;
+        if (ordinal >= 0) {
+            return toResponse(catalog, ordinal);
+        }
+        return productCatalog.fetch(Set.of(id)).stream()
+                .findFirst()
                 .map(this::toResponse)
                 .orElseThrow(() -> new BusinessException(
                         "PRODUCT_NOT_FOUND",
@@ -41,6 +127,47 @@ public class ProductServiceImpl implements ProductService {
                 ));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<GetProductResponse> getProductDetails(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CatalogSnapshot catalog = productCatalog.snapshot();
+        List<GetProductResponse> products = new ArrayList<>();
+        List<String> misses = new ArrayList<>();
+        for (String id : ids.stream().distinct().toList()) {
+            int ordinal = catalog != null ? catalog.ordinal(id) : -1;
+            if (ordinal >= 0) {
+                products.add(toResponse(catalog, ordinal));
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            productCatalog.fetch(misses).forEach(product -> products.add(toResponse(product)));
+        }
+        return products;
+    }
+
+    static Map<String, Integer> categoryCounts(CatalogSnapshot.Facets facets) {
+        Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+        for (Category category : Category.values()) {
+            categoryCounts.put(category.name(), facets.categoryCounts()[category.ordinal()]);
+        }
+        return categoryCounts;
+    }
+
+    static GetProductResponse toResponse(CatalogSnapshot catalog, int ordinal) {
+        return new GetProductResponse(
+                catalog.id(ordinal),
+                catalog.name(ordinal),
+                catalog.description(ordinal),
+                catalog.category(ordinal).name(),
+                catalog.price(ordinal)
+        );
+    }
+
     private GetProductResponse toResponse(Product product) {
         return new GetProductResponse(
                 product.getId(),
@@ -50,4 +177,4 @@ public class ProductServiceImpl implements ProductService {
                 product.getPrice()
         );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,362 @@
+package com.example.productservice;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    private static Product product(String id, String name, Category category, String price) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .description("desc " + name)
+                .category(category)
+                .price(new BigDecimal(price))
+                .build();
+    }
+
+    @Test
+    void testFieldsAreServedByOrdinalInIdOrder() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                product("b", "Smartphone", Category.ELECTRONICS, "499.00"),
+                product("a", "Novel", Category.BOOKS, "9.99")));
+
+        assertEquals(2, snapshot.size());
+        assertEquals(0, snapshot.ordinal("a"));
+        assertEquals(1, snapshot.ordinal("b"));
+        assertEquals(-1, snapshot.ordinal("c"));
+        assertEquals("Novel", snapshot.name(0));
+        assertEquals("desc Novel", snapshot.description(0));
+        assertEquals(Category.BOOKS, snapshot.category(0));
+        assertEquals(new BigDecimal("9.99"), snapshot.price(0));
+        assertEquals("Smartphone", snapshot.name(1));
+    }
+
+    @Test
+    void testEveryIdOfALargeCatalogResolves() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            products.add(product(String.format("%024x", i * 7919L), "Product " + i, Category.TOYS, "1.00"));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+
+        for (Product product : products) {
+            int ordinal = snapshot.ordinal(product.getId());
+            assertEquals(product.getId(), snapshot.id(ordinal));
+            assertEquals(product.getName(), snapshot.name(ordinal));
+        }
+        assertEquals(-1, snapshot.ordinal("missing"));
+    }
+
+    @Test
+    void testProductsKeepTheirVersionUntilTheyChange() {
+        CatalogSnapshot first = CatalogSnapshot.of(List.of(
+                product("a", "Laptop", Category.ELECTRONICS, "999.00"),
+                product("b", "Phone", Category.ELECTRONICS, "499.00")));
+        CatalogSnapshot changed = first.with(List.of(product("b", "Phone", Category.ELECTRONICS, "449.00"),
+                product("c", "Novel", Category.BOOKS, "9.99")), Set.of());
+        CatalogSnapshot reloaded = CatalogSnapshot.of(List.of(
+                product("a", "Laptop", Category.ELECTRONICS, "999.00"),
+                product("b", "Phone", Category.ELECTRONICS, "449.00"),
+                product("c", "Novel", Category.BOOKS, "12.99")), changed);
+
+        assertTrue(changed.version() > first.version());
+        assertTrue(reloaded.version() > changed.version());
+        assertEquals(first.version(), changed.version(changed.ordinal("a")));
+        assertEquals(changed.version(), changed.version(changed.ordinal("b")));
+        assertEquals(changed.version(), changed.version(changed.ordinal("c")));
+        assertEquals(first.version(), reloaded.version(reloaded.ordinal("a")));
+        assertEquals(changed.version(), reloaded.version(reloaded.ordinal("b")));
+        assertEquals(reloaded.version(), reloaded.version(reloaded.ordinal("c")));
+    }
+
+    @Test
+    void testWithAddsReplacesAndRemoves() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                product("a", "Novel", Category.BOOKS, "9.99"),
+                product("c", "Lamp", Category.FURNITURE, "20.00"),
+                product("e", "Ball", Category.SPORTS, "5.00")));
+
+        CatalogSnapshot next = snapshot.with(List.of(
+                product("c", "Desk Lamp", Category.FURNITURE, "25.00"),
+                product("d", "Kettle", Category.HOME_APPLIANCES, "30.00"),
+                product("f", "Car Wax", Category.AUTOMOTIVE, "12.00")), Set.of("a"));
+
+        assertEquals(List.of("c", "d", "e", "f"), List.of(next.id(0), next.id(1), next.id(2), next.id(3)));
+        assertEquals("Desk Lamp", next.name(next.ordinal("c")));
+        assertEquals(new BigDecimal("25.00"), next.price(next.ordinal("c")));
+        assertEquals("Ball", next.name(next.ordinal("e")));
+        assertEquals(-1, next.ordinal("a"));
+        assertEquals("Lamp", snapshot.name(snapshot.ordinal("c")));
+    }
+
+    @Test
+    void testHoldsDetectsChanges() {
+        Product lamp = product("c", "Lamp", Category.FURNITURE, "20.00");
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(lamp));
+
+        assertTrue(snapshot.holds(product("c", "Lamp", Category.FURNITURE, "20.00")));
+        assertFalse(snapshot.holds(product("c", "Lamp", Category.FURNITURE, "21.00")));
+        assertFalse(snapshot.holds(product("c", "Lamp", Category.HOME_APPLIANCES, "20.00")));
+        assertFalse(snapshot.holds(product("d", "Lamp", Category.FURNITURE, "20.00")));
+    }
+
+    @Test
+    void testSearchPagesMatchesAndCountsThemAll() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                product("a", "Laptop", Category.ELECTRONICS, "1.00"),
+                product("b", "Mouse", Category.ELECTRONICS, "1.00"),
+                product("c", "laptop bag", Category.FASHION, "1.00"),
+                product("d", "Overlap", Category.TOYS, "1.00")));
+
+        CatalogSnapshot.Matches first = snapshot.search("LAP", 0, 2);
+        CatalogSnapshot.Matches second = snapshot.search("lap", 2, 2);
+
+        assertArrayEquals(new int[] {0, 2}, first.ordinals());
+        assertEquals(3, first.total());
+        assertArrayEquals(new int[] {3}, second.ordinals());
+        assertArrayEquals(new int[] {2}, snapshot.search("top b", 0, 10).ordinals());
+        assertArrayEquals(new int[] {0, 2}, snapshot.search("laptop", 0, 10).ordinals());
+        assertEquals(4, snapshot.search("", 0, 10).total());
+        assertEquals(0, snapshot.search("lapx", 0, 10).total());
+    }
+
+    @Test
+    void testSearchAgreesWithScanningEveryName() {
+        Random random = new Random(7);
+        String alphabet = "abAB .+İıßẞΣσς";
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            products.add(product(String.format("p%05d", i), randomText(random, alphabet, 2 + random.nextInt(12)),
+                    Category.BOOKS, "1.00"));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+
+        for (int i = 0; i < 500; i++) {
+            String term = randomText(random, alphabet, random.nextInt(6));
+            List<Integer> expected = new ArrayList<>();
+            for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+                String name = snapshot.name(ordinal);
+                for (int at = 0; at + term.length() <= name.length(); at++) {
+                    if (name.regionMatches(true, at, term, 0, term.length())) {
+                        expected.add(ordinal);
+                        break;
+                    }
+                }
+            }
+
+            CatalogSnapshot.Matches matches = snapshot.search(term, 0, snapshot.size());
+
+            assertEquals(expected, Arrays.stream(matches.ordinals()).boxed().toList(), term);
+            assertEquals(expected.size(), matches.total());
+        }
+    }
+
+    @Test
+    void testSearchAgreesWithScanningEveryNameAfterChanges() {
+        Random random = new Random(13);
+        String alphabet = "abAB .İıß";
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            products.add(product(String.format("p%05d", i), randomText(random, alphabet, 2 + random.nextInt(10)),
+                    Category.BOOKS, "1.00"));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+
+        for (int round = 0; round < 20; round++) {
+            List<Product> changed = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                changed.add(product(String.format("p%05d", random.nextInt(2_200)),
+                        randomText(random, alphabet, 2 + random.nextInt(10)), Category.BOOKS, "1.00"));
+            }
+            Set<String> removed = Set.of(String.format("p%05d", random.nextInt(2_200)),
+                    String.format("p%05d", random.nextInt(2_200)));
+            snapshot = snapshot.with(changed, removed);
+
+            for (int i = 0; i < 40; i++) {
+                String term = randomText(random, alphabet, 3 + random.nextInt(3));
+                List<Integer> expected = new ArrayList<>();
+                for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+                    String name = snapshot.name(ordinal);
+                    for (int at = 0; at + term.length() <= name.length(); at++) {
+                        if (name.regionMatches(true, at, term, 0, term.length())) {
+                            expected.add(ordinal);
+                            break;
+                        }
+                    }
+                }
+
+                assertEquals(expected, Arrays.stream(snapshot.search(term, 0, snapshot.size()).ordinals())
+                        .boxed().toList(), term);
+            }
+        }
+    }
+
+    @Test
+    void testSuggestRanksShorterNamesFirstAcrossWordStarts() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                product("a", "Gaming Laptop Pro", Category.ELECTRONICS, "1.00"),
+                product("b", "Laptop", Category.ELECTRONICS, "1.00"),
+                product("c", "laptop-bag", Category.FASHION, "1.00"),
+                product("d", "Overlap", Category.TOYS, "1.00"),
+                product("e", "Lamp", Category.BOOKS, "1.00")));
+
+        assertArrayEquals(new int[] {1, 2, 0}, snapshot.suggest("LAPT", 10));
+        assertArrayEquals(new int[] {4, 1}, snapshot.suggest("la", 2));
+        assertArrayEquals(new int[] {2}, snapshot.suggest("bag", 10));
+        assertArrayEquals(new int[0], snapshot.suggest("lap", 0));
+        assertArrayEquals(new int[0], snapshot.suggest("verlap", 10));
+        assertEquals(5, snapshot.suggest("", 10).length);
+    }
+
+    @Test
+    void testSuggestAgreesWithRankingEveryNameAfterChanges() {
+        Random random = new Random(11);
+        String alphabet = "aab b-AB";
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            products.add(product(String.format("p%05d", i), randomText(random, alphabet, random.nextInt(10)),
+                    Category.BOOKS, "1.00"));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+
+        for (int round = 0; round < 20; round++) {
+            List<Product> changed = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                changed.add(product(String.format("p%05d", random.nextInt(3_200)),
+                        randomText(random, alphabet, random.nextInt(10)), Category.BOOKS, "1.00"));
+            }
+            Set<String> removed = Set.of(String.format("p%05d", random.nextInt(3_200)));
+            snapshot = snapshot.with(changed, removed);
+
+            for (int i = 0; i < 40; i++) {
+                String prefix = randomText(random, alphabet, random.nextInt(4));
+                assertArrayEquals(expectedSuggestions(snapshot, prefix), snapshot.suggest(prefix, 10), prefix);
+            }
+        }
+    }
+
+    @Test
+    void testFilterCountsCategoriesUnderTheOtherFilters() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(
+                product("a", "Laptop", Category.ELECTRONICS, "999.00"),
+                product("b", "Laptop Sleeve", Category.FASHION, "25.00"),
+                product("c", "Phone", Category.ELECTRONICS, "499.00"),
+                product("d", "Laptop Stand", Category.ELECTRONICS, "25.00"),
+                product("e", "Laptop Stickers", Category.TOYS, "4.99")));
+
+        CatalogSnapshot.Facets facets = snapshot.filter("laptop", Set.of(Category.ELECTRONICS, Category.FASHION),
+                new BigDecimal("25"), new BigDecimal("999.00"), 0, 10);
+
+        assertArrayEquals(new int[] {0, 1, 3}, facets.ordinals());
+        assertEquals(3, facets.total());
+        assertEquals(2, facets.categoryCounts()[Category.ELECTRONICS.ordinal()]);
+        assertEquals(1, facets.categoryCounts()[Category.FASHION.ordinal()]);
+        assertEquals(0, facets.categoryCounts()[Category.TOYS.ordinal()]);
+        assertArrayEquals(new int[] {3}, snapshot.filter(null, Set.of(), null, new BigDecimal("25.00"), 1, 1)
+                .ordinals());
+        assertEquals(5, snapshot.filter(null, Set.of(), null, null, 0, 0).total());
+    }
+
+    @Test
+    void testFilterAgreesWithCheckingEveryProductAfterChanges() {
+        Random random = new Random(5);
+        Category[] categories = Category.values();
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            products.add(randomProduct(random, String.format("p%05d", i), categories));
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+
+        for (int round = 0; round < 20; round++) {
+            List<Product> changed = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                changed.add(randomProduct(random, String.format("p%05d", random.nextInt(1_100)), categories));
+            }
+            snapshot = snapshot.with(changed, Set.of(String.format("p%05d", random.nextInt(1_100))));
+
+            for (int i = 0; i < 20; i++) {
+                Set<Category> picked = random.nextBoolean() ? Set.of()
+                        : EnumSet.of(categories[random.nextInt(categories.length)], categories[random.nextInt(3)]);
+                BigDecimal min = random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(100));
+                BigDecimal max = random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(100));
+                String term = random.nextBoolean() ? null : randomText(random, "ab", 2);
+
+                List<Integer> expected = new ArrayList<>();
+                int[] expectedCounts = new int[categories.length];
+                for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+                    BigDecimal price = snapshot.price(ordinal);
+                    boolean inRange = (min == null || price != null && price.compareTo(min) >= 0)
+                            && (max == null || price != null && price.compareTo(max) <= 0);
+                    boolean named = term == null || snapshot.name(ordinal).contains(term);
+                    if (!inRange || !named) continue;
+                    Category category = snapshot.category(ordinal);
+                    if (category != null) {
+                        expectedCounts[category.ordinal()]++;
+                    }
+                    if (picked.isEmpty() || picked.contains(category)) {
+                        expected.add(ordinal);
+                    }
+                }
+
+                CatalogSnapshot.Facets facets = snapshot.filter(term, picked, min, max, 3, 50);
+
+                assertEquals(expected.size(), facets.total());
+                assertEquals(expected.subList(Math.min(3, expected.size()), Math.min(53, expected.size())),
+                        Arrays.stream(facets.ordinals()).boxed().toList());
+                assertArrayEquals(expectedCounts, facets.categoryCounts());
+            }
+        }
+    }
+
+    private static Product randomProduct(Random random, String id, Category[] categories) {
+        return Product.builder()
+                .id(id)
+                .name(randomText(random, "ab", 4))
+                .category(random.nextInt(10) == 0 ? null : categories[random.nextInt(categories.length)])
+                .price(random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(10_000), 2))
+                .build();
+    }
+
+    private static int[] expectedSuggestions(CatalogSnapshot snapshot, String prefix) {
+        List<Integer> matching = new ArrayList<>();
+        for (int ordinal = 0; ordinal < snapshot.size(); ordinal++) {
+            String name = snapshot.name(ordinal);
+            for (int at = 0; at <= name.length() - prefix.length(); at++) {
+                boolean wordStart = at == 0 || Character.isLetterOrDigit(name.charAt(at))
+                        && !Character.isLetterOrDigit(name.charAt(at - 1));
+                if (wordStart && name.regionMatches(true, at, prefix, 0, prefix.length())) {
+                    matching.add(ordinal);
+                    break;
+                }
+            }
+        }
+        return matching.stream()
+                .sorted(Comparator.<Integer>comparingInt(o -> snapshot.name(o).length())
+                        .thenComparing(o -> snapshot.name(o).toLowerCase()))
+                .limit(10)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.productservice;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one page of filtered products with their category counts, taken by checking every product in turn,
+ * with the same page taken from the catalog's category bitsets and price order.
+ *
+ * Run with:
+ * mvn -pl product-service test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-Xmx4g -cp %classpath com.example.productservice.FacetBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FacetBenchmark {
+
+    private static final Category[] CATEGORIES = Category.values();
+
+    @Param({"2000000"})
+    private int products;
+
+    @Param({"category", "price", "categoryAndPrice"})
+    private String filter;
+
+    private CatalogSnapshot catalog;
+    private List<Product> all;
+    private Set<Category> categories;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        all = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            all.add(Product.builder()
+                    .id(String.format("p%08d", i))
+                    .name("Product " + i)
+                    .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                    .price(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                    .build());
+        }
+        catalog = CatalogSnapshot.of(all);
+        categories = filter.equals("price") ? Set.of() : EnumSet.of(Category.BOOKS, Category.TOYS);
+        minPrice = filter.equals("category") ? null : new BigDecimal("100.00");
+        maxPrice = filter.equals("category") ? null : new BigDecimal("250.00");
+    }
+
+    @Benchmark
+    public int scan() {
+        int[] page = new int[20];
+        int[] counts = new int[CATEGORIES.length];
+        int total = 0;
+        for (int i = 0; i < all.size(); i++) {
+            Product product = all.get(i);
+            BigDecimal price = product.getPrice();
+            if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) continue;
+            if (maxPrice != null && (price == null || price.compareTo(maxPrice) > 0)) continue;
+            counts[product.getCategory().ordinal()]++;
+            if (categories.isEmpty() || categories.contains(product.getCategory())) {
+                if (total < page.length) {
+                    page[total] = i;
+                }
+                total++;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public CatalogSnapshot.Facets facetIndex() {
+        return catalog.filter(null, categories, minPrice, maxPrice, 0, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(FacetBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.productservice;
+
+import com.example.productservice.catalog.ProductCatalog;
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductCatalogTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private ProductCatalog productCatalog;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        productCatalog = new ProductCatalog(mongoTemplate, 5000);
+    }
+
+    private static Product product(String id, String price, Instant updatedAt) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .description("desc")
+                .category(Category.TOYS)
+                .price(new BigDecimal(price))
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    @Test
+    void testLoadPublishesSnapshot() {
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.of(product("a", "1.00", null), product("b", "2.00", null)));
+
+        assertNull(productCatalog.snapshot());
+        productCatalog.load();
+
+        assertEquals(2, productCatalog.snapshot().size());
+    }
+
+    @Test
+    void testFailedLoadKeepsPreviousSnapshot() {
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.of(product("a", "1.00", null)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        productCatalog.load();
+        productCatalog.reload();
+
+        assertEquals(1, productCatalog.snapshot().size());
+    }
+
+    @Test
+    void testPollMergesChangesFromTheNewestSeenMinusOverlap() {
+        Instant loadedAt = Instant.parse("2026-10-01T10:00:00Z");
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.of(product("a", "1.00", loadedAt), product("b", "2.00", null)));
+        productCatalog.load();
+
+        Instant changedAt = loadedAt.plusSeconds(60);
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("a", "1.50", changedAt), product("c", "3.00", changedAt)));
+        productCatalog.poll();
+
+        var snapshot = productCatalog.snapshot();
+        assertEquals(3, snapshot.size());
+        assertEquals(new BigDecimal("1.50"), snapshot.price(snapshot.ordinal("a")));
+
+        productCatalog.poll();
+        assertSame(snapshot, productCatalog.snapshot(), "unchanged products are not published again");
+
+        ArgumentCaptor<Query> polls = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(polls.capture(), eq(Product.class));
+        assertEquals(loadedAt.minusSeconds(5), since(polls.getAllValues().get(0)));
+        assertEquals(changedAt.minusSeconds(5), since(polls.getAllValues().get(1)));
+    }
+
+    @Test
+    void testFetchedProductsAreMergedByTheNextPoll() {
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenReturn(Stream.of());
+        productCatalog.load();
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("a", "1.00", null)))
+                .thenReturn(List.of());
+
+        assertEquals(1, productCatalog.fetch(List.of("a", "zzz")).size());
+        assertEquals(-1, productCatalog.snapshot().ordinal("a"), "the request does not build a snapshot");
+
+        productCatalog.poll();
+        assertEquals(0, productCatalog.snapshot().ordinal("a"));
+    }
+
+    @Test
+    void testFetchedProductsAreKeptForTheNextPollWhenOneFails() {
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class))).thenReturn(Stream.of());
+        productCatalog.load();
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("a", "1.00", null)))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(List.of());
+
+        productCatalog.fetch(List.of("a"));
+        productCatalog.poll();
+        assertEquals(-1, productCatalog.snapshot().ordinal("a"));
+
+        productCatalog.poll();
+        assertEquals(0, productCatalog.snapshot().ordinal("a"));
+    }
+
+    @Test
+    void testPolledVersionWinsOverAnEarlierFetch() {
+        Instant loadedAt = Instant.parse("2026-10-01T10:00:00Z");
+        when(mongoTemplate.stream(any(Query.class), eq(Product.class)))
+                .thenReturn(Stream.of(product("b", "2.00", loadedAt)));
+        productCatalog.load();
+        when(mongoTemplate.find(any(Query.class), eq(Product.class)))
+                .thenReturn(List.of(product("a", "1.00", loadedAt)))
+                .thenReturn(List.of(product("a", "1.25", loadedAt.plusSeconds(1))));
+
+        productCatalog.fetch(List.of("a"));
+        productCatalog.poll();
+
+        var snapshot = productCatalog.snapshot();
+        assertEquals(new BigDecimal("1.25"), snapshot.price(snapshot.ordinal("a")));
+    }
+
+    private static Object since(Query query) {
+        return query.getQueryObject().get("updatedAt", Document.class).get("$gte");
+    }
+}
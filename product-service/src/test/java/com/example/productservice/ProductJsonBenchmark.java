@@ -0,0 +1,112 @@
+package com.example.productservice;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.catalog.ProductCatalog;
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import com.example.productservice.service.ProductJsonCache;
+import com.example.productservice.service.ProductJsonService;
+import com.example.productservice.service.ProductServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing a product and a page of products with Jackson on every read, as the controller did,
+ * with taking their bytes from the JSON cache once it holds them.
+ *
+ * Run with:
+ * mvn -pl product-service test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-cp %classpath com.example.productservice.ProductJsonBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    @Param({"20"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductServiceImpl productService;
+    private ProductJsonService productJsonService;
+    private PageRequest page;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            products.add(Product.builder()
+                    .id(String.format("p%08d", i))
+                    .name("Acme Laptop " + i)
+                    .description("A light laptop with a long battery life, model " + random.nextInt(1_000))
+                    .category(Category.ELECTRONICS)
+                    .price(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                    .build());
+        }
+        CatalogSnapshot catalog = CatalogSnapshot.of(products);
+        ProductCatalog productCatalog = new ProductCatalog(null, 0) {
+            @Override
+            public CatalogSnapshot snapshot() {
+                return catalog;
+            }
+        };
+        productService = new ProductServiceImpl(null, productCatalog);
+        productJsonService = new ProductJsonService(productService, productCatalog,
+                new ProductJsonCache(objectMapper, new SimpleMeterRegistry(), 64 * 1024 * 1024));
+        page = PageRequest.of(3, pageSize);
+    }
+
+    @Benchmark
+    public byte[] serializeProduct() throws Exception {
+        return objectMapper.writeValueAsBytes(productService.getProductDetail("p00000042"));
+    }
+
+    @Benchmark
+    public byte[] cachedProduct() {
+        return productJsonService.getProductDetail("p00000042");
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(productService.getAllProducts(page));
+    }
+
+    @Benchmark
+    public byte[] cachedPage() {
+        return productJsonService.getAllProducts(page);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ProductJsonBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
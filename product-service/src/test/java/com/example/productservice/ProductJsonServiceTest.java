@@ -0,0 +1,169 @@
+package com.example.productservice;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.catalog.ProductCatalog;
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductRepository;
+import com.example.productservice.service.ProductJsonCache;
+import com.example.productservice.service.ProductJsonService;
+import com.example.productservice.service.ProductServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+class ProductJsonServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ProductServiceImpl productService;
+    private ProductJsonService productJsonService;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+        productService = new ProductServiceImpl(productRepository, productCatalog);
+        productJsonService = new ProductJsonService(productService, productCatalog,
+                new ProductJsonCache(objectMapper, meterRegistry, 64 * 1024 * 1024));
+    }
+
+    private Product product(String id, String name, String price) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .description("desc \"" + name + "\" ✓")
+                .category(Category.ELECTRONICS)
+                .price(new BigDecimal(price))
+                .build();
+    }
+
+    private CatalogSnapshot catalogOf(Product... products) {
+        CatalogSnapshot catalog = CatalogSnapshot.of(List.of(products));
+        when(productCatalog.snapshot()).thenReturn(catalog);
+        return catalog;
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private static String text(byte[] json) {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testResponsesMatchTheirSerializedObjects() throws Exception {
+        catalogOf(product("1", "Laptop", "999.00"), product("2", "Laptop Bag", "25.50"),
+                product("3", "Phone", "1E+2"));
+
+        for (int pass = 0; pass < 2; pass++) {
+            assertEquals(json(productService.getAllProducts(PageRequest.of(0, 2))),
+                    text(productJsonService.getAllProducts(PageRequest.of(0, 2))));
+            assertEquals(json(productService.searchProducts("lap", PageRequest.of(0, 10))),
+                    text(productJsonService.searchProducts("lap", PageRequest.of(0, 10))));
+            assertEquals(json(productService.filterProducts(null, Set.of(Category.ELECTRONICS), null,
+                            new BigDecimal("100"), PageRequest.of(0, 10))),
+                    text(productJsonService.filterProducts(null, Set.of(Category.ELECTRONICS), null,
+                            new BigDecimal("100"), PageRequest.of(0, 10))));
+            assertEquals(json(productService.getProductDetail("2")), text(productJsonService.getProductDetail("2")));
+            assertEquals(json(productService.getProductDetails(List.of("3", "1", "3"))),
+                    text(productJsonService.getProductDetails(List.of("3", "1", "3"))));
+        }
+        assertEquals("[]", text(productJsonService.getProductDetails(List.of())));
+    }
+
+    @Test
+    void testRepeatedReadsAreServedFromTheCache() {
+        catalogOf(product("1", "Laptop", "999.00"), product("2", "Phone", "499.00"));
+
+        byte[] page = productJsonService.getAllProducts(PageRequest.of(0, 10));
+        byte[] detail = productJsonService.getProductDetail("1");
+
+        assertSame(page, productJsonService.getAllProducts(PageRequest.of(0, 10)));
+        assertSame(detail, productJsonService.getProductDetail("1"));
+        assertEquals(1, meterRegistry.counter("product.json-cache.requests", "kind", "page", "result", "hit")
+                .count());
+        // the page stored both products, so both detail reads hit
+        assertEquals(2, meterRegistry.counter("product.json-cache.requests", "kind", "product", "result", "hit")
+                .count());
+        assertTrue(meterRegistry.counter("product.json-cache.serialization-saved").count() > 0);
+        assertTrue(meterRegistry.get("product.json-cache.bytes").gauge().value() > page.length + detail.length);
+    }
+
+    @Test
+    void testChangedProductIsSerializedAgain() throws Exception {
+        CatalogSnapshot catalog = catalogOf(product("1", "Laptop", "999.00"), product("2", "Phone", "499.00"));
+        byte[] page = productJsonService.getAllProducts(PageRequest.of(0, 10));
+        byte[] unchanged = productJsonService.getProductDetail("2");
+        productJsonService.getProductDetail("1");
+
+        CatalogSnapshot changed = catalog.with(List.of(product("1", "Laptop", "899.00")), Set.of());
+        when(productCatalog.snapshot()).thenReturn(changed);
+
+        assertEquals(json(productService.getProductDetail("1")), text(productJsonService.getProductDetail("1")));
+        assertTrue(text(productJsonService.getProductDetail("1")).contains("899.00"));
+        assertSame(unchanged, productJsonService.getProductDetail("2"));
+        byte[] changedPage = productJsonService.getAllProducts(PageRequest.of(0, 10));
+        assertNotSame(page, changedPage);
+        assertEquals(json(productService.getAllProducts(PageRequest.of(0, 10))), text(changedPage));
+    }
+
+    @Test
+    void testReadsTheCatalogCannotAnswerAreServedByTheService() throws Exception {
+        catalogOf(product("1", "Laptop", "999.00"));
+        when(productCatalog.fetch(List.of("9"))).thenReturn(List.of(product("9", "Tablet", "299.00")));
+        PageRequest sorted = PageRequest.of(0, 10, Sort.by("name"));
+        when(productRepository.findAll(sorted))
+                .thenReturn(new PageImpl<>(List.of(product("1", "Laptop", "999.00")), sorted, 1));
+
+        assertEquals(json(productService.getProductDetails(List.of("1", "9"))),
+                text(productJsonService.getProductDetails(List.of("1", "9"))));
+        assertEquals(json(productService.getAllProducts(sorted)), text(productJsonService.getAllProducts(sorted)));
+        assertEquals(0, meterRegistry.counter("product.json-cache.requests", "kind", "page", "result", "miss")
+                .count());
+    }
+
+    @Test
+    void testCacheIsBoundedByBytes() throws InterruptedException {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            products.add(product(String.format("p%03d", i), "Product " + i, "1.00"));
+        }
+        CatalogSnapshot catalog = CatalogSnapshot.of(products);
+        ProductJsonCache cache = new ProductJsonCache(objectMapper, meterRegistry, 8 * 1024);
+
+        for (int ordinal = 0; ordinal < catalog.size(); ordinal++) {
+            cache.product(catalog, ordinal);
+        }
+
+        for (int wait = 0; wait < 50 && cache.bytes() > 8 * 1024; wait++) {
+            Thread.sleep(100);
+        }
+        assertTrue(cache.bytes() <= 8 * 1024);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.productservice;
+
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductRepositoryTest {
+
+    private InProcessMongo mongo;
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setup() {
+        mongo = new InProcessMongo();
+        productRepository = new MongoRepositoryFactory(mongo.mongoTemplate()).getRepository(ProductRepository.class);
+        productRepository.saveAll(List.of(product("1", "Gaming Laptop"), product("2", "C++ Primer"),
+                product("3", "Cpp Guide"), product("4", "LAPTOP Stand"), product("5", "Cable 125m")));
+    }
+
+    @AfterEach
+    void teardown() {
+        mongo.close();
+    }
+
+    private static Product product(String id, String name) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .category(Category.ELECTRONICS)
+                .price(BigDecimal.ONE)
+                .build();
+    }
+
+    private List<String> names(String term) {
+        return productRepository.findByNameContainingIgnoreCase(term, PageRequest.of(0, 10, Sort.by("name")))
+                .map(Product::getName)
+                .getContent();
+    }
+
+    @Test
+    void testNameSearchTakesTheTermLiterally() {
+        assertEquals(List.of("Gaming Laptop", "LAPTOP Stand"), names("laptop"));
+        assertEquals(List.of("C++ Primer"), names("c++"));
+        assertEquals(List.of(), names("1.5"));
+        assertEquals(List.of(), names("^cable"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.productservice;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares one page of search results taken the way Mongo's unanchored case-insensitive $regex finds them, a
+ * quoted pattern tried against every name, with the same page taken from the catalog's trigram index. The
+ * regex scan runs once here; Mongo ran it a second time for the page count.
+ *
+ * Run with:
+ * mvn -pl product-service test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-Xmx4g -cp %classpath com.example.productservice.ProductSearchBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Hooli", "Stark", "Wayne"};
+    private static final String[] NOUNS = {"Laptop", "Phone", "Headphones", "Monitor", "Keyboard", "Mouse",
+            "Camera", "Speaker", "Charger", "Tablet", "Backpack", "Jacket", "Sneakers", "Novel", "Puzzle"};
+    private static final String[] COLORS = {"Black", "White", "Blue", "Red", "Green", "Silver", "Gold"};
+
+    @Param({"1000000"})
+    private int products;
+
+    @Param({"laptop", "laptop blue", "x-31337", "zz"})
+    private String term;
+
+    private CatalogSnapshot catalog;
+    private String[] names;
+    private Pattern pattern;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Product> all = new ArrayList<>(products);
+        names = new String[products];
+        for (int i = 0; i < products; i++) {
+            names[i] = BRANDS[random.nextInt(BRANDS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " "
+                    + COLORS[random.nextInt(COLORS.length)] + " X-" + (10_000 + random.nextInt(90_000));
+            all.add(Product.builder()
+                    .id(String.format("p%08d", i))
+                    .name(names[i])
+                    .category(Category.ELECTRONICS)
+                    .price(BigDecimal.ONE)
+                    .build());
+        }
+        catalog = CatalogSnapshot.of(all);
+        pattern = Pattern.compile(Pattern.quote(term), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    @Benchmark
+    public int regexScan() {
+        int[] page = new int[20];
+        int total = 0;
+        Matcher matcher = pattern.matcher("");
+        for (int i = 0; i < names.length; i++) {
+            if (matcher.reset(names[i]).find()) {
+                if (total < page.length) {
+                    page[total] = i;
+                }
+                total++;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public CatalogSnapshot.Matches trigramIndex() {
+        return catalog.search(term, 0, 20);
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ProductSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
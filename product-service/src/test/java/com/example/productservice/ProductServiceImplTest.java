@@ -1,7 +1,11 @@
 package com.example.productservice;
 
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.catalog.ProductCatalog;
 import com.example.productservice.constant.Category;
+import com.example.productservice.dto.FacetedProductsResponse;
 import com.example.productservice.dto.GetProductResponse;
+import com.example.productservice.dto.ProductSuggestion;
 import com.example.productservice.exception.BusinessException;
 import com.example.productservice.model.Product;
 import com.example.productservice.repository.ProductRepository;
@@ -15,15 +19,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class ProductServiceImplTest {
@@ -31,6 +40,9 @@ class ProductServiceImplTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductCatalog productCatalog;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -49,8 +61,29 @@ class ProductServiceImplTest {
                 .build();
     }
 
+    private void catalogOf(Product... products) {
+        when(productCatalog.snapshot()).thenReturn(CatalogSnapshot.of(List.of(products)));
+    }
+
     @Test
     void testGetAllProducts() {
+        catalogOf(createDummyProduct("1", "Laptop"), createDummyProduct("2", "Smartphone"),
+                createDummyProduct("3", "Tablet"));
+
+        Page<GetProductResponse> result = productService.getAllProducts(PageRequest.of(0, 2));
+
+        assertEquals(3, result.getTotalElements());
+        assertEquals(2, result.getContent().size());
+        assertEquals("Laptop", result.getContent().get(0).name());
+        assertEquals("ELECTRONICS", result.getContent().get(0).category());
+        assertEquals(new BigDecimal("100.00"), result.getContent().get(0).price());
+        assertEquals("Tablet", productService.getAllProducts(PageRequest.of(1, 2)).getContent().get(0).name());
+
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetAllProductsBeforeCatalogLoaded() {
         Product p1 = createDummyProduct("1", "Laptop");
         Product p2 = createDummyProduct("2", "Smartphone");
 
@@ -63,36 +96,95 @@ class ProductServiceImplTest {
 
         assertEquals(2, result.getTotalElements());
         assertEquals("Laptop", result.getContent().get(0).name());
-        assertEquals("ELECTRONICS", result.getContent().get(0).category());
-        assertEquals(new BigDecimal("100.00"), result.getContent().get(0).price());
 
         verify(productRepository).findAll(pageable);
     }
 
     @Test
     void testSearchProducts() {
-        Product p1 = createDummyProduct("1", "Laptop");
+        catalogOf(createDummyProduct("1", "Laptop"), createDummyProduct("2", "Smartphone"),
+                createDummyProduct("3", "LAPTOP Stand"), createDummyProduct("4", "Overlap"));
 
-        Pageable pageable = PageRequest.of(0, 10);
-        Page<Product> productPage = new PageImpl<>(List.of(p1), pageable, 1);
+        Page<GetProductResponse> result = productService.searchProducts("lap", PageRequest.of(0, 2));
 
-        when(productRepository.findByNameContainingIgnoreCase("lap", pageable))
-                .thenReturn(productPage);
-
-        Page<GetProductResponse> result = productService.searchProducts("lap", pageable);
-
-        assertEquals(1, result.getTotalElements());
+        assertEquals(3, result.getTotalElements());
+        assertEquals(List.of("Laptop", "LAPTOP Stand"), result.getContent().stream().map(GetProductResponse::name).toList());
         assertTrue(result.getContent().get(0).name().toLowerCase().contains("lap"));
         assertEquals("ELECTRONICS", result.getContent().get(0).category());
+        assertEquals("Overlap", productService.searchProducts("lap", PageRequest.of(1, 2)).getContent().get(0).name());
 
-        verify(productRepository).findByNameContainingIgnoreCase("lap", pageable);
+        verifyNoInteractions(productRepository);
     }
 
     @Test
-    void testGetProductDetailFound() {
-        Product p = createDummyProduct("1", "Laptop");
+    void testSearchProductsTakesTheTermLiterally() {
+        catalogOf(createDummyProduct("1", "C++ Primer"), createDummyProduct("2", "Cpp Guide"),
+                createDummyProduct("3", "Cable 1.5m"), createDummyProduct("4", "Cable 125m"));
+
+        assertEquals(List.of("C++ Primer"), productService.searchProducts("c++", PageRequest.of(0, 10)).getContent()
+                .stream().map(GetProductResponse::name).toList());
+        assertEquals(List.of("Cable 1.5m"), productService.searchProducts("1.5", PageRequest.of(0, 10)).getContent()
+                .stream().map(GetProductResponse::name).toList());
+        assertEquals(0, productService.searchProducts("^cable", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testSortedSearchPassesTheTermToMongoUnchanged() {
+        catalogOf(createDummyProduct("1", "C++ Primer"));
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("name"));
+        when(productRepository.findByNameContainingIgnoreCase("c++", pageable))
+                .thenReturn(new PageImpl<>(List.of(createDummyProduct("1", "C++ Primer")), pageable, 1));
+
+        assertEquals(1, productService.searchProducts("c++", pageable).getTotalElements());
+    }
+
+    @Test
+    void testFilterProducts() {
+        catalogOf(createDummyProduct("1", "Laptop"), createDummyProduct("2", "Laptop Bag"),
+                createDummyProduct("3", "Phone"));
+
+        FacetedProductsResponse<GetProductResponse> result = productService.filterProducts("laptop", Set.of(Category.BOOKS),
+                new BigDecimal("50"), null, PageRequest.of(0, 10));
+
+        assertEquals(0, result.products().getTotalElements());
+        assertEquals(2, result.categoryCounts().get("ELECTRONICS"));
+        assertEquals(0, result.categoryCounts().get("BOOKS"));
+        assertEquals(List.of("Laptop Bag"), productService.filterProducts(null, Set.of(Category.ELECTRONICS),
+                null, new BigDecimal("100.00"), PageRequest.of(1, 1)).products().getContent()
+                .stream().map(GetProductResponse::name).toList());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testFilterProductsBeforeCatalogLoaded() {
+        BusinessException ex = assertThrows(BusinessException.class, () ->
+                productService.filterProducts(null, Set.of(), null, null, PageRequest.of(0, 10)));
+
+        assertEquals("CATALOG_NOT_LOADED", ex.getCode());
+    }
+
+    @Test
+    void testSuggest() {
+        catalogOf(createDummyProduct("1", "Phone Case"), createDummyProduct("2", "Smartphone"),
+                createDummyProduct("3", "Phone"), createDummyProduct("4", "Wireless Phone Charger"));
+
+        List<ProductSuggestion> suggestions = productService.suggest("pho", 2);
+
+        assertEquals(List.of(new ProductSuggestion("3", "Phone"), new ProductSuggestion("1", "Phone Case")),
+                suggestions);
+        assertEquals(3, productService.suggest("PHONE", 20).size());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testSuggestBeforeCatalogLoaded() {
+        assertTrue(productService.suggest("pho", 10).isEmpty());
+        verifyNoInteractions(productRepository);
+    }
 
-        when(productRepository.findById("1")).thenReturn(Optional.of(p));
+    @Test
+    void testGetProductDetailFound() {
+        catalogOf(createDummyProduct("1", "Laptop"));
 
         GetProductResponse response = productService.getProductDetail("1");
 
@@ -102,12 +194,22 @@ class ProductServiceImplTest {
         assertEquals("ELECTRONICS", response.category());
         assertEquals(new BigDecimal("100.00"), response.price());
 
-        verify(productRepository).findById("1");
+        verify(productCatalog, never()).fetch(anyCollection());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetProductDetailMissIsReadFromMongo() {
+        catalogOf(createDummyProduct("1", "Laptop"));
+        when(productCatalog.fetch(Set.of("2"))).thenReturn(List.of(createDummyProduct("2", "Smartphone")));
+
+        assertEquals("Smartphone", productService.getProductDetail("2").name());
     }
 
     @Test
     void testGetProductDetailNotFound() {
-        when(productRepository.findById("99")).thenReturn(Optional.empty());
+        catalogOf();
+        when(productCatalog.fetch(Set.of("99"))).thenReturn(List.of());
 
         BusinessException exception = assertThrows(
                 BusinessException.class,
@@ -117,6 +219,21 @@ class ProductServiceImplTest {
         assertEquals("PRODUCT_NOT_FOUND", exception.getCode());
         assertEquals("Product not found with id: 99", exception.getMessage());
 
-        verify(productRepository).findById("99");
+        verify(productCatalog).fetch(Set.of("99"));
+    }
+
+    @Test
+    void testGetProductDetailsSkipsMissingIds() {
+        catalogOf(createDummyProduct("1", "Laptop"), createDummyProduct("2", "Smartphone"));
+        when(productCatalog.fetch(any())).thenReturn(List.of());
+
+        List<GetProductResponse> response = productService.getProductDetails(List.of("1", "2", "99", "1"));
+
+        assertEquals(2, response.size());
+        assertEquals("Laptop", response.get(0).name());
+        assertEquals("Smartphone", response.get(1).name());
+
+        verify(productCatalog).fetch(List.of("99"));
+        verifyNoInteractions(productRepository);
     }
-}
\ No newline at end of file
+}
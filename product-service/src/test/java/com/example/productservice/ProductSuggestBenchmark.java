@@ -0,0 +1,102 @@
+package com.example.productservice;
+
+import com.example.productservice.catalog.CatalogSnapshot;
+import com.example.productservice.constant.Category;
+import com.example.productservice.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a suggestion lookup against a catalog of a million products, for prefixes from one char, where the
+ * best names are precomputed, to a model number that leaves a handful of names to rank, and the cost of
+ * publishing a snapshot with one product changed.
+ *
+ * Run with:
+ * mvn -pl product-service test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-Xmx4g -cp %classpath com.example.productservice.ProductSuggestBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSuggestBenchmark {
+
+    private static final String[] BRANDS = {"Acme", "Globex", "Initech", "Umbrella", "Hooli", "Stark", "Wayne"};
+    private static final String[] NOUNS = {"Laptop", "Phone", "Headphones", "Monitor", "Keyboard", "Mouse",
+            "Camera", "Speaker", "Charger", "Tablet", "Backpack", "Jacket", "Sneakers", "Novel", "Puzzle"};
+    private static final String[] COLORS = {"Black", "White", "Blue", "Red", "Green", "Silver", "Gold"};
+
+    @Param({"1000000"})
+    private int products;
+
+    @Param({"l", "lapt", "x-3133"})
+    private String prefix;
+
+    private CatalogSnapshot catalog;
+    private Product changed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<Product> all = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            all.add(product(String.format("p%08d", i), BRANDS[random.nextInt(BRANDS.length)] + " "
+                    + NOUNS[random.nextInt(NOUNS.length)] + " " + COLORS[random.nextInt(COLORS.length)]
+                    + " X-" + (10_000 + random.nextInt(90_000))));
+        }
+        catalog = CatalogSnapshot.of(all);
+        changed = product("p00500000", "Acme Laptop Purple X-99999");
+    }
+
+    private static Product product(String id, String name) {
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .category(Category.ELECTRONICS)
+                .price(BigDecimal.ONE)
+                .build();
+    }
+
+    @Benchmark
+    public int[] suggest() {
+        return catalog.suggest(prefix, 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public CatalogSnapshot publishOneChange() {
+        return catalog.with(List.of(changed), Set.of());
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ProductSuggestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.reactivegateway;
+
+import com.example.shared.proxy.GatewayRouteProperties;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication
+@EnableScheduling
+@EnableConfigurationProperties(GatewayRouteProperties.class)
+public class ReactiveGatewayApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveGatewayApplication.class, args);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.example.reactivegateway.common;
+
+import com.example.shared.common.ApiResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Maps failures to ApiResponse envelopes. Downstream errors keep their status and the body's
+ * {@code message}, falling back to the status text so the downstream URL never reaches the caller;
+ * anything else is a 500.
+ */
+public final class ErrorResponses {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ErrorResponses() {
+    }
+
+    public static ApiResponse<?> of(Throwable ex) {
+        if (ex instanceof WebClientResponseException responseException) {
+            return of(responseException.getStatusCode().value(), extractMessage(responseException));
+        }
+        return of(500, ex.getMessage());
+    }
+
+    public static ApiResponse<?> of(int code, Object errors) {
+        return ApiResponse.builder()
+                .code(code)
+                .status(HttpStatus.valueOf(code).name())
+                .data(null)
+                .errors(errors)
+                .build();
+    }
+
+    private static String extractMessage(WebClientResponseException ex) {
+        try {
+            JsonNode body = MAPPER.readTree(ex.getResponseBodyAsString());
+
+            if (body.has("message")) {
+                return body.get("message").asText();
+            }
+        } catch (Exception ignored) {
+        }
+
+        return ex.getStatusText();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.reactivegateway.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class WebClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider downstreamConnectionProvider(
+            @Value("${http.client.max-connections:500}") int maxConnections,
+            @Value("${http.client.pending-acquire-max-count:10000}") int pendingAcquireMaxCount,
+            @Value("${http.client.connection-request-timeout-ms:1000}") long connectionRequestTimeoutMs,
+            @Value("${http.client.idle-evict-ms:30000}") long idleEvictMs) {
+
+        return ConnectionProvider.builder("downstream")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(idleEvictMs))
+                .evictInBackground(Duration.ofMillis(idleEvictMs))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient webClient(WebClient.Builder builder,
+                               ConnectionProvider downstreamConnectionProvider,
+                               @Value("${http.client.connect-timeout-ms:1000}") int connectTimeoutMs,
+                               @Value("${http.client.read-timeout-ms:5000}") long readTimeoutMs) {
+
+        HttpClient httpClient = HttpClient.create(downstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.reactivegateway.controller;
+
+import com.example.reactivegateway.dto.LoginRequest;
+import com.example.reactivegateway.model.Token;
+import com.example.reactivegateway.repository.TokenRepository;
+import com.example.reactivegateway.security.TokenRevocationRegistry;
+import com.example.reactivegateway.security.UserPrincipal;
+import com.example.shared.common.ApiResponse;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/auth")
+public class AuthGatewayController {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> MAP_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final WebClient webClient;
+    private final String memberServiceBaseUrl;
+    private final JwtUtil<UserPrincipal> jwtUtil;
+    private final TokenRepository tokenRepository;
+    private final TokenCache<UserPrincipal> tokenCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final Duration tokenTtl;
+
+    public AuthGatewayController(WebClient webClient,
+                                 @Value("${member.service.base-url}") String memberServiceBaseUrl,
+                                 JwtUtil<UserPrincipal> jwtUtil, TokenRepository tokenRepository,
+                                 TokenCache<UserPrincipal> tokenCache,
+                                 TokenRevocationRegistry revocationRegistry,
+                                 @Value("${jwt.token-ttl-ms:300000}") long tokenTtlMs) {
+        this.webClient = webClient;
+        this.memberServiceBaseUrl = memberServiceBaseUrl;
+        this.jwtUtil = jwtUtil;
+        this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.revocationRegistry = revocationRegistry;
+        this.tokenTtl = Duration.ofMillis(tokenTtlMs);
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<ApiResponse<?>>> login(@Valid @RequestBody LoginRequest request) {
+        return webClient.post()
+                .uri(memberServiceBaseUrl + "/api/auth/login")
+                .bodyValue(request)
+                .retrieve()
+                .toEntity(MAP_TYPE)
+                .flatMap(response -> {
+                    Map<String, Object> data = response.getBody();
+                    String userId = (String) data.get("id");
+
+                    Instant now = Instant.now();
+                    Instant expiresAt = now.plus(tokenTtl);
+                    String tokenId = UUID.randomUUID().toString();
+                    String token = jwtUtil.generateToken(tokenId, userId, Map.of("claims", data), now, expiresAt);
+
+                    Token userToken = new Token();
+                    userToken.setId(tokenId);
+                    userToken.setToken(token);
+                    userToken.setMemberId(userId);
+                    userToken.setCreatedAt(now);
+                    userToken.setExpiresAt(expiresAt);
+
+                    UserPrincipal principal = new UserPrincipal(userId, (String) data.get("email"), (String) data.get("role"));
+
+                    ApiResponse<?> result = ApiResponse.builder()
+                            .code(response.getStatusCode().value())
+                            .status(HttpStatus.valueOf(response.getStatusCode().value()).name())
+                            .data(Map.of(
+                                    "user", data,
+                                    "token", token
+                            ))
+                            .errors(null)
+                            .build();
+
+                    return tokenRepository.save(userToken)
+                            .doOnSuccess(saved -> tokenCache.putVerified(token, tokenId, principal, expiresAt))
+                            .thenReturn(ResponseEntity.ok(result));
+                });
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<ApiResponse<?>>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        String token = authHeader.substring(7);
+
+        Optional<JwtUtil.VerifiedToken<UserPrincipal>> verified = jwtUtil.verify(token);
+        if (verified.isEmpty()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        return tokenRepository.findByToken(token)
+                .flatMap(userToken -> {
+                    if (userToken.getRevokedAt() != null) {
+                        return Mono.just(true);
+                    }
+                    userToken.setRevokedAt(Instant.now());
+                    return tokenRepository.save(userToken).thenReturn(true);
+                })
+                .defaultIfEmpty(false)
+                .map(revoked -> {
+                    tokenCache.invalidate(token);
+                    revocationRegistry.revoke(verified.get().tokenId(), verified.get().expiresAt());
+
+                    ApiResponse<?> result = ApiResponse.builder()
+                            .code(200)
+                            .status("OK")
+                            .data(Map.of("revoked", revoked))
+                            .errors(null)
+                            .build();
+
+                    return ResponseEntity.ok(result);
+                });
+    }
+}
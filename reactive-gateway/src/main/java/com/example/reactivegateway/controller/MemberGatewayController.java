@@ -0,0 +1,30 @@
+package com.example.reactivegateway.controller;
+
+import com.example.reactivegateway.security.UserPrincipal;
+import com.example.shared.common.ApiResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/member")
+public class MemberGatewayController {
+
+    @GetMapping("/currentUser")
+    public ResponseEntity<ApiResponse<?>> currentUser(
+            @RequestAttribute(UserPrincipal.ATTRIBUTE) UserPrincipal principal) {
+
+        ApiResponse<?> apiResponse = ApiResponse.builder()
+                .code(200)
+                .status("OK")
+                .data(Map.of("userId", principal.userId()))
+                .errors(null)
+                .build();
+
+        return ResponseEntity.ok(apiResponse);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.reactivegateway.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Document(collection = "user_tokens")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Token {
+
+    @Id
+    private String id;
+
+    private String token;
+
+    private String memberId;
+
+    private Instant createdAt;
+
+    private Instant expiresAt;
+
+    private Instant revokedAt;
+}
@@ -0,0 +1,76 @@
+package com.example.reactivegateway.proxy;
+
+import com.example.shared.proxy.Envelopes;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Reactive counterpart of the servlet gateway's EnvelopeWriter. BODY and WRAP emit the downstream
+ * buffers as they arrive between a pre-encoded head and tail. EXTRACT joins the body first because
+ * the blocking Jackson parser needs the whole document, then copies the field token by token.
+ */
+@Component
+public class EnvelopeWriter {
+
+    private final JsonFactory jsonFactory;
+
+    public EnvelopeWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public Flux<DataBuffer> write(GatewayRouteProperties.Envelope envelope,
+                                  String field,
+                                  int code,
+                                  Flux<DataBuffer> body) {
+
+        return switch (envelope) {
+            case NONE -> body;
+            case BODY -> Flux.concat(bytes(Envelopes.head(code)), orNull(body), bytes(Envelopes.TAIL));
+            case WRAP -> Flux.concat(bytes(Envelopes.head(code)), bytes(Envelopes.wrapHead(field)), orNull(body),
+                    bytes(Envelopes.CLOSE), bytes(Envelopes.TAIL));
+            case EXTRACT -> Flux.concat(bytes(Envelopes.head(code)), extract(body, field), bytes(Envelopes.TAIL));
+        };
+    }
+
+    private static Mono<DataBuffer> bytes(byte[] bytes) {
+        return Mono.fromSupplier(() -> DefaultDataBufferFactory.sharedInstance.wrap(bytes));
+    }
+
+    private static Flux<DataBuffer> orNull(Flux<DataBuffer> body) {
+        return body
+                .filter(buffer -> {
+                    if (buffer.readableByteCount() == 0) {
+                        DataBufferUtils.release(buffer);
+                        return false;
+                    }
+                    return true;
+                })
+                .switchIfEmpty(bytes(Envelopes.NULL));
+    }
+
+    private Mono<DataBuffer> extract(Flux<DataBuffer> body, String field) {
+        return DataBufferUtils.join(body)
+                .<DataBuffer>map(joined -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (InputStream in = joined.asInputStream(true)) {
+                        Envelopes.extract(jsonFactory, in, field, out);
+                        return DefaultDataBufferFactory.sharedInstance.wrap(out.toByteArray());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .switchIfEmpty(bytes(Envelopes.NULL));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.reactivegateway.proxy;
+
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Turns every entry of {@code gateway.routes} into a functional route, so both gateway builds
+ * serve exactly the same table.
+ */
+@Configuration
+public class ProxyRouteConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> proxyRoutes(GatewayRoutes gatewayRoutes,
+                                                      WebClient webClient,
+                                                      EnvelopeWriter envelopeWriter) {
+        RouterFunctions.Builder builder = RouterFunctions.route();
+
+        for (GatewayRouteProperties.Route route : gatewayRoutes.all()) {
+            ProxyRouteHandler handler = new ProxyRouteHandler(route, webClient, envelopeWriter);
+            builder.route(RequestPredicates.method(route.getMethod())
+                    .and(RequestPredicates.path(route.getPath())), handler::handle);
+        }
+
+        return builder.build();
+    }
+}
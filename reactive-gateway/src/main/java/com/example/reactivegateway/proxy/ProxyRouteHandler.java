@@ -0,0 +1,86 @@
+package com.example.reactivegateway.proxy;
+
+import com.example.reactivegateway.common.ErrorResponses;
+import com.example.reactivegateway.security.UserPrincipal;
+import com.example.shared.common.ApiResponse;
+import com.example.shared.proxy.GatewayRouteProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * Handles a single configured route: forwards the request with the {@link WebClient} and streams the
+ * response back through {@link EnvelopeWriter}. Downstream 4xx/5xx surface as
+ * {@code WebClientResponseException} before any bytes are written and become error envelopes.
+ */
+public class ProxyRouteHandler {
+
+    private static final String USER_ID_HEADER = "X-User-Id";
+
+    private final GatewayRouteProperties.Route route;
+    private final WebClient webClient;
+    private final EnvelopeWriter envelopeWriter;
+
+    public ProxyRouteHandler(GatewayRouteProperties.Route route,
+                             WebClient webClient,
+                             EnvelopeWriter envelopeWriter) {
+        this.route = route;
+        this.webClient = webClient;
+        this.envelopeWriter = envelopeWriter;
+    }
+
+    public Mono<ServerResponse> handle(ServerRequest request) {
+        String target = UriComponentsBuilder
+                .fromUriString(route.getDownstream())
+                .path(route.getDownstreamPath())
+                .buildAndExpand(request.pathVariables())
+                .encode()
+                .toUriString();
+
+        String query = request.uri().getRawQuery();
+        URI uri = URI.create(query == null ? target : target + "?" + query);
+
+        WebClient.RequestBodySpec spec = webClient.method(route.getMethod())
+                .uri(uri)
+                .accept(MediaType.APPLICATION_JSON);
+
+        request.attribute(UserPrincipal.ATTRIBUTE)
+                .map(UserPrincipal.class::cast)
+                .ifPresent(principal -> spec.header(USER_ID_HEADER, principal.userId()));
+
+        Optional<MediaType> contentType = request.headers().contentType();
+        WebClient.RequestHeadersSpec<?> exchange = contentType.isPresent()
+                ? spec.contentType(contentType.get())
+                        .body(BodyInserters.fromDataBuffers(request.bodyToFlux(DataBuffer.class)))
+                : spec;
+
+        return exchange.retrieve()
+                .toEntityFlux(DataBuffer.class)
+                .flatMap(response -> {
+                    int code = response.getStatusCode().value();
+                    MediaType responseType = route.getEnvelope() == GatewayRouteProperties.Envelope.NONE
+                            && response.getHeaders().getContentType() != null
+                            ? response.getHeaders().getContentType()
+                            : MediaType.APPLICATION_JSON;
+
+                    return ServerResponse.status(code)
+                            .contentType(responseType)
+                            .body(envelopeWriter.write(route.getEnvelope(), route.getEnvelopeField(), code,
+                                    response.getBody()), DataBuffer.class);
+                })
+                .onErrorResume(ex -> {
+                    ApiResponse<?> error = ErrorResponses.of(ex);
+                    return ServerResponse.status(error.getCode())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(error);
+                });
+    }
+}
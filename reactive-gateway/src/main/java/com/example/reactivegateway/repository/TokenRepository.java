@@ -0,0 +1,15 @@
+package com.example.reactivegateway.repository;
+
+import com.example.reactivegateway.model.Token;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface TokenRepository extends ReactiveMongoRepository<Token, String> {
+
+    Mono<Token> findByToken(String token);
+
+    Flux<Token> findByRevokedAtGreaterThanEqualAndExpiresAtAfter(Instant revokedSince, Instant expiresAfter);
+}
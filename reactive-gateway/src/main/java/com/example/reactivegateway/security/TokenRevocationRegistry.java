@@ -0,0 +1,90 @@
+package com.example.reactivegateway.security;
+
+import com.example.reactivegateway.model.Token;
+import com.example.reactivegateway.repository.TokenRepository;
+import com.example.shared.security.TokenCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The servlet gateway's ALLOWLIST-mode TokenRevocationRegistry on a reactive query: revoked token ids are
+ * polled from user_tokens on a revokedAt watermark, so a logout on any instance is refused here and
+ * evicted from the {@link TokenCache} within one poll interval instead of being served until the cached
+ * entry expires.
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    private final TokenRepository tokenRepository;
+    private final TokenCache<UserPrincipal> tokenCache;
+    private final Duration pollOverlap;
+
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private volatile Instant watermark = Instant.EPOCH;
+
+    public TokenRevocationRegistry(TokenRepository tokenRepository,
+                                   TokenCache<UserPrincipal> tokenCache,
+                                   @Value("${jwt.revocation.poll-overlap-ms:5000}") long pollOverlapMs) {
+        this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.pollOverlap = Duration.ofMillis(pollOverlapMs);
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        Instant expiresAt = revoked.get(tokenId);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    /**
+     * Returns whether the token id was not already known to be revoked.
+     */
+    public boolean revoke(String tokenId, Instant expiresAt) {
+        return tokenId != null && revoked.put(tokenId, expiresAt) == null;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-interval-ms:1000}")
+    public Mono<Void> poll() {
+        Instant now = Instant.now();
+        Instant since = watermark.equals(Instant.EPOCH) ? Instant.EPOCH : watermark.minus(pollOverlap);
+
+        return tokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(since, now)
+                .collectList()
+                .doOnNext(this::apply)
+                .onErrorResume(ex -> {
+                    log.warn("Failed to poll revoked tokens since {}", since, ex);
+                    return Mono.empty();
+                })
+                .doFinally(signal -> revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now)))
+                .then();
+    }
+
+    private void apply(List<Token> tokens) {
+        Instant latest = watermark;
+        Set<String> newlyRevoked = new HashSet<>();
+        for (Token token : tokens) {
+            if (revoke(token.getId(), token.getExpiresAt())) {
+                newlyRevoked.add(token.getId());
+            }
+            if (token.getRevokedAt().isAfter(latest)) {
+                latest = token.getRevokedAt();
+            }
+        }
+        tokenCache.invalidateTokenIds(newlyRevoked);
+        watermark = latest;
+    }
+}
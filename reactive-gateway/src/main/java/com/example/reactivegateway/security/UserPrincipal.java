@@ -0,0 +1,7 @@
+package com.example.reactivegateway.security;
+
+public record UserPrincipal(String userId, String email, String role) {
+
+    /** Exchange attribute the authentication filter stores the caller under. */
+    public static final String ATTRIBUTE = "com.example.reactivegateway.security.UserPrincipal";
+}
@@ -0,0 +1,138 @@
+package com.example.reactivegateway.util;
+
+import com.example.reactivegateway.model.Token;
+import com.example.reactivegateway.repository.TokenRepository;
+import com.example.reactivegateway.security.TokenRevocationRegistry;
+import com.example.reactivegateway.security.UserPrincipal;
+import com.example.shared.proxy.GatewayRoutes;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Same checks as the servlet gateway's JwtAuthenticationFilter in ALLOWLIST mode, but the user_tokens
+ * lookup on a cache miss is a reactive query so no event-loop thread ever waits on Mongo. Tokens the
+ * servlet gateways issue write-behind may be missing from user_tokens for up to the visibility lag; until
+ * then a miss is refused without caching the refusal.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    private static final TokenCache.Entry<UserPrincipal> INVALID =
+            new TokenCache.Entry<>(null, null, true, Instant.EPOCH);
+
+    private final JwtUtil<UserPrincipal> jwtUtil;
+    private final TokenRepository tokenRepository;
+    private final TokenCache<UserPrincipal> tokenCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final GatewayRoutes gatewayRoutes;
+    private final Duration revokedTtl;
+    private final Duration visibilityLag;
+
+    public JwtAuthenticationWebFilter(JwtUtil<UserPrincipal> jwtUtil,
+                                      TokenRepository tokenRepository,
+                                      TokenCache<UserPrincipal> tokenCache,
+                                      TokenRevocationRegistry revocationRegistry,
+                                      GatewayRoutes gatewayRoutes,
+                                      @Value("${jwt.token-cache.revoked-ttl-ms:60000}") long revokedTtlMs,
+                                      @Value("${jwt.token-visibility-lag-ms:31000}") long visibilityLagMs) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRepository = tokenRepository;
+        this.tokenCache = tokenCache;
+        this.revocationRegistry = revocationRegistry;
+        this.gatewayRoutes = gatewayRoutes;
+        this.revokedTtl = Duration.ofMillis(revokedTtlMs);
+        this.visibilityLag = Duration.ofMillis(visibilityLagMs);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+
+        if (shouldNotFilter(request.getMethod().name(), path)) {
+            return chain.filter(exchange);
+        }
+
+        String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return unauthorized(exchange);
+        }
+
+        String token = authHeader.substring(7);
+
+        TokenCache.Entry<UserPrincipal> cached = tokenCache.get(token);
+        Mono<TokenCache.Entry<UserPrincipal>> entry = cached != null
+                ? Mono.just(cached)
+                : Mono.justOrEmpty(jwtUtil.verify(token)).flatMap(verified -> resolve(token, verified));
+
+        return entry
+                .defaultIfEmpty(INVALID)
+                .flatMap(resolved -> {
+                    if (resolved.revoked() || revocationRegistry.isRevoked(resolved.tokenId())) {
+                        return unauthorized(exchange);
+                    }
+                    exchange.getAttributes().put(UserPrincipal.ATTRIBUTE, resolved.principal());
+                    return chain.filter(exchange);
+                });
+    }
+
+    private boolean shouldNotFilter(String method, String path) {
+        return path.startsWith("/auth/")
+                || path.startsWith("/actuator")
+                || gatewayRoutes.isPublic(method, path);
+    }
+
+    private Mono<TokenCache.Entry<UserPrincipal>> resolve(String token,
+                                                          JwtUtil.VerifiedToken<UserPrincipal> verified) {
+        String tokenId = verified.tokenId();
+
+        return tokenRepository.findByToken(token)
+                .map(stored -> isActive(stored)
+                        ? tokenCache.putVerified(token, tokenId, verified.principal(),
+                                min(stored.getExpiresAt(), verified.expiresAt()))
+                        : revoked(token, verified))
+                .switchIfEmpty(Mono.fromSupplier(() -> missing(token, verified)));
+    }
+
+    private TokenCache.Entry<UserPrincipal> missing(String token, JwtUtil.VerifiedToken<UserPrincipal> verified) {
+        // another instance may not have written it yet: refuse it for now, but without caching the refusal
+        if (verified.issuedAt().isAfter(Instant.now().minus(visibilityLag))) {
+            return new TokenCache.Entry<>(verified.tokenId(), null, true, verified.expiresAt());
+        }
+        return revoked(token, verified);
+    }
+
+    private TokenCache.Entry<UserPrincipal> revoked(String token, JwtUtil.VerifiedToken<UserPrincipal> verified) {
+        Instant revokedUntil = Instant.now().plus(revokedTtl);
+        return tokenCache.putRevoked(token, verified.tokenId(), min(revokedUntil, verified.expiresAt()));
+    }
+
+    private static boolean isActive(Token stored) {
+        return stored.getRevokedAt() == null && stored.getExpiresAt().isAfter(Instant.now());
+    }
+
+    private static Mono<Void> unauthorized(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        return exchange.getResponse().setComplete();
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.reactivegateway;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Side-by-side load driver for the servlet (api-gateway) and reactive (reactive-gateway) builds.
+ *
+ * <pre>
+ * stub  &lt;port&gt; &lt;latencyMs&gt;                  fake product-service answering /api/product/** after a fixed delay
+ * drive &lt;concurrency&gt; &lt;seconds&gt; &lt;url&gt;...    closed-loop load against each url in turn
+ * </pre>
+ *
+ * Start the stub, point both gateways at it with {@code --product.service.base-url=http://localhost:<port>},
+ * then drive e.g. {@code /product/product-detail/p1} on 8080 and 8090 with the same concurrency.
+ */
+public class GatewayLoadComparison {
+
+    private static final byte[] PRODUCT = ("{\"id\":\"p1\",\"name\":\"Product 1\",\"price\":10.00,"
+            + "\"description\":\"stub\",\"category\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        switch (args[0]) {
+            case "stub" -> stub(Integer.parseInt(args[1]), Long.parseLong(args[2]));
+            case "drive" -> {
+                int concurrency = Integer.parseInt(args[1]);
+                Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+                for (String url : Arrays.copyOfRange(args, 3, args.length)) {
+                    drive(URI.create(url), concurrency, Duration.ofSeconds(5));
+                    System.out.println(drive(URI.create(url), concurrency, duration));
+                }
+            }
+            default -> throw new IllegalArgumentException("usage: stub <port> <latencyMs> | drive <concurrency> <seconds> <url>...");
+        }
+    }
+
+    private static void stub(int port, long latencyMs) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 4096);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/product", exchange -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, PRODUCT.length);
+            exchange.getResponseBody().write(PRODUCT);
+            exchange.close();
+        });
+        server.start();
+        System.out.println("stub listening on " + port + " with " + latencyMs + "ms latency");
+    }
+
+    private static String drive(URI uri, int concurrency, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicLong errors = new AtomicLong();
+        long[] bucket = new long[1 << 20];
+        AtomicLong recorded = new AtomicLong();
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        while (System.nanoTime() < end) {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        if (failure != null || response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        } else {
+                            long index = recorded.getAndIncrement();
+                            if (index < bucket.length) {
+                                bucket[(int) index] = System.nanoTime() - sent;
+                            }
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(concurrency);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int count = (int) Math.min(recorded.get(), bucket.length);
+        long[] sorted = Arrays.copyOf(bucket, count);
+        Arrays.sort(sorted);
+
+        return String.format("%s c=%d ok=%d errors=%d rps=%.0f p50=%.1fms p99=%.1fms max=%.1fms",
+                uri, concurrency, recorded.get(), errors.get(), recorded.get() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(index, 0)]) / 1000.0;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.reactivegateway;
+
+import com.example.reactivegateway.model.Token;
+import com.example.reactivegateway.proxy.EnvelopeWriter;
+import com.example.reactivegateway.proxy.ProxyRouteConfig;
+import com.example.reactivegateway.repository.TokenRepository;
+import com.example.reactivegateway.security.TokenRevocationRegistry;
+import com.example.reactivegateway.security.UserPrincipal;
+import com.example.reactivegateway.util.JwtAuthenticationWebFilter;
+import com.example.shared.proxy.GatewayRouteProperties;
+import com.example.shared.proxy.GatewayRoutes;
+import com.example.shared.security.TokenCache;
+import com.example.shared.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Serves the route table through the auth filter against a stubbed downstream.
+ */
+class ProxyRoutesTest {
+
+    @Mock
+    private TokenRepository tokenRepository;
+
+    private final JwtUtil<UserPrincipal> jwtUtil =
+            new JwtUtil<>("0123456789abcdef0123456789abcdef", 3_600_000, UserPrincipal::new);
+    private final List<ClientRequest> downstream = new ArrayList<>();
+
+    private HttpStatus downstreamStatus = HttpStatus.OK;
+    private String downstreamBody = "{\"content\":[{\"id\":\"1\"}],\"page\":0}";
+    private TokenRevocationRegistry revocationRegistry;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.openMocks(this);
+
+        GatewayRouteProperties properties = new GatewayRouteProperties();
+        properties.getRoutes().add(route("product-detail", "/product/product-detail/{id}",
+                "/api/product/product-detail/{id}", false, GatewayRouteProperties.Envelope.BODY));
+        properties.getRoutes().add(route("member-users", "/member/users", "/api/member/users", true,
+                GatewayRouteProperties.Envelope.EXTRACT));
+        GatewayRoutes gatewayRoutes = new GatewayRoutes(properties);
+
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    downstream.add(request);
+                    return Mono.just(ClientResponse.create(downstreamStatus)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(downstreamBody)
+                            .build());
+                })
+                .build();
+
+        TokenCache<UserPrincipal> tokenCache = new TokenCache<>(1000, 300_000, new SimpleMeterRegistry());
+        revocationRegistry = new TokenRevocationRegistry(tokenRepository, tokenCache, 5000);
+        JwtAuthenticationWebFilter filter = new JwtAuthenticationWebFilter(jwtUtil, tokenRepository, tokenCache,
+                revocationRegistry, gatewayRoutes, 60_000, 31_000);
+
+        client = WebTestClient
+                .bindToRouterFunction(new ProxyRouteConfig().proxyRoutes(gatewayRoutes, webClient,
+                        new EnvelopeWriter(new ObjectMapper())))
+                .webFilter(filter)
+                .build();
+    }
+
+    private static GatewayRouteProperties.Route route(String id, String path, String downstreamPath, boolean auth,
+                                                      GatewayRouteProperties.Envelope envelope) {
+        GatewayRouteProperties.Route route = new GatewayRouteProperties.Route();
+        route.setId(id);
+        route.setMethod(HttpMethod.GET);
+        route.setPath(path);
+        route.setDownstream("http://downstream");
+        route.setDownstreamPath(downstreamPath);
+        route.setAuth(auth);
+        route.setEnvelope(envelope);
+        route.setEnvelopeField("content");
+        return route;
+    }
+
+    private static Token stored(String token, Instant expiresAt) {
+        return Token.builder().id("t1").token(token).memberId("member-1").expiresAt(expiresAt).build();
+    }
+
+    private WebTestClient.ResponseSpec getUsers(String token) {
+        return client.get().uri("/member/users")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange();
+    }
+
+    private String token(Instant expiresAt) {
+        return jwtUtil.generateToken("t1", "member-1", Map.of("claims",
+                Map.of("id", "member-1", "email", "a@b.c", "role", "USER")), Instant.now(), expiresAt);
+    }
+
+    @Test
+    void testPublicRouteIsProxiedWithoutAToken() {
+        client.get().uri("/product/product-detail/p1?fields=name")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .isEqualTo("{\"code\":200,\"status\":\"OK\",\"data\":{\"content\":[{\"id\":\"1\"}],\"page\":0},"
+                        + "\"errors\":null}");
+
+        assertEquals(1, downstream.size());
+        assertEquals("http://downstream/api/product/product-detail/p1?fields=name",
+                downstream.get(0).url().toString());
+        assertNull(downstream.get(0).headers().getFirst("X-User-Id"));
+    }
+
+    @Test
+    void testProtectedRouteIsRejectedWithoutAToken() {
+        client.get().uri("/member/users")
+                .exchange()
+                .expectStatus().isUnauthorized();
+        client.get().uri("/member/users")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-jwt")
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        assertTrue(downstream.isEmpty());
+        verifyNoInteractions(tokenRepository);
+    }
+
+    @Test
+    void testProtectedRouteForwardsTheCallerWithAStoredToken() {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+        String token = token(expiresAt);
+        when(tokenRepository.findByToken(token)).thenReturn(Mono.just(
+                Token.builder().id("t1").token(token).memberId("member-1").expiresAt(expiresAt).build()));
+
+        for (int i = 0; i < 2; i++) {
+            client.get().uri("/member/users")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .isEqualTo("{\"code\":200,\"status\":\"OK\",\"data\":[{\"id\":\"1\"}],\"errors\":null}");
+        }
+
+        assertEquals(2, downstream.size());
+        assertEquals("member-1", downstream.get(1).headers().getFirst("X-User-Id"));
+        // the second call is answered from the token cache
+        verify(tokenRepository, times(1)).findByToken(token);
+    }
+
+    @Test
+    void testRevokedTokenIsRejected() {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+        String token = token(expiresAt);
+        when(tokenRepository.findByToken(token)).thenReturn(Mono.just(Token.builder().id("t1").token(token)
+                .memberId("member-1").expiresAt(expiresAt).revokedAt(Instant.now()).build()));
+
+        client.get().uri("/member/users")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isUnauthorized();
+
+        assertTrue(downstream.isEmpty());
+    }
+
+    @Test
+    void testTokenMissingWhileItMayNotBeWrittenYetIsRefusedWithoutCaching() {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+        String token = token(expiresAt);
+        when(tokenRepository.findByToken(token))
+                .thenReturn(Mono.empty())
+                .thenReturn(Mono.just(stored(token, expiresAt)));
+
+        getUsers(token).expectStatus().isUnauthorized();
+        getUsers(token).expectStatus().isOk();
+
+        assertEquals(1, downstream.size());
+        verify(tokenRepository, times(2)).findByToken(token);
+    }
+
+    @Test
+    void testLogoutOnAnotherInstanceEvictsTheCachedToken() {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+        String token = token(expiresAt);
+        Token active = stored(token, expiresAt);
+        when(tokenRepository.findByToken(token)).thenReturn(Mono.just(active));
+        getUsers(token).expectStatus().isOk();
+
+        Token revoked = stored(token, expiresAt);
+        revoked.setRevokedAt(Instant.now());
+        when(tokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(any(), any()))
+                .thenReturn(Flux.just(revoked));
+        revocationRegistry.poll().block();
+
+        getUsers(token).expectStatus().isUnauthorized();
+        assertEquals(1, downstream.size());
+        assertTrue(revocationRegistry.isRevoked("t1"));
+    }
+
+    @Test
+    void testDownstreamServerErrorKeepsItsStatusAndMessage() {
+        downstreamStatus = HttpStatus.SERVICE_UNAVAILABLE;
+        downstreamBody = "{\"message\":\"Product index is rebuilding\"}";
+
+        client.get().uri("/product/product-detail/p1")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+                .expectBody(String.class)
+                .isEqualTo("{\"code\":503,\"status\":\"SERVICE_UNAVAILABLE\",\"data\":null,"
+                        + "\"errors\":\"Product index is rebuilding\"}");
+
+        downstreamStatus = HttpStatus.BAD_GATEWAY;
+        downstreamBody = "upstream failed";
+
+        String body = client.get().uri("/product/product-detail/p1")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_GATEWAY)
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        assertTrue(body.contains("\"errors\":\"Bad Gateway\""));
+        assertFalse(body.contains("http://downstream"));
+    }
+}
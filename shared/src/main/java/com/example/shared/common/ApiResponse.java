@@ -1,4 +1,4 @@
-package com.example.apigateway.common;
+package com.example.shared.common;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
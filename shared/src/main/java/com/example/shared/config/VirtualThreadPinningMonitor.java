@@ -0,0 +1,90 @@
+package com.example.shared.config;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Registered by {@link VirtualThreadPinningAutoConfiguration}, so only with spring.threads.virtual.enabled=true.
+ * Streams the JFR jdk.VirtualThreadPinned event in-process, logs the first occurrence per call site with its
+ * stack and a per-site summary on shutdown. A call site is the innermost frame in our own code, falling back to
+ * the top frame.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String OWN_CODE = "com.example.";
+
+    private final RecordingStream stream;
+    private final Map<String, Site> pinnedBySite = new ConcurrentHashMap<>();
+
+    public VirtualThreadPinningMonitor(long thresholdMs) {
+        this.stream = new RecordingStream();
+        this.stream.enable(EVENT)
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        this.stream.onEvent(EVENT, this::record);
+        this.stream.startAsync();
+        log.info("Reporting virtual thread pinning longer than {} ms", thresholdMs);
+    }
+
+    public Map<String, Long> pinnedBySite() {
+        return pinnedBySite.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().count().sum()));
+    }
+
+    private void record(RecordedEvent event) {
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String site = site(frames);
+
+        Site pinned = pinnedBySite.computeIfAbsent(site, key -> new Site(new LongAdder(), new AtomicBoolean()));
+        pinned.count().increment();
+
+        if (pinned.logged().compareAndSet(false, true)) {
+            log.warn("Virtual thread pinned for {} ms at {}\n{}", event.getDuration().toMillis(), site,
+                    frames.stream()
+                            .map(VirtualThreadPinningMonitor::format)
+                            .collect(Collectors.joining("\n\tat ", "\tat ", "")));
+        }
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace == null ? List.of() : stackTrace.getFrames();
+    }
+
+    private static String site(List<RecordedFrame> frames) {
+        return frames.stream()
+                .filter(frame -> frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(OWN_CODE))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::format)
+                .orElse("unknown");
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private record Site(LongAdder count, AtomicBoolean logged) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stream.close();
+        if (!pinnedBySite.isEmpty()) {
+            log.warn("Virtual thread pinning by call site: {}", pinnedBySite());
+        }
+    }
+}
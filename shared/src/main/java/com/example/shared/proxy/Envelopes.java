@@ -0,0 +1,69 @@
+package com.example.shared.proxy;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The bytes of the {@code ApiResponse} envelope the gateways splice around a downstream body, in the order
+ * {@link #head}, the data, {@link #TAIL}. With WRAP the data is {@link #wrapHead}, the body, {@link #CLOSE}.
+ * The arrays are shared and must not be modified.
+ */
+public final class Envelopes {
+
+    public static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+    public static final byte[] CLOSE = "}".getBytes(StandardCharsets.UTF_8);
+    public static final byte[] TAIL = ",\"errors\":null}".getBytes(StandardCharsets.UTF_8);
+
+    private Envelopes() {
+    }
+
+    public static byte[] head(int code) {
+        String status = HttpStatus.valueOf(code).name();
+        return ("{\"code\":" + code + ",\"status\":\"" + status + "\",\"data\":").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static byte[] wrapHead(String field) {
+        return ("{\"" + new String(JsonStringEncoder.getInstance().quoteAsUTF8(field), StandardCharsets.UTF_8) + "\":")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the value of the top-level {@code field} of the JSON object in {@code body} to {@code out} token by
+     * token, or null when there is no such field. {@code out} is flushed but left open.
+     */
+    public static void extract(JsonFactory jsonFactory, InputStream body, String field, OutputStream out)
+            throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body);
+             JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            boolean written = false;
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (!written && parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    if (field.equals(name)) {
+                        generator.copyCurrentStructure(parser);
+                        written = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+
+            if (!written) {
+                generator.writeNull();
+            }
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.shared.proxy;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes proxied by the gateways, bound from {@code gateway.routes[n].*}. The reactive gateway ignores the
+ * caching, coalescing and OpenAPI settings.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway")
+public class GatewayRouteProperties {
+
+    private List<Route> routes = new ArrayList<>();
+
+    public enum Envelope {
+        /** data is the whole downstream body */
+        BODY,
+        /** data is a single top-level field of the downstream body, e.g. the content of a Page */
+        EXTRACT,
+        /** data is an object holding the downstream body under envelope-field */
+        WRAP,
+        /** downstream body is passed through untouched */
+        NONE
+    }
+
+    @Getter
+    @Setter
+    public static class Route {
+
+        private String id;
+
+        private HttpMethod method = HttpMethod.GET;
+
+        private String path;
+
+        private String downstream;
+
+        private String downstreamPath;
+
+        private boolean auth = true;
+
+        private Envelope envelope = Envelope.BODY;
+
+        private String envelopeField = "content";
+
+        /**
+         * GET routes of the servlet gateway only; when set, enveloped 200 responses are cached for this long
+         */
+        private Duration cacheTtl;
+
+        /** GET routes of the servlet gateway only; identical concurrent downstream calls share a single request */
+        private boolean coalesce;
+
+        /** OpenAPI summary of the route; the id when unset */
+        private String summary;
+
+        /** OpenAPI tag of the route; the first path segment, capitalised, when unset */
+        private String tag;
+
+        /** query parameters documented for the route, each with its default value or blank for none */
+        private Map<String, String> queryParams = new LinkedHashMap<>();
+    }
+}
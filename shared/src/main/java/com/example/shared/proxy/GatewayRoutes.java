@@ -0,0 +1,46 @@
+package com.example.shared.proxy;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/**
+ * The {@code gateway.routes} table both gateways serve, with the paths parsed once for the public route check.
+ */
+public class GatewayRoutes {
+
+    private final List<GatewayRouteProperties.Route> routes;
+    private final List<PathPattern> patterns;
+
+    public GatewayRoutes(GatewayRouteProperties properties) {
+        this.routes = List.copyOf(properties.getRoutes());
+        this.patterns = routes.stream()
+                .map(route -> PathPatternParser.defaultInstance.parse(route.getPath()))
+                .toList();
+    }
+
+    public List<GatewayRouteProperties.Route> all() {
+        return routes;
+    }
+
+    public List<GatewayRouteProperties.Route> publicRoutes() {
+        return routes.stream()
+                .filter(route -> !route.isAuth())
+                .toList();
+    }
+
+    public boolean isPublic(String method, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (int i = 0; i < routes.size(); i++) {
+            GatewayRouteProperties.Route route = routes.get(i);
+            if (!route.isAuth()
+                    && route.getMethod().matches(method)
+                    && patterns.get(i).matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.shared.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Bounded cache of tokens that were already verified against the signing key and user_tokens.
+ * Entries are keyed by a SHA-256 digest of the raw token and never outlive the token's expiresAt.
+ */
+public class TokenCache<P> {
+
+    private final Cache<String, Entry<P>> cache;
+    private final long maxTtlNanos;
+
+    public TokenCache(long maxSize, long maxTtlMs, MeterRegistry meterRegistry) {
+        this.maxTtlNanos = Duration.ofMillis(maxTtlMs).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.token");
+    }
+
+    public Entry<P> get(String token) {
+        Entry<P> entry = cache.getIfPresent(digest(token));
+        if (entry != null && !entry.expiresAt().isAfter(Instant.now())) {
+            return null;
+        }
+        return entry;
+    }
+
+    public Entry<P> putVerified(String token, String tokenId, P principal, Instant expiresAt) {
+        return put(token, new Entry<>(tokenId, principal, false, expiresAt));
+    }
+
+    public Entry<P> putRevoked(String token, String tokenId, Instant expiresAt) {
+        return put(token, new Entry<>(tokenId, null, true, expiresAt));
+    }
+
+    public void invalidate(String token) {
+        cache.invalidate(digest(token));
+    }
+
+    /**
+     * Drops the entries of the given token ids. Entries are keyed by token, so this walks the whole cache.
+     */
+    public void invalidateTokenIds(Set<String> tokenIds) {
+        if (tokenIds.isEmpty()) {
+            return;
+        }
+        cache.asMap().values().removeIf(entry -> tokenIds.contains(entry.tokenId()));
+    }
+
+    private Entry<P> put(String token, Entry<P> entry) {
+        if (entry.expiresAt().isAfter(Instant.now())) {
+            cache.put(digest(token), entry);
+        }
+        return entry;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Entry<P>(String tokenId, P principal, boolean revoked, Instant expiresAt) {
+    }
+
+    private class EntryExpiry implements Expiry<String, Entry<P>> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry<P> entry, long currentTime) {
+            long remaining = Duration.between(Instant.now(), entry.expiresAt()).toNanos();
+            return Math.max(0, Math.min(remaining, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry<P> entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry<P> entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
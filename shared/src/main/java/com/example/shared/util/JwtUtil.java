@@ -0,0 +1,94 @@
+package com.example.shared.util;
+
+import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signs and verifies the gateways' JWTs. Each gateway supplies its own principal type through a
+ * {@link PrincipalFactory}.
+ */
+public class JwtUtil<P> {
+
+  private final Key signingKey;
+  private final long expirationMs;
+  private final JwtParser parser;
+  private final PrincipalFactory<P> principalFactory;
+
+  public JwtUtil(String secret, long expirationMs, PrincipalFactory<P> principalFactory) {
+    this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    this.expirationMs = expirationMs;
+    this.principalFactory = principalFactory;
+    this.parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+  }
+
+  /**
+   * Verifies the signature and decodes the claims in a single pass.
+   * Returns empty when the token is malformed, tampered with, expired or carries no user claims.
+   */
+  public Optional<VerifiedToken<P>> verify(String token) {
+    try {
+      Claims claims = getClaims(token);
+      Map<?, ?> userClaims = claims.get("claims", Map.class);
+      if (userClaims == null || !(userClaims.get("id") instanceof String userId)) {
+        return Optional.empty();
+      }
+
+      P principal = principalFactory.create(
+              userId,
+              (String) userClaims.get("email"),
+              (String) userClaims.get("role")
+      );
+      return Optional.of(new VerifiedToken<>(
+              claims.getId(),
+              principal,
+              claims.getIssuedAt().toInstant(),
+              claims.getExpiration().toInstant()
+      ));
+    } catch (JwtException | IllegalArgumentException | ClassCastException e) {
+      return Optional.empty();
+    }
+  }
+
+  private Claims getClaims(String token) {
+    return parser.parseClaimsJws(token).getBody();
+  }
+
+  public String generateToken(String userId, Map<String, Object> extraClaims) {
+    Instant now = Instant.now();
+    return generateToken(null, userId, extraClaims, now, now.plusMillis(expirationMs));
+  }
+
+  public String generateToken(String tokenId,
+                              String userId,
+                              Map<String, Object> extraClaims,
+                              Instant issuedAt,
+                              Instant expiresAt) {
+    JwtBuilder builder = Jwts.builder()
+            .setId(tokenId)
+            .setSubject(userId)
+            .setIssuedAt(Date.from(issuedAt))
+            .setExpiration(Date.from(expiresAt))
+            .addClaims(extraClaims)
+            .signWith(signingKey, SignatureAlgorithm.HS256);
+
+    return builder.compact();
+  }
+
+  public record VerifiedToken<P>(String tokenId, P principal, Instant issuedAt, Instant expiresAt) {
+  }
+
+  @FunctionalInterface
+  public interface PrincipalFactory<P> {
+
+    P create(String userId, String email, String role);
+  }
+}